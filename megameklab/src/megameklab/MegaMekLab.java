@@ -20,10 +20,16 @@ import megamek.MegaMek;
 import megamek.client.ui.preferences.SuitePreferences;
 import megamek.common.Configuration;
 import megamek.common.EquipmentType;
-import megamek.common.MechSummaryCache;
 import megamek.common.QuirksHandler;
+import megameklab.printing.BatchExporter;
+import megameklab.printing.RenderService;
 import megameklab.ui.StartupGUI;
+import megameklab.util.BatchAnalyzer;
+import megameklab.util.BatchRoundTrip;
+import megameklab.util.BatchSummaryExporter;
+import megameklab.util.BatchValidator;
 import megameklab.util.CConfig;
+import megameklab.util.PerformanceLog;
 import megameklab.util.UnitUtil;
 import org.apache.logging.log4j.LogManager;
 
@@ -32,14 +38,24 @@ import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 public class MegaMekLab {
     private static final SuitePreferences mmlPreferences = new SuitePreferences();
     private static final MMLOptions mmlOptions = new MMLOptions();
 
+    /** The first command line arguments that run a tool without a display instead of the editor */
+    private static final Set<String> HEADLESS_COMMANDS = Set.of(BatchExporter.COMMAND, RenderService.COMMAND,
+            BatchValidator.COMMAND, BatchAnalyzer.COMMAND, BatchRoundTrip.COMMAND, BatchSummaryExporter.COMMAND);
+
     public static void main(String... args) {
+        if ((args.length > 0) && HEADLESS_COMMANDS.contains(args[0])) {
+            System.exit(runHeadless(args[0], Arrays.copyOfRange(args, 1, args.length)));
+        }
+
         // First, create a global default exception handler
         Thread.setDefaultUncaughtExceptionHandler((thread, t) -> {
             LogManager.getLogger().error("Uncaught Exception Detected", t);
@@ -60,21 +76,22 @@ public class MegaMekLab {
         startup();
     }
 
-    public static void initializeLogging(final String originProject) {
-        LogManager.getLogger().info(getUnderlyingInformation(originProject));
-    }
-
     /**
-     * @param originProject the project that launched MegaMekLab
-     * @return the underlying information for this launch of MegaMekLab
+     * Runs one of the batch tools or the rendering service without a display
+     *
+     * @param command One of the {@link #HEADLESS_COMMANDS}
+     * @param args    The command line arguments following the command
+     * @return        The exit status
      */
-    public static String getUnderlyingInformation(final String originProject) {
-        return MegaMek.getUnderlyingInformation(originProject, MMLConstants.PROJECT_NAME);
-    }
+    private static int runHeadless(String command, String... args) {
+        // This has to be set before anything initializes AWT
+        System.setProperty("java.awt.headless", "true");
+        Thread.setDefaultUncaughtExceptionHandler((thread, t) ->
+                LogManager.getLogger().error("Uncaught Exception Detected", t));
+        MegaMek.initializeLogging(MMLConstants.PROJECT_NAME);
+        MegaMekLab.initializeLogging(MMLConstants.PROJECT_NAME);
 
-    private static void startup() {
         EquipmentType.initializeTypes();
-        MechSummaryCache.getInstance();
         try {
             QuirksHandler.initQuirksList();
         } catch (Exception ex) {
@@ -82,18 +99,47 @@ public class MegaMekLab {
         }
         CConfig.load();
         UnitUtil.loadFonts();
+        Locale.setDefault(getMMLOptions().getLocale());
+        switch (command) {
+            case RenderService.COMMAND:
+                return RenderService.run(args);
+            case BatchValidator.COMMAND:
+                return BatchValidator.run(args);
+            case BatchAnalyzer.COMMAND:
+                return BatchAnalyzer.run(args);
+            case BatchRoundTrip.COMMAND:
+                return BatchRoundTrip.run(args);
+            case BatchSummaryExporter.COMMAND:
+                return BatchSummaryExporter.run(args);
+            default:
+                return BatchExporter.run(args);
+        }
+    }
 
-        MegaMek.getMMPreferences().loadFromFile(MMLConstants.MM_PREFERENCES_FILE);
-        getMMLPreferences().loadFromFile(MMLConstants.MML_PREFERENCES_FILE);
+    public static void initializeLogging(final String originProject) {
+        LogManager.getLogger().info(getUnderlyingInformation(originProject));
+    }
 
-        // TODO : Individual localizations
-        Locale.setDefault(getMMLOptions().getLocale());
+    /**
+     * @param originProject the project that launched MegaMekLab
+     * @return the underlying information for this launch of MegaMekLab
+     */
+    public static String getUnderlyingInformation(final String originProject) {
+        return MegaMek.getUnderlyingInformation(originProject, MMLConstants.PROJECT_NAME);
+    }
+
+    private static void startup() {
+        final long start = System.nanoTime();
+        // The equipment, quirks and unit cache keep loading in the background while the startup screen is shown
+        StartupOrchestrator.start();
+        StartupOrchestrator.await(StartupOrchestrator.Phase.SETTINGS, StartupOrchestrator.Phase.PREFERENCES);
 
         setLookAndFeel();
 
         // Create a startup frame and display it
         StartupGUI sud = new StartupGUI();
         sud.setVisible(true);
+        PerformanceLog.record(PerformanceLog.STARTUP, "Startup screen", start);
     }
 
     private static void setLookAndFeel() {
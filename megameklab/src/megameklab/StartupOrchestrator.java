@@ -0,0 +1,173 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab;
+
+import megamek.MegaMek;
+import megamek.common.EquipmentType;
+import megamek.common.QuirksHandler;
+import megameklab.util.CConfig;
+import megameklab.util.PerformanceLog;
+import megameklab.util.UnitDirectoryWatcher;
+import megameklab.util.UnitUtil;
+import org.apache.logging.log4j.LogManager;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs the phases of application startup on background threads. Each phase starts as soon as the phases
+ * it depends on have finished, so independent phases run at the same time, and the startup screen can be
+ * shown as soon as the settings are loaded while the equipment and unit cache are still loading.
+ *
+ * Code that needs the result of a phase calls {@link #await(Phase...)}, which returns immediately if
+ * the phase has finished or the orchestrator has not been started, as when running a headless tool.
+ */
+public final class StartupOrchestrator {
+    /**
+     * The phases of startup, with the phases that have to finish before each one starts
+     */
+    public enum Phase {
+        SETTINGS,
+        PREFERENCES,
+        // These read localized resources, so they wait for PREFERENCES to set the default locale
+        EQUIPMENT(PREFERENCES),
+        QUIRKS(PREFERENCES),
+        FONTS(SETTINGS),
+        UNIT_CACHE(EQUIPMENT, PREFERENCES),
+        UNIT_WATCHER(SETTINGS);
+
+        private final Phase[] dependencies;
+
+        Phase(Phase... dependencies) {
+            this.dependencies = dependencies;
+        }
+    }
+
+    private static final Map<Phase, CompletableFuture<Void>> phases = new ConcurrentHashMap<>();
+    private static final List<Consumer<Phase>> listeners = new CopyOnWriteArrayList<>();
+
+    private StartupOrchestrator() {
+    }
+
+    /**
+     * Starts all phases. Does nothing if startup has already begun.
+     */
+    public static synchronized void start() {
+        if (!phases.isEmpty()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(Phase.values().length, runnable -> {
+            Thread thread = new Thread(runnable, "Startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Phases are declared after the phases they depend on
+        for (Phase phase : Phase.values()) {
+            final CompletableFuture<?>[] dependencies = Arrays.stream(phase.dependencies)
+                    .map(phases::get).toArray(CompletableFuture<?>[]::new);
+            final CompletableFuture<Void> future = CompletableFuture.allOf(dependencies)
+                    .thenRunAsync(() -> run(phase), executor);
+            future.thenRun(() -> listeners.forEach(l -> l.accept(phase)));
+            phases.put(phase, future);
+        }
+        CompletableFuture.allOf(phases.values().toArray(new CompletableFuture<?>[0]))
+                .thenRun(() -> {
+                    PerformanceLog.record(PerformanceLog.STARTUP, "All phases", start);
+                    executor.shutdown();
+                });
+    }
+
+    /**
+     * Waits for phases to finish.
+     *
+     * @param waitFor The phases
+     */
+    public static void await(Phase... waitFor) {
+        for (Phase phase : waitFor) {
+            final CompletableFuture<Void> future = phases.get(phase);
+            if (future != null) {
+                future.join();
+            }
+        }
+    }
+
+    /**
+     * @param phase The phase
+     * @return      Whether the phase has finished, or startup was not run through the orchestrator
+     */
+    public static boolean isDone(Phase phase) {
+        final CompletableFuture<Void> future = phases.get(phase);
+        return (future == null) || future.isDone();
+    }
+
+    /**
+     * Adds a listener that is notified on a background thread as each phase finishes.
+     * Phases that have already finished are not reported.
+     *
+     * @param listener The listener
+     */
+    public static void addPhaseListener(Consumer<Phase> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addPhaseListener(Consumer)}.
+     *
+     * @param listener The listener
+     */
+    public static void removePhaseListener(Consumer<Phase> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Runs a phase. Errors are logged rather than stopping the phases that depend on it, as
+     * startup has always carried on as far as it could.
+     */
+    private static void run(Phase phase) {
+        final long start = System.nanoTime();
+        try {
+            switch (phase) {
+                case SETTINGS:
+                    CConfig.load();
+                    break;
+                case PREFERENCES:
+                    MegaMek.getMMPreferences().loadFromFile(MMLConstants.MM_PREFERENCES_FILE);
+                    MegaMekLab.getMMLPreferences().loadFromFile(MMLConstants.MML_PREFERENCES_FILE);
+                    // TODO : Individual localizations
+                    Locale.setDefault(MegaMekLab.getMMLOptions().getLocale());
+                    break;
+                case EQUIPMENT:
+                    EquipmentType.initializeTypes();
+                    break;
+                case QUIRKS:
+                    QuirksHandler.initQuirksList();
+                    break;
+                case FONTS:
+                    UnitUtil.loadFonts();
+                    break;
+                case UNIT_CACHE:
+                    UnitUtil.waitForUnitCache();
+                    break;
+                case UNIT_WATCHER:
+                    UnitDirectoryWatcher.start();
+                    break;
+            }
+        } catch (Exception ex) {
+            LogManager.getLogger().warn("Startup phase " + phase + " failed", ex);
+        }
+        PerformanceLog.record(PerformanceLog.STARTUP, phase.name(), start);
+    }
+}
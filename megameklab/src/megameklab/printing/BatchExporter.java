@@ -0,0 +1,317 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import megamek.common.Entity;
+import megamek.common.MULParser;
+import megamek.common.MechFileParser;
+import megameklab.util.BatchCommand;
+import megameklab.util.UnitFiles;
+import megameklab.util.UnitUtil;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Exports record sheets from the command line without a display. Input can be any combination of
+ * unit files, directories (which are searched recursively for unit files) and MUL files. Sheets are
+ * rendered on a pool of worker threads and written either to one PDF per unit or to a single
+ * combined PDF.
+ *
+ * Record sheet options start with the values in the configuration file and can be overridden
+ * with command line arguments. See {@link #usage(PrintStream)}.
+ */
+public class BatchExporter extends BatchCommand {
+    /** The command line argument that selects batch export mode */
+    public static final String COMMAND = "--export";
+
+    /** Record sheet options that can be switched on or off by name */
+    static final Map<String, BiConsumer<RecordSheetOptions, Boolean>> BOOLEAN_OPTIONS = Map.of(
+            "color", RecordSheetOptions::setColor,
+            "reference", RecordSheetOptions::setReferenceCharts,
+            "quirks", RecordSheetOptions::setQuirks,
+            "pilot-data", RecordSheetOptions::setPilotData,
+            "era", RecordSheetOptions::setEraIcon,
+            "role", RecordSheetOptions::setRole,
+            "heat-profile", RecordSheetOptions::setHeatProfile,
+            "tac-ops-heat", RecordSheetOptions::setTacOpsHeat,
+            "era-progression", RecordSheetOptions::setEraBasedProgression);
+
+    private final RecordSheetOptions options = new RecordSheetOptions();
+    private File output;
+    private boolean combined = false;
+    private boolean singlePrint = false;
+    private boolean zip = false;
+    private File report;
+
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong sharedResources = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    private BatchExporter(PrintStream out) {
+        super(out, BatchExporter::usage);
+    }
+
+    /**
+     * Parses the arguments and runs the export.
+     *
+     * @param args The command line arguments following {@link #COMMAND}
+     * @return     The exit status
+     */
+    public static int run(String... args) {
+        return new BatchExporter(System.out).execute(args);
+    }
+
+    /**
+     * Prints a summary of the command line arguments
+     *
+     * @param stream The stream to print to
+     */
+    public static void usage(PrintStream stream) {
+        stream.println("Usage: MegaMekLab " + COMMAND + " [options] <unit file|directory|MUL file>...");
+        stream.println();
+        stream.println("  -o, --output <path>     Output directory, or output file with --combined or --zip");
+        stream.println("                          (default: current directory, record-sheets.pdf or");
+        stream.println("                          record-sheets.zip)");
+        stream.println("  --combined              Write all record sheets to a single PDF");
+        stream.println("  --single                Print one unit per sheet; requires --combined");
+        stream.println("  --zip                   Write the PDF for each unit to a single ZIP file");
+        stream.println("  --report <file>         Write a CSV report with the result of each unit");
+        stream.println("  --threads <n>           Number of worker threads (default: number of processors)");
+        stream.println("  --paper <letter|a4>     Paper size");
+        stream.println("  --[no-]color            Color record sheets");
+        stream.println("  --[no-]reference        Reference tables");
+        stream.println("  --[no-]quirks           Unit quirks");
+        stream.println("  --[no-]pilot-data       Pilot data");
+        stream.println("  --[no-]era              Era icon");
+        stream.println("  --[no-]role             Unit role");
+        stream.println("  --[no-]heat-profile     Heat profile");
+        stream.println("  --[no-]tac-ops-heat     Tactical Operations heat scale");
+        stream.println("  --[no-]era-progression  Era-based tech progression");
+        stream.println("  -h, --help              Show this message");
+        stream.println();
+        stream.println("Directories are searched recursively for .mtf and .blk files. Options that are not");
+        stream.println("given on the command line use the values from the MegaMekLab configuration.");
+    }
+
+    @Override
+    protected int parseOption(String[] args, int i) {
+        final String arg = args[i];
+        final boolean enable = !arg.startsWith("--no-");
+        switch (enable ? arg : "--" + arg.substring(5)) {
+            case "-o":
+            case "--output":
+                output = new File(argumentValue(args, ++i, arg));
+                break;
+            case "--combined":
+                combined = true;
+                break;
+            case "--single":
+                singlePrint = true;
+                break;
+            case "--zip":
+                zip = true;
+                break;
+            case "--report":
+                report = new File(argumentValue(args, ++i, arg));
+                break;
+            case "--paper":
+                options.setPaperSize(parsePaperSize(argumentValue(args, ++i, arg)));
+                break;
+            default:
+                final BiConsumer<RecordSheetOptions, Boolean> setter = arg.startsWith("--") ?
+                        BOOLEAN_OPTIONS.get(arg.substring(enable ? 2 : 5)) : null;
+                if (setter == null) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+                setter.accept(options, enable);
+        }
+        return i;
+    }
+
+    @Override
+    protected void checkArguments() {
+        super.checkArguments();
+        if (combined && (zip || (report != null))) {
+            throw new IllegalArgumentException("--zip and --report cannot be used with --combined");
+        }
+        if (singlePrint && !combined) {
+            // Each unit already has its own file without --combined
+            throw new IllegalArgumentException("--single can only be used with --combined");
+        }
+        if (output == null) {
+            output = new File(combined ? "record-sheets.pdf" : (zip ? "record-sheets.zip" : "."));
+        } else if (!combined && !zip && output.exists() && !output.isDirectory()) {
+            throw new IllegalArgumentException(output + " is not a directory");
+        }
+    }
+
+    /**
+     * Parses a paper size given as an argument or request parameter
+     *
+     * @param value The name of the paper size
+     * @return      The paper size
+     * @throws IllegalArgumentException if the value is not a known paper size
+     */
+    static PaperSize parsePaperSize(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "letter":
+            case "us_letter":
+                return PaperSize.US_LETTER;
+            case "a4":
+            case "iso_a4":
+                return PaperSize.ISO_A4;
+            default:
+                throw new IllegalArgumentException("Unknown paper size: " + value);
+        }
+    }
+
+    @Override
+    protected int process() {
+        final long start = System.nanoTime();
+        final List<File> files = UnitFiles.collect(inputs);
+        if (files.stream().anyMatch(BatchExporter::isMUL)) {
+            // MUL files refer to canonical units by name
+            UnitUtil.waitForUnitCache();
+        }
+
+        int units = 0;
+        int pages = 0;
+        int written = 0;
+        try {
+            if (combined) {
+                final ExecutorService executor = Executors.newFixedThreadPool(threads);
+                try (StreamingPDFExporter exporter = new StreamingPDFExporter(options, singlePrint, threads)) {
+                    // Files are loaded a few at a time ahead of rendering and their units are passed
+                    // on in order, so rendering starts before all the files are loaded.
+                    final Deque<Future<List<Entity>>> loading = new ArrayDeque<>();
+                    int submitted = 0;
+                    for (int i = 0; i < files.size(); i++) {
+                        while ((submitted < files.size()) && (loading.size() < threads * 2)) {
+                            final File file = files.get(submitted++);
+                            loading.add(executor.submit(() -> loadUnits(file)));
+                        }
+                        for (Entity entity : awaitList(loading.remove(), files.get(i).getPath())) {
+                            units++;
+                            exporter.add(entity);
+                        }
+                    }
+                    pages = exporter.finish(output);
+                    written = (pages > 0) ? 1 : 0;
+                    for (Entity entity : exporter.getUnprintable()) {
+                        failures.add("Record sheets are not supported for " + entity.getShortNameRaw());
+                    }
+                    recordSavings(exporter.getWriter());
+                } finally {
+                    executor.shutdownNow();
+                }
+            } else {
+                final List<SplitPDFExporter.Result> results = new SplitPDFExporter(options, threads)
+                        .export(files, output, zip, null);
+                for (SplitPDFExporter.Result result : results) {
+                    units++;
+                    if (result.isSuccess()) {
+                        pages += result.getPages();
+                        written++;
+                    } else {
+                        failures.add(result.getSource().getPath() + " (" + result.getUnitName() + "): "
+                                + result.getError());
+                    }
+                }
+                if (report != null) {
+                    SplitPDFExporter.writeReport(results, report);
+                }
+            }
+        } catch (Exception ex) {
+            LogManager.getLogger().error("", ex);
+            failures.add(ex.getMessage());
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("Exported %d units (%d pages) to %d %s in %.1f s%n", units, pages, written,
+                zip ? "ZIP entries" : ((written == 1) ? "file" : "files"), seconds);
+        if (seconds > 0) {
+            out.printf("  %.2f units/s, %.2f pages/s using %d threads%n", units / seconds, pages / seconds, threads);
+        }
+        if (sharedResources.get() > 0) {
+            out.printf("  %d duplicate resources shared between pages, saving %.1f MB%n",
+                    sharedResources.get(), bytesSaved.get() / (1024.0 * 1024.0));
+        }
+        if (!failures.isEmpty()) {
+            out.printf("%d failure%s:%n", failures.size(), (failures.size() == 1) ? "" : "s");
+            failures.forEach(f -> out.println("  " + f));
+            return EXIT_FAILURES;
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * @param file A file given as input
+     * @return     Whether the file is a MUL file
+     */
+    public static boolean isMUL(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".mul");
+    }
+
+    /**
+     * Loads the units from a unit file or a MUL file. Units in a MUL file are looked up in the unit
+     * cache, which should be loaded first.
+     *
+     * @param file The unit or MUL file
+     * @return     The units in the file
+     * @throws Exception If the file cannot be loaded
+     */
+    public static List<Entity> loadUnits(File file) throws Exception {
+        if (isMUL(file)) {
+            return new ArrayList<>(new MULParser(file, null).getEntities());
+        } else {
+            return Collections.singletonList(new MechFileParser(file).getEntity());
+        }
+    }
+
+    /**
+     * Waits for a task to complete, recording a failure if it throws an exception.
+     *
+     * @return The result of the task, or null if it failed
+     */
+    private <T> T await(Future<T> future, String description) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            LogManager.getLogger().error(description, ex.getCause());
+            failures.add(description + ": " + ex.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Waits for a task that produces a list, recording a failure if it throws an exception.
+     *
+     * @return The result of the task, or an empty list if it failed
+     */
+    private <T> List<T> awaitList(Future<List<T>> future, String description) throws InterruptedException {
+        final List<T> result = await(future, description);
+        return (result == null) ? Collections.emptyList() : result;
+    }
+
+    private void recordSavings(MergedPDFWriter writer) {
+        sharedResources.addAndGet(writer.getSharedObjects());
+        bytesSaved.addAndGet(writer.getBytesSaved());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import org.apache.logging.log4j.LogManager;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.awt.print.PageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the documents for the blocks of a composite record sheet, such as the squads on a battle
+ * armor sheet or the two vehicles on a combined vehicle sheet, and moves them into the parent
+ * document.
+ *
+ * Each block is a separate {@link PrintRecordSheet} with its own document, so the blocks can be
+ * created at the same time. The first block is created on the calling thread and the others on a
+ * shared pool. The finished blocks are adopted into the parent document rather than copied.
+ */
+final class ChildSheetRenderer {
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "Record sheet block rendering");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private ChildSheetRenderer() {
+    }
+
+    /**
+     * Creates the documents for the blocks of a composite sheet.
+     *
+     * @param sheets     The blocks
+     * @param pageIndex  The page index to pass to {@link PrintRecordSheet#createDocument(int, PageFormat, boolean)}
+     * @param pageFormat The page format
+     * @return           For each block, whether its document was created
+     */
+    static boolean[] createDocuments(List<? extends PrintRecordSheet> sheets, int pageIndex, PageFormat pageFormat) {
+        final boolean[] created = new boolean[sheets.size()];
+        if (sheets.size() < 2) {
+            for (int i = 0; i < sheets.size(); i++) {
+                created[i] = sheets.get(i).createDocument(pageIndex, pageFormat, false);
+            }
+            return created;
+        }
+        final List<Future<Boolean>> futures = new ArrayList<>();
+        try {
+            for (PrintRecordSheet sheet : sheets.subList(1, sheets.size())) {
+                futures.add(executor.submit(() -> sheet.createDocument(pageIndex, pageFormat, false)));
+            }
+            created[0] = sheets.get(0).createDocument(pageIndex, pageFormat, false);
+            for (int i = 0; i < futures.size(); i++) {
+                created[i + 1] = futures.get(i).get();
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+        return created;
+    }
+
+    /**
+     * Moves the root element of a block's document into the parent document. The block's document is
+     * left empty. If the DOM implementation cannot adopt the nodes, they are copied instead.
+     *
+     * @param parent The document of the composite sheet
+     * @param sheet  A block whose document has been created
+     * @return       The block's root element, owned by the parent document but not yet inserted
+     */
+    static Element adopt(Document parent, PrintRecordSheet sheet) {
+        final Element root = sheet.getSVGDocument().getDocumentElement();
+        try {
+            final Node adopted = parent.adoptNode(root);
+            if (adopted instanceof Element) {
+                return (Element) adopted;
+            }
+        } catch (DOMException ex) {
+            LogManager.getLogger().debug("Could not adopt record sheet block; copying instead", ex);
+        }
+        return (Element) parent.importNode(root, true);
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import org.apache.logging.log4j.LogManager;
+
+import javax.imageio.*;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.plugins.jpeg.JPEGQTable;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/**
+ * Prepares image files for embedding in record sheets. Images that are larger than needed to fill
+ * the space they occupy at the target resolution of the export are scaled down before they are embedded,
+ * which reduces the size of the generated documents and the time required to process them. JPEG images
+ * that are scaled down are written at the quality of the original file. Prepared images are cached by
+ * file, modification time and target size.
+ */
+final class EmbeddedImageCache {
+    /** The default resolution in dots per inch for embedded images */
+    static final int DEFAULT_DPI = 300;
+    /** Source documents are 72 dpi */
+    private static final double DOCUMENT_DPI = 72.0;
+    private static final int MAX_ENTRIES = 32;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                Thread thread = new Thread(runnable, "Embedded image preparation");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static final Map<Key, Future<PreparedImage>> cache =
+            new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Future<PreparedImage>> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+
+    private EmbeddedImageCache() {
+    }
+
+    /**
+     * An image ready to embed as a data URI
+     */
+    static class PreparedImage {
+        final String mimeType;
+        final byte[] bytes;
+        final int width;
+        final int height;
+
+        PreparedImage(String mimeType, byte[] bytes, int width, int height) {
+            this.mimeType = mimeType;
+            this.bytes = bytes;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private static class Key {
+        final String path;
+        final long lastModified;
+        final int maxWidth;
+        final int maxHeight;
+
+        Key(String path, long lastModified, int maxWidth, int maxHeight) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            } else if ((null == o) || (getClass() != o.getClass())) {
+                return false;
+            }
+            Key other = (Key) o;
+            return path.equals(other.path) && (lastModified == other.lastModified)
+                    && (maxWidth == other.maxWidth) && (maxHeight == other.maxHeight);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, lastModified, maxWidth, maxHeight);
+        }
+    }
+
+    /**
+     * Reads an image file and scales it down if it has a higher resolution than needed to fill
+     * the bounding box at the target resolution. The image is prepared on a worker thread, and
+     * concurrent requests for the same image share the result.
+     *
+     * @param imageFile The image file
+     * @param bbox      The area the image will occupy in the document
+     * @param dpi       The target resolution
+     * @return          The prepared image
+     * @throws IOException If the file could not be read or is not a supported image format
+     */
+    static PreparedImage prepare(File imageFile, Rectangle2D bbox, int dpi) throws IOException {
+        final Key key = new Key(imageFile.getCanonicalPath(), imageFile.lastModified(),
+                (int) Math.ceil(bbox.getWidth() * dpi / DOCUMENT_DPI),
+                (int) Math.ceil(bbox.getHeight() * dpi / DOCUMENT_DPI));
+        Future<PreparedImage> future;
+        synchronized (cache) {
+            future = cache.get(key);
+            if (future == null) {
+                future = executor.submit(() -> load(imageFile, key.maxWidth, key.maxHeight));
+                cache.put(key, future);
+            }
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while preparing " + imageFile.getPath());
+        } catch (ExecutionException e) {
+            // Don't keep failures, in case the file is fixed
+            synchronized (cache) {
+                cache.remove(key, future);
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not prepare image " + imageFile.getPath(), e.getCause());
+        }
+    }
+
+    private static PreparedImage load(File imageFile, int maxWidth, int maxHeight) throws IOException {
+        final String mimeType;
+        try (InputStream is = new BufferedInputStream(new FileInputStream(imageFile))) {
+            mimeType = URLConnection.guessContentTypeFromStream(is);
+        }
+        if (mimeType == null) {
+            throw new IOException("Unrecognized image format: " + imageFile.getPath());
+        }
+        BufferedImage image = ImageIO.read(imageFile);
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + imageFile.getPath());
+        }
+        final double scale = Math.min((double) maxWidth / image.getWidth(), (double) maxHeight / image.getHeight());
+        if (scale >= 1.0) {
+            // Already small enough; embed the file contents unchanged.
+            return new PreparedImage(mimeType, Files.readAllBytes(imageFile.toPath()),
+                    image.getWidth(), image.getHeight());
+        }
+        final int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        final int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        final String format = mimeType.substring(mimeType.indexOf('/') + 1);
+        // JPEG does not support an alpha channel
+        final boolean opaque = format.equals("jpeg") || !image.getColorModel().hasAlpha();
+        BufferedImage scaled = downscale(image, width, height, opaque);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (format.equals("jpeg")) {
+            writeJpeg(scaled, readJpegQuality(imageFile), bytes);
+        } else if (!ImageIO.write(scaled, format, bytes)) {
+            throw new IOException("No image writer for format " + format);
+        }
+        return new PreparedImage(mimeType, bytes.toByteArray(), width, height);
+    }
+
+    /**
+     * Estimates the quality setting a JPEG file was written with by comparing its luminance quantization
+     * table to the standard table, which is scaled by quality in the same way by most encoders.
+     *
+     * @param imageFile The JPEG file
+     * @return          The quality between 0 and 1, or a negative value if it cannot be determined
+     */
+    static float readJpegQuality(File imageFile) {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(imageFile)) {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return -1;
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                final IIOMetadataNode root = (IIOMetadataNode) reader.getImageMetadata(0)
+                        .getAsTree("javax_imageio_jpeg_image_1.0");
+                final org.w3c.dom.NodeList tables = root.getElementsByTagName("dqtable");
+                for (int i = 0; i < tables.getLength(); i++) {
+                    final IIOMetadataNode node = (IIOMetadataNode) tables.item(i);
+                    if ("0".equals(node.getAttribute("qtableId"))
+                            && (node.getUserObject() instanceof JPEGQTable)) {
+                        return qualityOf(((JPEGQTable) node.getUserObject()).getTable());
+                    }
+                }
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException ex) {
+            LogManager.getLogger().debug("Could not read the JPEG quality of " + imageFile.getPath(), ex);
+        }
+        return -1;
+    }
+
+    private static float qualityOf(int[] table) {
+        final int[] standard = JPEGQTable.K1Luminance.getTable();
+        double scale = 0;
+        for (int i = 0; i < standard.length; i++) {
+            scale += table[i] * 100.0 / standard[i];
+        }
+        scale /= standard.length;
+        // The inverse of the IJG quality scaling
+        final double quality = (scale <= 100) ? (200 - scale) / 2 : 5000 / scale;
+        return (float) Math.max(1, Math.min(100, quality)) / 100f;
+    }
+
+    private static void writeJpeg(BufferedImage image, float quality, OutputStream out) throws IOException {
+        final Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer for format jpeg");
+        }
+        final ImageWriter writer = writers.next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            final ImageWriteParam param = writer.getDefaultWriteParam();
+            if (quality > 0) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Scales an image down using repeated bilinear halving followed by a final bicubic step, which
+     * avoids the aliasing produced by scaling down by a large factor in a single step.
+     */
+    static BufferedImage downscale(BufferedImage image, int width, int height, boolean opaque) {
+        final int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = (w / 2 >= width) ? w / 2 : width;
+            h = (h / 2 >= height) ? h / 2 : height;
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g2d = next.createGraphics();
+            try {
+                if (opaque) {
+                    g2d.setColor(Color.WHITE);
+                    g2d.fillRect(0, 0, w, h);
+                }
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, ((w == width) && (h == height)) ?
+                        RenderingHints.VALUE_INTERPOLATION_BICUBIC : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g2d.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g2d.dispose();
+            }
+            current = next;
+        } while ((w != width) || (h != height));
+        return current;
+    }
+}
@@ -214,6 +214,8 @@ public class InventoryWriter {
     }
 
     private void parseEquipment() {
+        // Identical entries are combined by increasing the quantity of the first one
+        Map<StandardInventoryEntry, StandardInventoryEntry> grouped = new HashMap<>();
         for (Mounted m : sheet.getEntity().getEquipment()) {
             if (m.isWeaponGroup()) {
                 continue;
@@ -245,7 +247,7 @@ public class InventoryWriter {
                 continue;
             }
             StandardInventoryEntry entry = new StandardInventoryEntry(m);
-            StandardInventoryEntry same = equipment.stream().filter(entry::equals).findFirst().orElse(null);
+            StandardInventoryEntry same = grouped.putIfAbsent(entry, entry);
             if (null == same) {
                 equipment.add(entry);
             } else {
@@ -301,6 +303,8 @@ public class InventoryWriter {
      */
     private List<WeaponBayText> computeWeaponBayTexts(List<Mounted> weapons) {
         List<WeaponBayText> weaponBayTexts = new ArrayList<>();
+        // Bays that have not been combined yet, by location and contents, in the order they were added
+        Map<Object, Deque<WeaponBayText>> uncombined = new HashMap<>();
         // Collection info on weapons to print
         for (Mounted bay : weapons) {
             WeaponBayText wbt = new WeaponBayText(bay.getLocation(), bay.isRearMounted());
@@ -308,17 +312,15 @@ public class InventoryWriter {
                 Mounted weap = sheet.getEntity().getEquipment(wId);
                 wbt.addBayWeapon(weap);
             }
-            // Combine or add
-            boolean combined = false;
-            for (WeaponBayText combine : weaponBayTexts) {
-                if (combine.canCombine(wbt)) {
-                    combine.combine(wbt);
-                    combined = true;
-                    break;
-                }
-            }
-            if (!combined) {
+            // Combine with the first matching bay on the opposing side, or add
+            Object opposingKey = wbt.opposingCombineKey();
+            Deque<WeaponBayText> candidates = (opposingKey == null) ? null : uncombined.get(opposingKey);
+            if ((candidates != null) && !candidates.isEmpty()) {
+                // A bay can only be combined once
+                candidates.removeFirst().combine(wbt);
+            } else {
                 weaponBayTexts.add(wbt);
+                uncombined.computeIfAbsent(wbt.combineKey(), k -> new ArrayDeque<>()).add(wbt);
             }
         }
         Collections.sort(weaponBayTexts);
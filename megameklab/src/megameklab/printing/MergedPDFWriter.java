@@ -0,0 +1,327 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFCloneUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Combines the single-page documents produced for each record sheet page into one PDF.
+ *
+ * Each page is transcoded independently, so each one carries its own copy of embedded fonts, images
+ * and other shared artwork. Before the document is saved, resources with identical content are
+ * replaced with a single shared instance so that each is written to the file only once. Objects are
+ * compared by a digest of their complete content, including any objects they refer to, so only exact
+ * duplicates are shared. In particular, font subsets are only shared between pages that use the same
+ * set of glyphs.
+ *
+ * The pages of each source document are copied into the merged document, which buffers its content in
+ * a temporary file, and the source is closed straight away. Only one source is open at a time however
+ * many pages are added.
+ */
+class MergedPDFWriter implements Closeable {
+    /** The resource categories that are checked for duplicates */
+    private static final COSName[] RESOURCE_TYPES = {
+            COSName.FONT, COSName.XOBJECT, COSName.EXT_G_STATE, COSName.PATTERN, COSName.SHADING,
+            COSName.COLORSPACE
+    };
+
+    private final PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly());
+    private final Map<Integer, List<String>> bookmarkNames = new TreeMap<>();
+
+    private final Map<COSBase, Digest> digests = new IdentityHashMap<>();
+    private int sharedObjects = 0;
+    private long bytesSaved = 0;
+    /**
+     * Appends the pages of a PDF document
+     *
+     * @param pdf The document to append
+     * @throws IOException If the document cannot be read
+     */
+    void addPages(InputStream pdf) throws IOException {
+        try (PDDocument source = PDDocument.load(pdf, MemoryUsageSetting.setupMainMemoryOnly())) {
+            // A new cloner for each source, so it does not keep the closed sources' objects
+            final PDFCloneUtility cloner = new PDFCloneUtility(document);
+            for (PDPage page : source.getPages()) {
+                // Copy the page without its parent, which would bring along the source's page tree
+                final COSDictionary dictionary = new COSDictionary(page.getCOSObject());
+                dictionary.removeItem(COSName.PARENT);
+                final PDPage copy = new PDPage((COSDictionary) cloner.cloneForNewDocument(dictionary));
+                // These can be inherited from the page tree
+                copy.setMediaBox(page.getMediaBox());
+                copy.setCropBox(page.getCropBox());
+                copy.setRotation(page.getRotation());
+                copy.setResources((page.getResources() == null) ? new PDResources()
+                        : new PDResources((COSDictionary) cloner.cloneForNewDocument(page.getResources())));
+                document.addPage(copy);
+            }
+        }
+    }
+
+    /**
+     * Adds bookmarks that point to a page
+     *
+     * @param pageIndex The index of the page in the merged document
+     * @param names     The bookmark titles
+     */
+    void addBookmarks(int pageIndex, List<String> names) {
+        bookmarkNames.computeIfAbsent(pageIndex, k -> new ArrayList<>()).addAll(names);
+    }
+
+    /**
+     * @return The number of pages added so far
+     */
+    int getPageCount() {
+        return document.getNumberOfPages();
+    }
+
+    /**
+     * @return The number of resources that were replaced by a shared copy when the document was saved
+     */
+    int getSharedObjects() {
+        return sharedObjects;
+    }
+
+    /**
+     * @return The approximate number of bytes of stream data that were not written because they were
+     *         shared. This does not include the dictionaries that accompany the streams.
+     */
+    long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    /**
+     * Shares duplicate resources, adds the outline and writes the document.
+     *
+     * @param file The output file
+     * @throws IOException If there is an error processing or writing the document
+     */
+    void save(File file) throws IOException {
+        shareDuplicateResources();
+        addOutline();
+        document.save(file);
+    }
+
+    /**
+     * Shares duplicate resources, adds the outline and writes the document to a stream.
+     *
+     * @param output The stream to write to
+     * @throws IOException If there is an error processing or writing the document
+     */
+    void save(OutputStream output) throws IOException {
+        shareDuplicateResources();
+        addOutline();
+        document.save(output);
+    }
+
+    @Override
+    public void close() throws IOException {
+        document.close();
+    }
+
+    private void addOutline() {
+        PDDocumentOutline outline = new PDDocumentOutline();
+        document.getDocumentCatalog().setDocumentOutline(outline);
+        for (Map.Entry<Integer, List<String>> entry : bookmarkNames.entrySet()) {
+            if (entry.getKey() >= document.getNumberOfPages()) {
+                continue;
+            }
+            for (String name : entry.getValue()) {
+                PDOutlineItem bookmark = new PDOutlineItem();
+                bookmark.setDestination(document.getPage(entry.getKey()));
+                bookmark.setTitle(name);
+                outline.addLast(bookmark);
+            }
+        }
+        outline.openNode();
+    }
+
+    private void shareDuplicateResources() throws IOException {
+        final Map<Digest, COSBase> canonical = new HashMap<>();
+        final Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PDPage page : document.getPages()) {
+            shareDuplicateResources(page.getCOSObject().getDictionaryObject(COSName.RESOURCES),
+                    canonical, visited);
+        }
+        digests.clear();
+    }
+
+    /**
+     * Replaces each resource in the dictionary with the first one found with the same content, then
+     * does the same for the resources of any form XObjects, patterns or Type 3 fonts.
+     */
+    private void shareDuplicateResources(COSBase base, Map<Digest, COSBase> canonical,
+                                         Set<COSBase> visited) throws IOException {
+        if (!(base instanceof COSDictionary) || !visited.add(base)) {
+            return;
+        }
+        final COSDictionary resources = (COSDictionary) base;
+        for (COSName type : RESOURCE_TYPES) {
+            if (!(resources.getDictionaryObject(type) instanceof COSDictionary)) {
+                continue;
+            }
+            final COSDictionary category = (COSDictionary) resources.getDictionaryObject(type);
+            for (COSName name : new ArrayList<>(category.keySet())) {
+                final COSBase item = category.getItem(name);
+                final COSBase resolved = resolve(item);
+                if (!(resolved instanceof COSDictionary)) {
+                    continue;
+                }
+                final Digest digest = digest(resolved, Collections.newSetFromMap(new IdentityHashMap<>()));
+                if (digest.partial) {
+                    // Contains a reference cycle, so the digest does not cover all of its content
+                    continue;
+                }
+                final COSBase existing = canonical.putIfAbsent(digest, item);
+                if (existing == null) {
+                    shareDuplicateResources(((COSDictionary) resolved).getDictionaryObject(COSName.RESOURCES),
+                            canonical, visited);
+                } else if (resolve(existing) != resolved) {
+                    category.setItem(name, existing);
+                    sharedObjects++;
+                    bytesSaved += digest.streamBytes;
+                }
+            }
+        }
+    }
+
+    private static COSBase resolve(COSBase base) {
+        return (base instanceof COSObject) ? ((COSObject) base).getObject() : base;
+    }
+
+    /**
+     * Computes a digest of an object and everything it refers to.
+     *
+     * @param base     The object
+     * @param visiting The objects currently being processed, to detect reference cycles
+     */
+    private Digest digest(COSBase base, Set<COSBase> visiting) throws IOException {
+        base = resolve(base);
+        if (base == null) {
+            return Digest.NULL;
+        }
+        Digest digest = digests.get(base);
+        if (digest != null) {
+            return digest;
+        }
+        if (!visiting.add(base)) {
+            return Digest.CYCLE;
+        }
+        final MessageDigest md = newMessageDigest();
+        long streamBytes = 0;
+        boolean partial = false;
+        if (base instanceof COSDictionary) {
+            md.update((byte) ((base instanceof COSStream) ? 's' : 'd'));
+            final COSDictionary dict = (COSDictionary) base;
+            final List<COSName> keys = new ArrayList<>(dict.keySet());
+            keys.sort(Comparator.comparing(COSName::getName));
+            for (COSName key : keys) {
+                if (COSName.PARENT.equals(key)) {
+                    continue;
+                }
+                md.update(key.getName().getBytes(StandardCharsets.UTF_8));
+                final Digest value = digest(dict.getItem(key), visiting);
+                md.update(value.hash);
+                streamBytes += value.streamBytes;
+                partial |= value.partial;
+            }
+            if (base instanceof COSStream) {
+                final byte[] buffer = new byte[8192];
+                try (InputStream is = ((COSStream) base).createRawInputStream()) {
+                    int read;
+                    while ((read = is.read(buffer)) > 0) {
+                        md.update(buffer, 0, read);
+                        streamBytes += read;
+                    }
+                }
+            }
+        } else if (base instanceof COSArray) {
+            md.update((byte) 'a');
+            for (COSBase item : (COSArray) base) {
+                final Digest value = digest(item, visiting);
+                md.update(value.hash);
+                streamBytes += value.streamBytes;
+                partial |= value.partial;
+            }
+        } else if (base instanceof COSString) {
+            md.update((byte) 't');
+            md.update(((COSString) base).getBytes());
+        } else if (base instanceof COSName) {
+            md.update((byte) 'n');
+            md.update(((COSName) base).getName().getBytes(StandardCharsets.UTF_8));
+        } else {
+            // Numbers, booleans and null
+            md.update((byte) 'v');
+            md.update(base.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        visiting.remove(base);
+        digest = new Digest(md.digest(), streamBytes, partial);
+        if (!partial) {
+            digests.put(base, digest);
+        }
+        return digest;
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java implementation is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static class Digest {
+        static final Digest NULL = new Digest(new byte[] { 0 }, 0, false);
+        static final Digest CYCLE = new Digest(new byte[] { 1 }, 0, true);
+
+        final byte[] hash;
+        /** The total length of the stream data in the object and the objects it refers to */
+        final long streamBytes;
+        /** Whether a reference cycle was cut short, so that the hash does not cover the full content */
+        final boolean partial;
+
+        Digest(byte[] hash, long streamBytes, boolean partial) {
+            this.hash = hash;
+            this.streamBytes = streamBytes;
+            this.partial = partial;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof Digest) && Arrays.equals(hash, ((Digest) o).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(hash);
+        }
+    }
+}
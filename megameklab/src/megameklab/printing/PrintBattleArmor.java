@@ -18,6 +18,7 @@ import megamek.common.Entity;
 import megamek.common.EquipmentType;
 import megamek.common.MiscType;
 import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 import org.apache.batik.util.SVGConstants;
 import org.w3c.dom.Element;
 import org.w3c.dom.svg.SVGRectElement;
@@ -92,8 +93,8 @@ public class PrintBattleArmor extends PrintEntity {
         hideElement(CHECK_LEG, !UnitUtil.canLegAttack(battleArmor));
         hideElement(CHECK_AP, battleArmor.countWorkingMisc(MiscType.F_AP_MOUNT) == 0);
 
-        setTextField(BV, battleArmor.calculateBattleValue(true, !showPilotInfo(), false)
-            + "/" + battleArmor.calculateBattleValue(true, !showPilotInfo(), true));
+        setTextField(BV, UnitValuationCache.getBattleValue(battleArmor, true, !showPilotInfo(), false)
+            + "/" + UnitValuationCache.getBattleValue(battleArmor, true, !showPilotInfo(), true));
     }
 
     @Override
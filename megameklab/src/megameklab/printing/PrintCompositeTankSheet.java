@@ -94,37 +94,26 @@ public class PrintCompositeTankSheet extends PrintRecordSheet {
         double ratio = includeReferenceCharts() ? TABLE_RATIO : 1.0;
         RecordSheetOptions subOptions = new RecordSheetOptions(options);
         subOptions.setReferenceCharts(false);
-        Element g;
-
-        // First Sheet
-        PrintRecordSheet sheet = new PrintTank(tank1, getFirstPage(), subOptions);
-        if (sheet.createDocument(startPage, pageFormat, false)) {
-            g = getSVGDocument().createElementNS(svgNS, SVGConstants.SVG_G_TAG);
-            g.setAttributeNS(null, SVGConstants.SVG_TRANSFORM_ATTRIBUTE,
-                    String.format("%s(%f 0 0 %f %f %f)", SVGConstants.SVG_MATRIX_VALUE, ratio,
-                            ratio, pageFormat.getImageableX(), pageFormat.getImageableY()));
-            sheet.hideElement(FOOTER);
-            g.appendChild(getSVGDocument().importNode(sheet.getSVGDocument().getDocumentElement(), true));
-            getSVGDocument().getDocumentElement().appendChild(g);
-        }
 
-        // Second Sheet
+        // The first vehicle occupies the top half and the second vehicle or the tables the bottom half
+        List<PrintRecordSheet> sheets = new ArrayList<>();
+        sheets.add(new PrintTank(tank1, getFirstPage(), subOptions));
         if (tank2 != null) {
-            sheet = new PrintTank(tank2, getFirstPage(), subOptions);
+            sheets.add(new PrintTank(tank2, getFirstPage(), subOptions));
         } else if (tank1 instanceof VTOL) {
-            sheet = new VTOLTables(options);
+            sheets.add(new VTOLTables(options));
         } else {
-            sheet = new TankTables(options);
+            sheets.add(new TankTables(options));
         }
+        boolean[] created = ChildSheetRenderer.createDocuments(sheets, startPage, pageFormat);
 
-        if (sheet.createDocument(startPage, pageFormat, false)) {
-            g = getSVGDocument().createElementNS(svgNS, SVGConstants.SVG_G_TAG);
-            g.setAttributeNS(null, SVGConstants.SVG_TRANSFORM_ATTRIBUTE,
-                    String.format("%s(%f 0 0 %f %f %f)", SVGConstants.SVG_MATRIX_VALUE, ratio,
-                            ratio, pageFormat.getImageableX(),
-                            pageFormat.getImageableY() + pageFormat.getImageableHeight() * 0.5 * ratio));
-            g.appendChild(getSVGDocument().importNode(sheet.getSVGDocument().getDocumentElement(), true));
-            getSVGDocument().getDocumentElement().appendChild(g);
+        if (created[0]) {
+            sheets.get(0).hideElement(FOOTER);
+            addBlock(sheets.get(0), ratio, pageFormat.getImageableX(), pageFormat.getImageableY());
+        }
+        if (created[1]) {
+            addBlock(sheets.get(1), ratio, pageFormat.getImageableX(),
+                    pageFormat.getImageableY() + pageFormat.getImageableHeight() * 0.5 * ratio);
         }
 
         // Reference Charts
@@ -133,6 +122,15 @@ public class PrintCompositeTankSheet extends PrintRecordSheet {
         }
     }
 
+    private void addBlock(PrintRecordSheet sheet, double ratio, double x, double y) {
+        Element g = getSVGDocument().createElementNS(svgNS, SVGConstants.SVG_G_TAG);
+        g.setAttributeNS(null, SVGConstants.SVG_TRANSFORM_ATTRIBUTE,
+                String.format("%s(%f 0 0 %f %f %f)", SVGConstants.SVG_MATRIX_VALUE, ratio,
+                        ratio, x, y));
+        g.appendChild(ChildSheetRenderer.adopt(getSVGDocument(), sheet));
+        getSVGDocument().getDocumentElement().appendChild(g);
+    }
+
     @Override
     protected String getSVGFileName(int pageNumber) {
         // Not used by composite sheet
@@ -20,6 +20,8 @@ import megamek.common.options.IOptionGroup;
 import megamek.common.options.PilotOptions;
 import megamek.common.options.Quirks;
 import megameklab.util.CConfig;
+import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 import org.apache.batik.anim.dom.SVGGraphicsElement;
 import org.apache.batik.anim.dom.SVGLocatableSupport;
 import org.apache.batik.util.SVGConstants;
@@ -206,12 +208,12 @@ public abstract class PrintEntity extends PrintRecordSheet {
         }
         setTextField(TECH_BASE, formatTechBase());
         setTextField(RULES_LEVEL, formatRulesLevel());
-        setTextField(ERA, formatEra(getEntity().getYear()));
+        setTextField(ERA, UnitUtil.getEraName(getEntity().getYear()));
         setTextField(COST, formatCost());
         // If we're using a MUL to print generic sheets we also want to ignore any BV adjustments
         // for C3 networks or pilot skills.
-        setTextField(BV, NumberFormat.getInstance().format(getEntity()
-                .calculateBattleValue(!showPilotInfo(), !showPilotInfo())));
+        setTextField(BV, NumberFormat.getInstance().format(UnitValuationCache.getBattleValue(getEntity(),
+                !showPilotInfo(), !showPilotInfo())));
         UnitRole role = UnitRoleHandler.getRoleFor(getEntity());
         if (!options.showRole() || (role == UnitRole.UNDETERMINED)) {
             hideElement(LBL_ROLE, true);
@@ -620,33 +622,9 @@ public abstract class PrintEntity extends PrintRecordSheet {
                 + level.toString().substring(1).toLowerCase();
     }
     
-    private static String formatEra(int year) {
-        if (year < 2571) {
-            return "Age of War";
-        } else if (year < 2781) {
-            return "Star League";
-        } else if (year < 2901) {
-            return "Early Succession War";
-        } else if (year < 3050) {
-            return "Late Succession War";
-        } else if (year < 3062) {
-            return "Clan Invasion";
-        } else if (year < 3068) {
-            return "Civil War";
-        } else if (year < 3086) {
-            return "Jihad";
-        } else if (year < 3101) {
-            return "Early Republic";
-        } else if (year < 3131) {
-            return "Late Republic";
-        } else {
-            return "Dark Ages";
-        }
-    }
-    
     protected String formatCost() {
         NumberFormat nf = NumberFormat.getNumberInstance(Locale.getDefault());
-        return nf.format(getEntity().getCost(true)) + " C-bills";
+        return nf.format(UnitValuationCache.getDryCost(getEntity())) + " C-bills";
     }
     
 }
@@ -44,15 +44,13 @@ import org.w3c.dom.svg.SVGRectElement;
 import org.w3c.dom.xpath.XPathEvaluator;
 import org.w3c.dom.xpath.XPathResult;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.RenderedImage;
 import java.awt.print.PageFormat;
 import java.awt.print.Printable;
 import java.io.*;
-import java.net.URLConnection;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
@@ -363,8 +361,34 @@ public abstract class PrintRecordSheet implements Printable, IdConstants {
         }
         return new ByteArrayInputStream(output.toByteArray());
     }
-    
+
+    /**
+     * Creates the document for a page and builds the GVT trees used for rendering it as a raster image.
+     * Batik GVT trees are not thread-safe, so each tree after the first is built from its own copy of the
+     * document and can be painted on a different thread.
+     *
+     * @param pageNumber The page number within this record sheet, where the first page is numbered zero.
+     * @param pageFormat The page format
+     * @param copies     The number of trees to build
+     * @return           The root nodes of the page's GVT trees, or {@code null} if the page could not be created
+     */
+    public @Nullable List<GraphicsNode> exportGraphicsNodes(int pageNumber, PageFormat pageFormat, int copies) {
+        if (!createDocument(pageNumber + firstPage, pageFormat, true)) {
+            return null;
+        }
+        final List<GraphicsNode> nodes = new ArrayList<>();
+        nodes.add(build());
+        for (int i = 1; i < copies; i++) {
+            nodes.add(build((Document) getSVGDocument().cloneNode(true)));
+        }
+        return nodes;
+    }
+
     protected GraphicsNode build() {
+        return build(getSVGDocument());
+    }
+
+    private GraphicsNode build(Document document) {
         GVTBuilder builder = new GVTBuilder();
         BridgeContext ctx = new BridgeContext(new UserAgentAdapter() {
             @Override
@@ -381,7 +405,7 @@ public abstract class PrintRecordSheet implements Printable, IdConstants {
             }
         });
         ctx.setDynamic(true);
-        return builder.build(ctx, getSVGDocument());
+        return builder.build(ctx, document);
     }
 
     /**
@@ -624,43 +648,92 @@ public abstract class PrintRecordSheet implements Printable, IdConstants {
      */
     protected int addMultilineTextElement(Element canvas, double x, double y, double width, double lineHeight,
             String text, float fontSize, String anchor, String weight, String fill, char delimiter) {
-        int lines = 0;
-        // The index of the character after the most recent delimiter found. Everything in text
-        // up to pos will fit in the available space.
-        int pos = 0;
-        while (!text.isBlank()) {
-            // If the remaining text fits, add a line and exit.
-            if (getTextLength(text, fontSize) <= width) {
-                addTextElement(canvas, x, y, text, fontSize, anchor, weight, fill);
-                lines++;
-                return lines;
+        List<String> lines = wrapText(text, width, fontSize, delimiter);
+        for (String line : lines) {
+            addTextElement(canvas, x, y, line, fontSize, anchor, weight, fill);
+            y += lineHeight;
+        }
+        return lines.size();
+    }
+
+    /**
+     * Splits text into lines that fit the available width, breaking after the delimiter. Each
+     * delimited segment is measured only once and line widths are accumulated from the segment
+     * widths, so the cost is linear in the length of the text. If a single segment is too wide to fit,
+     * it is placed on a line by itself.
+     *
+     * @param text      The text to split
+     * @param width     The allowable width of each line
+     * @param fontSize  The font-size used to measure the text
+     * @param delimiter The character to use as an acceptable line ending
+     * @return          The lines of text, in order
+     */
+    List<String> wrapText(String text, double width, float fontSize, char delimiter) {
+        // Break the text into segments that each end with the delimiter, except the last segment,
+        // which holds whatever follows the final delimiter and may be empty.
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int index = text.indexOf(delimiter); index >= 0; index = text.indexOf(delimiter, start)) {
+            segments.add(text.substring(start, index + 1));
+            start = index + 1;
+        }
+        segments.add(text.substring(start));
+
+        final int count = segments.size();
+        final double delimiterWidth = getTextLength(String.valueOf(delimiter), fontSize);
+        // The width of each segment without its trailing delimiter
+        final double[] bodyWidth = new double[count];
+        // The width of all text from the start of the segment to the end
+        final double[] remainingWidth = new double[count + 1];
+        // Whether all text from the start of the segment to the end is blank
+        final boolean[] remainingBlank = new boolean[count + 1];
+        remainingBlank[count] = true;
+        for (int i = count - 1; i >= 0; i--) {
+            String segment = segments.get(i);
+            if (i < count - 1) {
+                bodyWidth[i] = getTextLength(segment.substring(0, segment.length() - 1), fontSize);
+                remainingWidth[i] = remainingWidth[i + 1] + bodyWidth[i] + delimiterWidth;
+            } else {
+                bodyWidth[i] = getTextLength(segment, fontSize);
+                remainingWidth[i] = bodyWidth[i];
             }
-            // Check for another delimiter after the last one; we might be able to fit more text on the line.
-            int index = text.substring(pos).indexOf(delimiter);
-            // If the delimiter doesn't exist in the text, add it as is.
-            if ((index < 0) && (pos == 0)) {
-                addTextElement(canvas, x, y, text, fontSize, anchor, weight, fill);
-                lines++;
-                return lines;
+            remainingBlank[i] = remainingBlank[i + 1] && segment.isBlank();
+        }
+
+        List<String> lines = new ArrayList<>();
+        // The first segment of the current line
+        int first = 0;
+        // The next segment to try adding to the current line
+        int next = 0;
+        // The width of the segments from first up to next, including delimiters
+        double lineWidth = 0;
+        while (!remainingBlank[first]) {
+            // If the remaining text fits, or there is only one segment left for the line, it goes on the last line.
+            if ((remainingWidth[first] <= width) || ((next == count - 1) && (next == first))) {
+                lines.add(joinSegments(segments, first, count));
+                break;
             }
-            // If there are no more delimiters in the text, or adding the next section after the previous
-            // delimiter that was found, add the text up to pos.
-            if ((index < 0)
-                    || ((getTextLength(text.substring(0, pos + index), fontSize) > width)
-                    && (pos > 0))) {
-                addTextElement(canvas, x, y, text.substring(0, pos), fontSize, anchor, weight, fill);
-                lines++;
-                y += lineHeight;
-                text = text.substring(pos);
-                pos = 0;
+            // If there are no more delimiters, or the next segment doesn't fit, end the line. We always accept
+            // at least one segment, even if it doesn't fit.
+            if ((next == count - 1) || ((next > first) && (lineWidth + bodyWidth[next] > width))) {
+                lines.add(joinSegments(segments, first, next));
+                first = next;
+                lineWidth = 0;
             } else {
-                // Otherwise we know that the text up to index will fit so we update pos to the first character
-                // after the delimiter and keep checking.
-                pos += index + 1;
+                lineWidth += bodyWidth[next] + delimiterWidth;
+                next++;
             }
         }
         return lines;
     }
+
+    private static String joinSegments(List<String> segments, int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            sb.append(segments.get(i));
+        }
+        return sb.toString();
+    }
     
     // Constants used for approximating circles with Bezier curves.
     
@@ -810,7 +883,8 @@ public abstract class PrintRecordSheet implements Printable, IdConstants {
     }
     
     /**
-     * Inserts an image into the SVG diagram scaled to fit into the provided bounds. 
+     * Inserts an image into the SVG diagram scaled to fit into the provided bounds. Images with a higher
+     * resolution than needed at the image resolution in the options are scaled down before embedding.
      *
      * @param imageFile  The file containing the image to embed.
      * @param canvas     The parent element for the image element.
@@ -822,17 +896,12 @@ public abstract class PrintRecordSheet implements Printable, IdConstants {
             return;
         }
 
-        try (InputStream fis = new FileInputStream(imageFile);
-             InputStream bis = new BufferedInputStream(fis)) {
-            String mimeType = URLConnection.guessContentTypeFromStream(bis);
-            String format = mimeType.substring(mimeType.indexOf('/') + 1);
+        try {
+            EmbeddedImageCache.PreparedImage image = EmbeddedImageCache.prepare(imageFile, bbox,
+                    options.getImageDpi());
 
-            RenderedImage fluffImage = ImageIO.read(imageFile);
-            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-            ImageIO.write(fluffImage, format, bytes);
-            
-            double width = fluffImage.getWidth();
-            double height = fluffImage.getHeight();
+            double width = image.width;
+            double height = image.height;
             double scale = Math.min(bbox.getWidth() / width, bbox.getHeight() / height);
             width *= scale;
             height *= scale;
@@ -848,7 +917,7 @@ public abstract class PrintRecordSheet implements Printable, IdConstants {
             img.setAttributeNS(null, SVGConstants.SVG_WIDTH_ATTRIBUTE, Double.toString(width));
             img.setAttributeNS(null, SVGConstants.SVG_HEIGHT_ATTRIBUTE, Double.toString(height));
             img.setAttributeNS(SVGConstants.XLINK_NAMESPACE_URI, SVGConstants.XLINK_HREF_QNAME,
-                    "data:" + mimeType + ";base64," + Base64.getEncoder().encodeToString(bytes.toByteArray()));
+                    "data:" + image.mimeType + ";base64," + Base64.getEncoder().encodeToString(image.bytes));
             canvas.appendChild(img);
         } catch (FileNotFoundException e) {
             LogManager.getLogger().error("Fluff image file not found: " + imageFile.getPath());
@@ -68,16 +68,20 @@ public class PrintSmallUnitSheet extends PrintRecordSheet {
         if (element != null) {
             element.setTextContent(String.format(element.getTextContent(), LocalDate.now().getYear()));
         }
-        int count = 0;
-        for (Entity entity : entities) {
-            Element g = getSVGDocument().getElementById("unit_" + count);
+        List<PrintEntity> blocks = new ArrayList<>();
+        List<Element> groups = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            Element g = getSVGDocument().getElementById("unit_" + i);
             if (g != null) {
-                PrintEntity sheet = getBlockFor(entity, count);
-                if (sheet.createDocument(startPage, pageFormat, false)) {
-                    g.appendChild(getSVGDocument().importNode(sheet.getSVGDocument().getDocumentElement(), true));
-                }
+                blocks.add(getBlockFor(entities.get(i), i));
+                groups.add(g);
+            }
+        }
+        boolean[] created = ChildSheetRenderer.createDocuments(blocks, startPage, pageFormat);
+        for (int i = 0; i < blocks.size(); i++) {
+            if (created[i]) {
+                groups.get(i).appendChild(ChildSheetRenderer.adopt(getSVGDocument(), blocks.get(i)));
             }
-            count++;
         }
         drawFluffImage();
         if (includeReferenceCharts()) {
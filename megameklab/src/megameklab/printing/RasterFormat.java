@@ -0,0 +1,57 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import java.io.File;
+
+/**
+ * Image formats supported for exporting record sheets as raster images
+ */
+public enum RasterFormat {
+    /** One PNG file per page */
+    PNG ("png", "PNG images", false),
+    /** A single multi-page TIFF file */
+    TIFF ("tif", "TIFF images", true);
+
+    /** The file extension, which is also the ImageIO format name */
+    public final String extension;
+    public final String description;
+    /** Whether all pages are written to a single file */
+    public final boolean multiPage;
+
+    RasterFormat(String extension, String description, boolean multiPage) {
+        this.extension = extension;
+        this.description = description;
+        this.multiPage = multiPage;
+    }
+
+    /**
+     * @param fileName  The base output file name
+     * @param pageIndex The index of the page within the output
+     * @param pageCount The number of pages in the output
+     * @return          The file for a single page of output. If there is more than one page the page
+     *                  number is appended to the base file name.
+     */
+    public File pageFile(String fileName, int pageIndex, int pageCount) {
+        if (pageCount == 1) {
+            return new File(fileName);
+        }
+        String baseName = fileName;
+        if (baseName.toLowerCase().endsWith("." + extension)) {
+            baseName = baseName.substring(0, baseName.length() - extension.length() - 1);
+        }
+        int digits = String.valueOf(pageCount).length();
+        return new File(String.format("%s-%0" + digits + "d.%s", baseName, pageIndex + 1, extension));
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import org.apache.batik.gvt.GraphicsNode;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.awt.print.PageFormat;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.*;
+
+/**
+ * A {@link RenderedImage} view of a single record sheet page that renders the GVT tree on demand in
+ * horizontal strips. Image writers pull the image data from the top down, so only the strips
+ * currently being written and a limited number of strips rendering ahead on the executor are held in
+ * memory at any time. This keeps memory use bounded regardless of the output resolution.
+ *
+ * The Batik GVT tree is not thread-safe, so the page is given one tree for each strip that may be painted
+ * at the same time, each built from its own copy of the document. A strip is painted with whichever tree
+ * is free.
+ */
+class RasterPageImage implements RenderedImage {
+    /** The height of each rendered strip in pixels */
+    static final int STRIP_HEIGHT = 256;
+
+    /** The GVT trees that are not being painted */
+    private final BlockingQueue<GraphicsNode> idleNodes;
+    private final double scale;
+    private final int width;
+    private final int height;
+    private final ExecutorService executor;
+    private final int lookAhead;
+    private final ColorModel colorModel;
+    private final SampleModel sampleModel;
+    private final TreeMap<Integer, Future<Raster>> strips = new TreeMap<>();
+
+    /**
+     * @param nodes      The roots of independent GVT trees for the page, one for each strip that may be
+     *                   painted at the same time
+     * @param pageFormat The page format used to create the page
+     * @param dpi        The output resolution in dots per inch
+     * @param executor   The executor used to render strips
+     * @param lookAhead  The maximum number of strips to render or hold at one time
+     */
+    RasterPageImage(List<GraphicsNode> nodes, PageFormat pageFormat, int dpi,
+                    ExecutorService executor, int lookAhead) {
+        idleNodes = new LinkedBlockingQueue<>(nodes);
+        // Source documents are 72 dpi
+        scale = dpi / 72.0;
+        width = (int) Math.ceil(pageFormat.getWidth() * scale);
+        height = (int) Math.ceil(pageFormat.getHeight() * scale);
+        this.executor = executor;
+        this.lookAhead = Math.max(1, lookAhead);
+        colorModel = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).getColorModel();
+        sampleModel = colorModel.createCompatibleSampleModel(width, STRIP_HEIGHT);
+    }
+
+    private Raster renderStrip(int stripIndex) throws InterruptedException {
+        final int y = stripIndex * STRIP_HEIGHT;
+        BufferedImage image = new BufferedImage(width, STRIP_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setColor(Color.WHITE);
+            g2d.fillRect(0, 0, width, STRIP_HEIGHT);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g2d.setClip(0, 0, width, STRIP_HEIGHT);
+            g2d.translate(0, -y);
+            g2d.scale(scale, scale);
+            // Each tree is only used by one thread at a time
+            final GraphicsNode node = idleNodes.take();
+            try {
+                node.paint(g2d);
+            } finally {
+                idleNodes.add(node);
+            }
+        } finally {
+            g2d.dispose();
+        }
+        return image.getRaster().createTranslatedChild(0, y);
+    }
+
+    /**
+     * Returns the strip with the given index, scheduling rendering of the following strips and
+     * discarding any strips above it, which will not be requested again.
+     */
+    private Raster getStrip(int stripIndex) {
+        Future<Raster> future;
+        synchronized (strips) {
+            strips.headMap(stripIndex).clear();
+            for (int i = stripIndex; (i < stripIndex + lookAhead) && (i < getNumYTiles()); i++) {
+                final int index = i;
+                strips.computeIfAbsent(index, k -> executor.submit(() -> renderStrip(index)));
+            }
+            future = strips.get(stripIndex);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering page", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not render page", e.getCause());
+        }
+    }
+
+    /**
+     * Releases any strips that are still held or rendering.
+     */
+    void dispose() {
+        synchronized (strips) {
+            for (Future<Raster> future : strips.values()) {
+                future.cancel(true);
+            }
+            strips.clear();
+        }
+    }
+
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return Image.UndefinedProperty;
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    @Override
+    public ColorModel getColorModel() {
+        return colorModel;
+    }
+
+    @Override
+    public SampleModel getSampleModel() {
+        return sampleModel;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getMinX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public int getNumXTiles() {
+        return 1;
+    }
+
+    @Override
+    public int getNumYTiles() {
+        return (height + STRIP_HEIGHT - 1) / STRIP_HEIGHT;
+    }
+
+    @Override
+    public int getMinTileX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinTileY() {
+        return 0;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return width;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return STRIP_HEIGHT;
+    }
+
+    @Override
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    @Override
+    public int getTileGridYOffset() {
+        return 0;
+    }
+
+    @Override
+    public Raster getTile(int tileX, int tileY) {
+        return getStrip(tileY);
+    }
+
+    @Override
+    public Raster getData() {
+        return getData(new Rectangle(0, 0, width, height));
+    }
+
+    @Override
+    public Raster getData(Rectangle rect) {
+        WritableRaster raster = Raster.createWritableRaster(
+                sampleModel.createCompatibleSampleModel(rect.width, rect.height), new Point(rect.x, rect.y));
+        return copyData(raster);
+    }
+
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            raster = colorModel.createCompatibleWritableRaster(width, height);
+        }
+        final int first = Math.max(0, raster.getMinY() / STRIP_HEIGHT);
+        final int last = Math.min(getNumYTiles() - 1, (raster.getMinY() + raster.getHeight() - 1) / STRIP_HEIGHT);
+        for (int strip = first; strip <= last; strip++) {
+            // setRect clips the strip to the bounds of the destination
+            raster.setRect(getStrip(strip));
+        }
+        return raster;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import megamek.common.*;
+import megameklab.util.UnitUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Creates the record sheets for a sequence of units one unit at a time. Units that share a page,
+ * such as pairs of vehicles and groups of battle armor, infantry or protomechs, are held until the
+ * page is full, and any partly filled pages are created when {@link #finish()} is called. This allows
+ * sheets to be rendered while later units are still being processed.
+ */
+public class RecordSheetAssembler {
+
+    private final boolean singlePrint;
+    private final RecordSheetOptions options;
+    private final List<Entity> unprintable = new ArrayList<>();
+
+    private List<Infantry> infList = new ArrayList<>();
+    private List<BattleArmor> baList = new ArrayList<>();
+    private List<Protomech> protoList = new ArrayList<>();
+    private Tank tank1 = null;
+    private int pageCount = 0;
+
+    /**
+     * @param singlePrint Whether to limit each record sheet to a single unit
+     * @param options     The options for the record sheets
+     */
+    public RecordSheetAssembler(boolean singlePrint, RecordSheetOptions options) {
+        this.singlePrint = singlePrint;
+        this.options = options;
+    }
+
+    /**
+     * Adds the next unit.
+     *
+     * @param unit The unit
+     * @return     Any record sheets that are complete after adding the unit, in page order
+     */
+    public List<PrintRecordSheet> add(Entity unit) {
+        if (unit instanceof Mech) {
+            UnitUtil.removeOneShotAmmo(unit);
+            UnitUtil.expandUnitMounts((Mech) unit);
+            return Collections.singletonList(new PrintMech((Mech) unit, pageCount++, options));
+        } else if ((unit instanceof Tank) && unit.getMovementMode().isMarine()) {
+            return Collections.singletonList(new PrintTank((Tank) unit, pageCount++, options));
+        } else if (unit instanceof Tank) {
+            if (singlePrint || options.showReferenceCharts()) {
+                return Collections.singletonList(new PrintCompositeTankSheet((Tank) unit, null, pageCount++, options));
+            } else if (null != tank1) {
+                PrintRecordSheet prs = new PrintCompositeTankSheet(tank1, (Tank) unit, pageCount++, options);
+                tank1 = null;
+                return Collections.singletonList(prs);
+            } else {
+                tank1 = (Tank) unit;
+            }
+        } else if (unit.hasETypeFlag(Entity.ETYPE_AERO)) {
+            if (unit instanceof Jumpship) {
+                PrintCapitalShip pcs = new PrintCapitalShip((Jumpship) unit, pageCount, options);
+                pageCount += pcs.getPageCount();
+                return Collections.singletonList(pcs);
+            } else if (unit instanceof Dropship) {
+                PrintDropship pds = new PrintDropship((Aero) unit, pageCount, options);
+                pageCount += pds.getPageCount();
+                return Collections.singletonList(pds);
+            } else {
+                return Collections.singletonList(new PrintAero((Aero) unit, pageCount++, options));
+            }
+        } else if (unit instanceof BattleArmor) {
+            baList.add((BattleArmor) unit);
+            if (singlePrint || baList.size() > 4) {
+                PrintRecordSheet prs = new PrintSmallUnitSheet(baList, pageCount, options);
+                pageCount += prs.getPageCount();
+                baList = new ArrayList<>();
+                return Collections.singletonList(prs);
+            }
+        } else if (unit instanceof Infantry) {
+            infList.add((Infantry) unit);
+            if (singlePrint || infList.size() > (options.showReferenceCharts() ? 2 : 3)) {
+                PrintRecordSheet prs = new PrintSmallUnitSheet(infList, pageCount, options);
+                pageCount += prs.getPageCount();
+                infList = new ArrayList<>();
+                return Collections.singletonList(prs);
+            }
+        } else if (unit instanceof Protomech) {
+            protoList.add((Protomech) unit);
+            if (singlePrint || protoList.size() > 4) {
+                PrintRecordSheet prs = new PrintSmallUnitSheet(protoList, pageCount, options);
+                pageCount += prs.getPageCount();
+                protoList = new ArrayList<>();
+                return Collections.singletonList(prs);
+            }
+        } else {
+            unprintable.add(unit);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Creates the sheets for any units that are waiting for a shared page to be filled. This should
+     * be called once after the last unit is added.
+     *
+     * @return The remaining record sheets, in page order
+     */
+    public List<PrintRecordSheet> finish() {
+        List<PrintRecordSheet> sheets = new ArrayList<>();
+        if (null != tank1) {
+            sheets.add(new PrintCompositeTankSheet(tank1, null, pageCount++, options));
+            tank1 = null;
+        }
+
+        if (!baList.isEmpty()) {
+            sheets.add(new PrintSmallUnitSheet(baList, pageCount++, options));
+            baList = new ArrayList<>();
+        }
+
+        if (!infList.isEmpty()) {
+            sheets.add(new PrintSmallUnitSheet(infList, pageCount++, options));
+            infList = new ArrayList<>();
+        }
+
+        if (!protoList.isEmpty()) {
+            sheets.add(new PrintSmallUnitSheet(protoList, pageCount++, options));
+            protoList = new ArrayList<>();
+        }
+        return sheets;
+    }
+
+    /**
+     * @return The units that were added that do not have a record sheet
+     */
+    public List<Entity> getUnprintable() {
+        return unprintable;
+    }
+}
@@ -33,6 +33,7 @@ public class RecordSheetOptions {
     private boolean tacOpsHeat;
     private boolean eraBasedProgression;
     private boolean referenceCharts;
+    private int imageDpi;
 
     public RecordSheetOptions() {
         String paper = CConfig.getParam(CConfig.RS_PAPER_SIZE, PaperSize.US_LETTER.name());
@@ -50,6 +51,7 @@ public class RecordSheetOptions {
         this.tacOpsHeat = CConfig.getBooleanParam(CConfig.RS_TAC_OPS_HEAT);
         this.eraBasedProgression = CConfig.getBooleanParam(CConfig.TECH_PROGRESSION);
         this.referenceCharts = CConfig.getBooleanParam(CConfig.RS_REFERENCE);
+        this.imageDpi = CConfig.getIntParam(CConfig.RS_IMAGE_TARGET_DPI, EmbeddedImageCache.DEFAULT_DPI);
     }
 
     public RecordSheetOptions(RecordSheetOptions options) {
@@ -63,6 +65,7 @@ public class RecordSheetOptions {
         tacOpsHeat = options.tacOpsHeat;
         eraBasedProgression = options.eraBasedProgression;
         referenceCharts = options.referenceCharts;
+        imageDpi = options.imageDpi;
     }
 
     public PaperSize getPaperSize() {
@@ -140,4 +143,21 @@ public class RecordSheetOptions {
     public void setReferenceCharts(boolean charts) {
         this.referenceCharts = charts;
     }
+
+    /**
+     * @return The resolution in dots per inch that embedded images are scaled down to
+     */
+    public int getImageDpi() {
+        return Math.max(1, imageDpi);
+    }
+
+    /**
+     * Sets the resolution that embedded images are scaled down to. Exports to raster images set this to
+     * the output resolution, so images are not embedded at a lower resolution than the page.
+     *
+     * @param imageDpi The resolution in dots per inch
+     */
+    public void setImageDpi(int imageDpi) {
+        this.imageDpi = imageDpi;
+    }
 }
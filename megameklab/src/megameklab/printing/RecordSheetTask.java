@@ -13,14 +13,17 @@
  */
 package megameklab.printing;
 
+import megamek.common.Entity;
+import megamek.common.MULParser;
 import megamek.common.util.EncodeControl;
+import org.apache.batik.gvt.GraphicsNode;
 import org.apache.logging.log4j.LogManager;
-import org.apache.pdfbox.io.MemoryUsageSetting;
-import org.apache.pdfbox.multipdf.PDFMergerUtility;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
-import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
 
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 import javax.print.attribute.PrintRequestAttributeSet;
 import javax.swing.*;
 import java.awt.print.PageFormat;
@@ -28,15 +31,21 @@ import java.awt.print.Pageable;
 import java.awt.print.Printable;
 import java.awt.print.PrinterJob;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Renders one or more record sheets as a background task. The task is created using
  * {@link #createPrintTask(List, PrinterJob, PrintRequestAttributeSet, PageFormat)} for output
- * to a printer and {@link #createExportTask(List, PageFormat, String)} for export to a PDF file.
+ * to a printer, {@link #createExportTask(List, PageFormat, String)} for export to a PDF file, and
+ * {@link #createRasterExportTask(List, PageFormat, String, RasterFormat, int)} for export to image files.
  *
  * Executing the task with {@link #execute(boolean)} allows showing a popup dialog with a progress bar.
  */
@@ -55,6 +64,17 @@ public abstract class RecordSheetTask extends SwingWorker<Void, Integer> {
         popup = new ProgressPopup(pages, popupLabel());
     }
 
+    /**
+     * Creates a task that does not start with a list of sheets and reports its progress in some
+     * other unit than pages
+     *
+     * @param progressMaximum The value of the progress bar when the task is complete
+     */
+    private RecordSheetTask(int progressMaximum) {
+        this.sheets = new ArrayList<>();
+        popup = new ProgressPopup(progressMaximum, popupLabel());
+    }
+
     /**
      * Creates a task for rendering a list of record sheets as a print job
      *
@@ -84,6 +104,59 @@ public abstract class RecordSheetTask extends SwingWorker<Void, Integer> {
         return new ExportTask(sheets, pageFormat, pathName);
     }
 
+    /**
+     * Creates a task for rendering a list of record sheets as raster images. Each page is rendered in
+     * strips on a pool of worker threads and written to disk as it is rendered. Formats that do not
+     * support multiple pages are written to one file per page, numbered after the base file name.
+     *
+     * @param sheets     The sheets to render. The contents are removed as each sheet is
+     *                   processed to avoid running out of memory on large jobs.
+     * @param pageFormat The page format
+     * @param pathName   The path to the output file
+     * @param format     The image format
+     * @param dpi        The resolution of the output images in dots per inch
+     * @return           A {@link SwingWorker} task
+     */
+    public static RecordSheetTask createRasterExportTask(List<PrintRecordSheet> sheets, PageFormat pageFormat,
+                                                         String pathName, RasterFormat format, int dpi) {
+        return new RasterExportTask(sheets, pageFormat, pathName, format, dpi);
+    }
+
+    /**
+     * Creates a task for exporting a separate PDF for each unit in a set of unit files, either into a
+     * directory or a ZIP file. Units are loaded and rendered in parallel. Failures are reported in the
+     * results for the individual units rather than ending the task.
+     *
+     * @param unitFiles  The unit or MUL files to export
+     * @param options    The options for the record sheets
+     * @param output     The output directory or ZIP file
+     * @param zip        Whether to write to a ZIP file instead of a directory
+     * @param onComplete Called on the event dispatch thread with the results for each unit when
+     *                   the export finishes
+     * @return           A {@link SwingWorker} task
+     */
+    public static RecordSheetTask createSplitExportTask(List<File> unitFiles, RecordSheetOptions options,
+                                                        File output, boolean zip,
+                                                        Consumer<List<SplitPDFExporter.Result>> onComplete) {
+        return new SplitExportTask(unitFiles, options, output, zip, onComplete);
+    }
+
+    /**
+     * Creates a task that exports the units in a MUL file to a PDF file. The file is parsed in the
+     * background, and each record sheet is rendered as soon as its units have been processed rather
+     * than creating all the sheets first. Progress is reported as a percentage of the units.
+     *
+     * @param mulFile     The MUL file
+     * @param singlePrint Whether to limit each record sheet to a single unit
+     * @param options     The options for the record sheets
+     * @param pathName    The path to the PDF output file
+     * @return            A {@link SwingWorker} task
+     */
+    public static RecordSheetTask createMULExportTask(File mulFile, boolean singlePrint, RecordSheetOptions options,
+                                                      String pathName) {
+        return new MULExportTask(mulFile, singlePrint, options, pathName);
+    }
+
     /**
      * Begins execution with the option to show a progress bar.
      * @param showProgressBar Whether to show the progress popup dialog
@@ -183,41 +256,243 @@ public abstract class RecordSheetTask extends SwingWorker<Void, Integer> {
 
         @Override
         public Void doInBackground() throws Exception {
-            PDFMergerUtility merger = new PDFMergerUtility();
-            merger.setDestinationFileName(fileName);
-            Map<Integer, List<String>> bookmarkNames = new HashMap<>();
-            Iterator<PrintRecordSheet> iter = sheets.iterator();
-            while (iter.hasNext()) {
-                final PrintRecordSheet rs = iter.next();
-                bookmarkNames.put(rs.getFirstPage(), rs.getBookmarkNames());
-                for (int i = 0; i < rs.getPageCount(); i++) {
-                    final InputStream is = rs.exportPDF(i, pageFormat);
-                    if (is != null) {
-                        merger.addSource(is);
+            exportPDF(sheets, pageFormat, fileName);
+            return null;
+        }
+    }
+
+    /**
+     * Renders record sheets to a PDF file on the current thread, adding a bookmark for each unit.
+     * This does not require a display, so it can be used for headless export.
+     *
+     * @param sheets     The sheets to render. The contents are removed as each sheet is
+     *                   processed to avoid running out of memory on large jobs.
+     * @param pageFormat The page format
+     * @param fileName   The path to the PDF output file
+     * @return           The number of pages written
+     * @throws Exception If there is an error rendering a sheet or writing the file
+     */
+    static int exportPDF(List<PrintRecordSheet> sheets, PageFormat pageFormat, String fileName) throws Exception {
+        try (MergedPDFWriter writer = new MergedPDFWriter()) {
+            return exportPDF(sheets, pageFormat, new File(fileName), writer);
+        }
+    }
+
+    /**
+     * Renders record sheets to a PDF file on the current thread using the provided writer, which
+     * can be queried afterwards for the savings from sharing resources between pages.
+     *
+     * @param sheets     The sheets to render. The contents are removed as each sheet is
+     *                   processed to avoid running out of memory on large jobs.
+     * @param pageFormat The page format
+     * @param file       The PDF output file
+     * @param writer     A new writer to assemble the pages
+     * @return           The number of pages written
+     * @throws Exception If there is an error rendering a sheet or writing the file
+     */
+    static int exportPDF(List<PrintRecordSheet> sheets, PageFormat pageFormat, File file,
+                         MergedPDFWriter writer) throws Exception {
+        Iterator<PrintRecordSheet> iter = sheets.iterator();
+        while (iter.hasNext()) {
+            final PrintRecordSheet rs = iter.next();
+            writer.addBookmarks(rs.getFirstPage(), rs.getBookmarkNames());
+            for (int i = 0; i < rs.getPageCount(); i++) {
+                final InputStream is = rs.exportPDF(i, pageFormat);
+                if (is != null) {
+                    writer.addPages(is);
+                }
+            }
+            iter.remove();
+        }
+        writer.save(file);
+        LogManager.getLogger().info(String.format("Wrote %d pages to %s; %d shared resources saved %d bytes",
+                writer.getPageCount(), file, writer.getSharedObjects(), writer.getBytesSaved()));
+        return writer.getPageCount();
+    }
+
+    private static class RasterExportTask extends RecordSheetTask {
+        private final PageFormat pageFormat;
+        private final String fileName;
+        private final RasterFormat format;
+        private final int dpi;
+
+        public RasterExportTask(List<PrintRecordSheet> sheets, PageFormat pageFormat, String fileName,
+                                RasterFormat format, int dpi) {
+            super(sheets);
+            this.pageFormat = pageFormat;
+            this.fileName = fileName;
+            this.format = format;
+            this.dpi = dpi;
+        }
+
+        @Override
+        protected String popupLabel() {
+            ResourceBundle resourceMap = ResourceBundle.getBundle("megameklab.resources.Dialogs",
+                    new EncodeControl());
+            return resourceMap.getString("RecordSheetTask.exporting");
+        }
+
+        @Override
+        public Void doInBackground() throws Exception {
+            final int threads = Runtime.getRuntime().availableProcessors();
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            final ImageWriter writer = ImageIO.getImageWritersByFormatName(format.extension).next();
+            final ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed() && (param.getCompressionTypes() != null)
+                    && Arrays.asList(param.getCompressionTypes()).contains("Deflate")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionType("Deflate");
+            }
+            final int pageCount = sheets.stream().mapToInt(PrintRecordSheet::getPageCount).sum();
+            ImageOutputStream output = null;
+            try {
+                if (format.multiPage) {
+                    output = openOutput(new File(fileName));
+                    writer.setOutput(output);
+                    writer.prepareWriteSequence(null);
+                }
+                Iterator<PrintRecordSheet> iter = sheets.iterator();
+                while (iter.hasNext()) {
+                    final PrintRecordSheet rs = iter.next();
+                    for (int i = 0; i < rs.getPageCount(); i++) {
+                        final List<GraphicsNode> nodes = rs.exportGraphicsNodes(i, pageFormat, threads);
+                        if (nodes == null) {
+                            continue;
+                        }
+                        final RasterPageImage image = new RasterPageImage(nodes, pageFormat, dpi,
+                                executor, threads * 2);
+                        try {
+                            if (format.multiPage) {
+                                writer.writeToSequence(new IIOImage(image, null, null), param);
+                            } else {
+                                try (ImageOutputStream pageOutput = openOutput(format.pageFile(fileName,
+                                        rs.getFirstPage() + i, pageCount))) {
+                                    writer.setOutput(pageOutput);
+                                    writer.write(null, new IIOImage(image, null, null), param);
+                                }
+                            }
+                        } finally {
+                            image.dispose();
+                        }
+                        publish(rs.getFirstPage() + i);
                     }
+                    iter.remove();
+                }
+                if (format.multiPage) {
+                    writer.endWriteSequence();
+                }
+            } finally {
+                writer.dispose();
+                executor.shutdownNow();
+                if (output != null) {
+                    output.close();
                 }
-                iter.remove();
             }
-            merger.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
-
-            // Load newly created document, add an outline, then write back to the file.
-            File file = new File(fileName);
-            PDDocument doc = PDDocument.load(file);
-            PDDocumentOutline outline = new PDDocumentOutline();
-            doc.getDocumentCatalog().setDocumentOutline(outline);
-            for (Entry<Integer, List<String>> entry : bookmarkNames.entrySet()) {
-                for (String name : entry.getValue()) {
-                    PDOutlineItem bookmark = new PDOutlineItem();
-                    bookmark.setDestination(doc.getPage(entry.getKey()));
-                    bookmark.setTitle(name);
-                    outline.addLast(bookmark);
+            return null;
+        }
+
+        private ImageOutputStream openOutput(File file) throws IOException {
+            // Remove any existing file first; otherwise a shorter image would leave old data at the end.
+            Files.deleteIfExists(file.toPath());
+            ImageOutputStream stream = ImageIO.createImageOutputStream(file);
+            if (stream == null) {
+                throw new IOException("Could not open " + file.getPath() + " for writing");
+            }
+            return stream;
+        }
+    }
+
+    private static class MULExportTask extends RecordSheetTask {
+        private final File mulFile;
+        private final boolean singlePrint;
+        private final RecordSheetOptions options;
+        private final String fileName;
+        private final List<Entity> unprintable = new ArrayList<>();
+
+        public MULExportTask(File mulFile, boolean singlePrint, RecordSheetOptions options, String fileName) {
+            super(100);
+            this.mulFile = mulFile;
+            this.singlePrint = singlePrint;
+            this.options = options;
+            this.fileName = fileName;
+        }
+
+        @Override
+        protected String popupLabel() {
+            ResourceBundle resourceMap = ResourceBundle.getBundle("megameklab.resources.Dialogs",
+                    new EncodeControl());
+            return resourceMap.getString("RecordSheetTask.exporting");
+        }
+
+        @Override
+        public Void doInBackground() throws Exception {
+            final Vector<Entity> units = new MULParser(mulFile, null).getEntities();
+            try (StreamingPDFExporter exporter = new StreamingPDFExporter(options, singlePrint,
+                    Runtime.getRuntime().availableProcessors())) {
+                for (int i = 0; i < units.size(); i++) {
+                    // Release each unit from the parsed list once it has been handed on
+                    exporter.add(units.set(i, null));
+                    publish((i + 1) * 100 / units.size());
                 }
+                final int pages = exporter.finish(new File(fileName));
+                unprintable.addAll(exporter.getUnprintable());
+                LogManager.getLogger().info(String.format("Wrote %d pages to %s; %d shared resources saved %d bytes",
+                        pages, fileName, exporter.getWriter().getSharedObjects(),
+                        exporter.getWriter().getBytesSaved()));
+            }
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            super.done();
+            if (!unprintable.isEmpty()) {
+                JOptionPane.showMessageDialog(null, "Exporting is not currently supported for the following units:\n"
+                        + unprintable.stream().map(en -> en.getChassis() + " " + en.getModel())
+                        .collect(Collectors.joining("\n")));
             }
-            outline.openNode();
-            doc.save(file);
-            doc.close();
+        }
+    }
+
+    private static class SplitExportTask extends RecordSheetTask {
+        private final List<File> unitFiles;
+        private final RecordSheetOptions options;
+        private final File output;
+        private final boolean zip;
+        private final Consumer<List<SplitPDFExporter.Result>> onComplete;
+        private List<SplitPDFExporter.Result> results;
+
+        public SplitExportTask(List<File> unitFiles, RecordSheetOptions options, File output, boolean zip,
+                               Consumer<List<SplitPDFExporter.Result>> onComplete) {
+            super(unitFiles.size());
+            this.unitFiles = unitFiles;
+            this.options = options;
+            this.output = output;
+            this.zip = zip;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        protected String popupLabel() {
+            ResourceBundle resourceMap = ResourceBundle.getBundle("megameklab.resources.Dialogs",
+                    new EncodeControl());
+            return resourceMap.getString("RecordSheetTask.exporting");
+        }
+
+        @Override
+        public Void doInBackground() throws Exception {
+            results = new SplitPDFExporter(options, Runtime.getRuntime().availableProcessors())
+                    .export(unitFiles, output, zip, done -> publish(done));
             return null;
         }
+
+        @Override
+        protected void done() {
+            super.done();
+            if (results != null) {
+                onComplete.accept(results);
+            }
+        }
     }
 
     /**
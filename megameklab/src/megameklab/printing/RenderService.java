@@ -0,0 +1,702 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import megamek.common.Entity;
+import megamek.common.MechSummary;
+import megamek.common.MechSummaryCache;
+import megamek.common.annotations.Nullable;
+import megameklab.util.CConfig;
+import megameklab.util.ParsedEntityCache;
+import megameklab.util.SimpleJson;
+import megameklab.util.UnitDirectoryWatcher;
+import megameklab.util.UnitPrintManager;
+import megameklab.util.UnitUtil;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.logging.log4j.LogManager;
+
+import javax.imageio.ImageIO;
+import java.awt.print.PageFormat;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * A long-running record sheet rendering service. Starting the service once and keeping it running
+ * avoids paying for loading equipment, the unit cache, quirks and fonts for every sheet.
+ *
+ * Requests and responses are single-line JSON objects, read from standard input and written to
+ * standard output, or exchanged over a TCP connection to the loopback interface when a port is
+ * given. Each request may include an {@code "id"}, which is copied to the response. Responses to
+ * render requests are sent when the request completes, which is not necessarily in the order they
+ * were received. A line that is not a valid request ends the connection.
+ *
+ * <pre>
+ * {"id": 1, "command": "render", "file": "data/mechfiles/unit.mtf", "format": "pdf"}
+ * {"id": 2, "command": "render", "unit": "Atlas AS7-D", "format": "png", "dpi": 150,
+ *  "options": {"paper": "a4", "color": true, "reference": false}}
+ * {"id": 3, "command": "render", "mul": "&lt;?xml ...", "single": true, "output": "/srv/sheets/force.pdf"}
+ * {"id": 4, "command": "health"}
+ * {"id": 5, "command": "metrics"}
+ * {"id": 6, "command": "shutdown"}
+ * </pre>
+ *
+ * Units are given as a unit or MUL file ({@code "file"}), MUL content ({@code "mul"}), or one or more
+ * names from the unit cache ({@code "unit"}, a String or an array). Rendered output is returned as
+ * base64 in {@code "data"} (an array of pages for PNG) unless {@code "output"} names a file to
+ * write instead. Render requests are queued for a fixed pool of workers; when the queue is full the
+ * request is answered immediately with a status of {@code "busy"}.
+ *
+ * Files are only read from the input directory and written to the output directory given on the
+ * command line. Writing files is disabled unless an output directory is given. When listening on a
+ * port, a random token is written to {@link #TOKEN_FILE}, readable only by the current user, and every
+ * request must include it as {@code "token"}. The number of open connections is limited.
+ */
+public class RenderService {
+    /** The command line argument that starts the service */
+    public static final String COMMAND = "--serve";
+
+    /** The file the access token for connections to the port is written to */
+    public static final String TOKEN_FILE = CConfig.CONFIG_DIR + "/render-service.token";
+
+    private static final int DEFAULT_QUEUE_SIZE = 64;
+    private static final int DEFAULT_CONNECTIONS = 8;
+
+    private final int threads;
+    private final Path inputDir;
+    private final @Nullable Path outputDir;
+    private final Semaphore connections;
+    private String token;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService stripExecutor;
+    private final long startTime = System.currentTimeMillis();
+    private volatile boolean running = true;
+    private volatile ServerSocket serverSocket;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong pagesRendered = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    private RenderService(int threads, int queueSize, int maxConnections, Path inputDir,
+                          @Nullable Path outputDir) {
+        this.threads = threads;
+        this.inputDir = inputDir;
+        this.outputDir = outputDir;
+        connections = new Semaphore(maxConnections);
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new ThreadPoolExecutor.AbortPolicy());
+        stripExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "Record sheet strip rendering");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Parses the arguments and runs the service until it receives a shutdown command or, when
+     * reading from standard input, until the input is closed.
+     *
+     * @param args The command line arguments following {@link #COMMAND}
+     * @return     The exit status
+     */
+    public static int run(String... args) {
+        int port = -1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queueSize = DEFAULT_QUEUE_SIZE;
+        int maxConnections = DEFAULT_CONNECTIONS;
+        String inputDir = UnitDirectoryWatcher.UNITS_DIR;
+        String outputDir = null;
+        final Path inputPath;
+        final Path outputPath;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-h":
+                    case "--help":
+                        usage(System.out);
+                        return BatchExporter.EXIT_OK;
+                    case "--port":
+                        port = parseCount(args, ++i, 0);
+                        break;
+                    case "--threads":
+                        threads = parseCount(args, ++i, 1);
+                        break;
+                    case "--queue":
+                        queueSize = parseCount(args, ++i, 1);
+                        break;
+                    case "--connections":
+                        maxConnections = parseCount(args, ++i, 1);
+                        break;
+                    case "--input-dir":
+                        inputDir = argumentValue(args, ++i);
+                        break;
+                    case "--output-dir":
+                        outputDir = argumentValue(args, ++i);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            inputPath = directory(inputDir);
+            outputPath = (outputDir == null) ? null : directory(outputDir);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            usage(System.err);
+            return BatchExporter.EXIT_USAGE;
+        }
+
+        UnitUtil.waitForUnitCache();
+        RenderService service = new RenderService(threads, queueSize, maxConnections, inputPath, outputPath);
+        try {
+            if (port >= 0) {
+                service.serveSocket(port);
+            } else {
+                // Keep anything else that writes to standard output from corrupting the responses
+                final PrintStream stdout = System.out;
+                System.setOut(System.err);
+                service.serve(System.in, stdout, false);
+            }
+        } catch (IOException ex) {
+            LogManager.getLogger().error("", ex);
+            return BatchExporter.EXIT_FAILURES;
+        } finally {
+            service.shutdown();
+        }
+        return BatchExporter.EXIT_OK;
+    }
+
+    /**
+     * Prints a summary of the command line arguments
+     *
+     * @param stream The stream to print to
+     */
+    public static void usage(PrintStream stream) {
+        stream.println("Usage: MegaMekLab " + COMMAND + " [options]");
+        stream.println();
+        stream.println("  --port <n>           Listen on a loopback TCP port instead of standard input and output");
+        stream.println("                       (0 picks a free port, which is printed to standard error)");
+        stream.println("  --threads <n>        Number of render workers (default: number of processors)");
+        stream.println("  --queue <n>          Maximum number of waiting requests (default: " + DEFAULT_QUEUE_SIZE + ")");
+        stream.println("  --connections <n>    Maximum number of open connections to the port (default: "
+                + DEFAULT_CONNECTIONS + ")");
+        stream.println("  --input-dir <dir>    Directory that unit and MUL files may be read from (default: "
+                + UnitDirectoryWatcher.UNITS_DIR + ")");
+        stream.println("  --output-dir <dir>   Directory that output files may be written to (default: none,");
+        stream.println("                       so output is only returned in the response)");
+        stream.println("  -h, --help           Show this message");
+        stream.println();
+        stream.println("When listening on a port, every request must include the token written to");
+        stream.println(TOKEN_FILE + " as \"token\".");
+    }
+
+    private static String argumentValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    /**
+     * @return The real path of a directory given on the command line
+     * @throws IllegalArgumentException if the directory does not exist
+     */
+    private static Path directory(String name) {
+        try {
+            final Path path = Paths.get(name).toRealPath();
+            if (Files.isDirectory(path)) {
+                return path;
+            }
+        } catch (IOException ignored) {
+        }
+        throw new IllegalArgumentException(name + " is not a directory");
+    }
+
+    private static int parseCount(String[] args, int index, int minimum) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        try {
+            final int value = Integer.parseInt(args[index]);
+            if (value >= minimum) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Invalid value for " + args[index - 1] + ": " + args[index]);
+    }
+
+    private void serveSocket(int port) throws IOException {
+        token = createToken();
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            serverSocket = server;
+            System.err.println("Listening on " + server.getInetAddress().getHostAddress() + ":" + server.getLocalPort());
+            System.err.println("Access token written to " + TOKEN_FILE);
+            while (running) {
+                final Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (IOException ex) {
+                    if (running) {
+                        throw ex;
+                    }
+                    break;
+                }
+                if (!connections.tryAcquire()) {
+                    try (Socket s = socket) {
+                        new Channel(s.getOutputStream()).send(errorResponse(null, "Too many connections"));
+                    } catch (IOException ignored) {
+                    }
+                    continue;
+                }
+                Thread connection = new Thread(() -> {
+                    try (Socket s = socket) {
+                        serve(s.getInputStream(), s.getOutputStream(), true);
+                    } catch (IOException ex) {
+                        LogManager.getLogger().warn("Connection closed: " + ex.getMessage());
+                    } finally {
+                        connections.release();
+                    }
+                }, "Render service connection " + socket.getPort());
+                connection.setDaemon(true);
+                connection.start();
+            }
+        } finally {
+            Files.deleteIfExists(Paths.get(TOKEN_FILE));
+        }
+    }
+
+    /**
+     * Creates a random token and writes it to {@link #TOKEN_FILE}, readable only by the current user.
+     *
+     * @return The token
+     */
+    private static String createToken() throws IOException {
+        final byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder token = new StringBuilder();
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        final Path path = Paths.get(TOKEN_FILE);
+        Files.createDirectories(path.getParent());
+        Files.deleteIfExists(path);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            final File file = Files.createFile(path).toFile();
+            if (!file.setReadable(false, false) || !file.setReadable(true, true)
+                    || !file.setWritable(false, false) || !file.setWritable(true, true)) {
+                throw new IOException("Could not restrict access to " + TOKEN_FILE);
+            }
+        }
+        Files.writeString(path, token.toString());
+        return token.toString();
+    }
+
+    private boolean isAuthorized(Map<String, Object> request) {
+        final Object given = request.get("token");
+        return (given instanceof String) && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                ((String) given).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads requests from a stream until it is closed, the service is shut down, or a line is not a
+     * valid request. Requests that are still rendering are completed before returning.
+     *
+     * @param authenticate Whether each request must include the access token
+     */
+    private void serve(InputStream input, OutputStream output, boolean authenticate) throws IOException {
+        final Channel channel = new Channel(output);
+        final List<Future<?>> pending = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while (running && ((line = reader.readLine()) != null)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                final long queuedAt = System.nanoTime();
+                final Map<String, Object> request;
+                try {
+                    request = SimpleJson.parseObject(line);
+                } catch (IllegalArgumentException ex) {
+                    // Probably not a client of this service, such as a browser sending a form
+                    channel.send(errorResponse(null, "Invalid request: " + ex.getMessage()));
+                    break;
+                }
+                if (authenticate && !isAuthorized(request)) {
+                    channel.send(errorResponse(request.get("id"), "Invalid token"));
+                    break;
+                }
+                pending.removeIf(Future::isDone);
+                final Future<?> future = handle(request, queuedAt, channel);
+                if (future != null) {
+                    pending.add(future);
+                }
+            }
+        }
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | CancellationException ignored) {
+                // Already reported to the client
+            }
+        }
+    }
+
+    /**
+     * Handles a single request. Status requests are answered immediately, and render requests
+     * are queued.
+     *
+     * @return The queued render task, or null if the request was answered immediately
+     */
+    private Future<?> handle(Map<String, Object> request, long queuedAt, Channel channel) {
+        final Object id = request.get("id");
+        final String command = String.valueOf(request.getOrDefault("command", "render"));
+        switch (command) {
+            case "health":
+                channel.send(healthResponse(id));
+                return null;
+            case "metrics":
+                channel.send(metricsResponse(id));
+                return null;
+            case "shutdown":
+                channel.send(response(id, "ok"));
+                shutdown();
+                return null;
+            case "render":
+                received.incrementAndGet();
+                try {
+                    return executor.submit(() -> channel.send(render(request, queuedAt)));
+                } catch (RejectedExecutionException ex) {
+                    rejected.incrementAndGet();
+                    Map<String, Object> response = response(id, "busy");
+                    response.put("message", "The request queue is full");
+                    channel.send(response);
+                    return null;
+                }
+            default:
+                channel.send(errorResponse(id, "Unknown command: " + command));
+                return null;
+        }
+    }
+
+    private void shutdown() {
+        running = false;
+        executor.shutdown();
+        stripExecutor.shutdown();
+        final ServerSocket server = serverSocket;
+        if (server != null) {
+            try {
+                server.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private Map<String, Object> render(Map<String, Object> request, long queuedAt) {
+        final Object id = request.get("id");
+        final long start = System.nanoTime();
+        try {
+            final List<Entity> entities = loadUnits(request);
+            final long loaded = System.nanoTime();
+
+            final String format = String.valueOf(request.getOrDefault("format", "pdf")).toLowerCase(Locale.ROOT);
+            final Object dpiValue = request.get("dpi");
+            final int dpi = (dpiValue instanceof Number) ?
+                    ((Number) dpiValue).intValue() : CConfig.getIntParam(CConfig.RS_IMAGE_DPI, 300);
+            final RecordSheetOptions options = parseOptions(request.get("options"));
+            if (format.equals("png")) {
+                options.setImageDpi(dpi);
+            }
+            final PageFormat pageFormat = new PageFormat();
+            pageFormat.setPaper(options.getPaperSize().createPaper());
+            final List<Entity> unprintable = new ArrayList<>();
+            final List<PrintRecordSheet> sheets = UnitPrintManager.createSheets(entities,
+                    Boolean.TRUE.equals(request.get("single")), options, unprintable);
+            if (sheets.isEmpty()) {
+                throw new IllegalArgumentException("None of the units can be printed");
+            }
+
+            final String output = (request.get("output") == null) ? null
+                    : confineOutput(String.valueOf(request.get("output")));
+            final Map<String, Object> response = response(id, "ok");
+            response.put("format", format);
+            response.put("units", entities.size() - unprintable.size());
+            final int pages;
+            if (format.equals("pdf")) {
+                pages = renderPDF(sheets, pageFormat, output, response);
+            } else if (format.equals("png")) {
+                pages = renderPNG(sheets, pageFormat, output, dpi, response);
+            } else {
+                throw new IllegalArgumentException("Unsupported format: " + format);
+            }
+            response.put("pages", pages);
+            if (!unprintable.isEmpty()) {
+                List<String> warnings = new ArrayList<>();
+                for (Entity entity : unprintable) {
+                    warnings.add("Record sheets are not supported for " + entity.getShortNameRaw());
+                }
+                response.put("warnings", warnings);
+            }
+
+            final long end = System.nanoTime();
+            response.put("queueMs", (start - queuedAt) / 1_000_000);
+            response.put("loadMs", (loaded - start) / 1_000_000);
+            response.put("renderMs", (end - loaded) / 1_000_000);
+            response.put("totalMs", (end - queuedAt) / 1_000_000);
+            completed.incrementAndGet();
+            pagesRendered.addAndGet(pages);
+            final long millis = (end - start) / 1_000_000;
+            totalMillis.addAndGet(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+            return response;
+        } catch (Exception ex) {
+            LogManager.getLogger().error("Render request " + id + " failed", ex);
+            failed.incrementAndGet();
+            final Map<String, Object> response = errorResponse(id,
+                    (ex.getMessage() != null) ? ex.getMessage() : ex.toString());
+            response.put("totalMs", (System.nanoTime() - queuedAt) / 1_000_000);
+            return response;
+        }
+    }
+
+    private List<Entity> loadUnits(Map<String, Object> request) throws Exception {
+        final List<Entity> entities = new ArrayList<>();
+        if (request.get("file") != null) {
+            final File file = confineInput(String.valueOf(request.get("file")));
+            if (BatchExporter.isMUL(file)) {
+                entities.addAll(BatchExporter.loadUnits(file));
+            } else {
+                entities.add(ParsedEntityCache.load(file));
+            }
+        }
+        if (request.get("mul") != null) {
+            // MULParser reads from a file
+            final File mul = File.createTempFile("mml-service", ".mul");
+            try {
+                Files.writeString(mul.toPath(), String.valueOf(request.get("mul")));
+                entities.addAll(BatchExporter.loadUnits(mul));
+            } finally {
+                Files.deleteIfExists(mul.toPath());
+            }
+        }
+        final Object units = request.get("unit");
+        if (units != null) {
+            for (Object name : (units instanceof List) ? (List<?>) units : List.of(units)) {
+                final MechSummary summary = MechSummaryCache.getInstance().getMech(String.valueOf(name));
+                if (summary == null) {
+                    throw new IllegalArgumentException("Unit not found: " + name);
+                }
+                entities.add(ParsedEntityCache.load(summary.getSourceFile(), summary.getEntryName()));
+            }
+        }
+        if (entities.isEmpty()) {
+            throw new IllegalArgumentException("No units given");
+        }
+        return entities;
+    }
+
+    /**
+     * @return The file, if it is in the input directory
+     * @throws IllegalArgumentException if the file does not exist or is outside the input directory
+     */
+    private File confineInput(String fileName) throws IOException {
+        final Path path;
+        try {
+            path = Paths.get(fileName).toRealPath();
+        } catch (NoSuchFileException ex) {
+            throw new IllegalArgumentException("File not found: " + fileName);
+        }
+        if (!path.startsWith(inputDir)) {
+            throw new IllegalArgumentException("Files can only be read from " + inputDir);
+        }
+        return path.toFile();
+    }
+
+    /**
+     * @return The path of an output file, if it is in the output directory
+     * @throws IllegalArgumentException if writing files is disabled or the file is outside the output directory
+     */
+    private String confineOutput(String fileName) throws IOException {
+        if (outputDir == null) {
+            throw new IllegalArgumentException("Writing output files is not enabled");
+        }
+        final Path path = Paths.get(fileName).toAbsolutePath().normalize();
+        final Path parent = path.getParent();
+        if ((parent == null) || (path.getFileName() == null) || !Files.isDirectory(parent)
+                || !parent.toRealPath().startsWith(outputDir) || Files.isSymbolicLink(path)) {
+            throw new IllegalArgumentException("Files can only be written to " + outputDir);
+        }
+        return parent.toRealPath().resolve(path.getFileName()).toString();
+    }
+
+    private static RecordSheetOptions parseOptions(Object value) {
+        final RecordSheetOptions options = new RecordSheetOptions();
+        if (value == null) {
+            return options;
+        } else if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("options must be an object");
+        }
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            if ("paper".equals(entry.getKey())) {
+                options.setPaperSize(BatchExporter.parsePaperSize(String.valueOf(entry.getValue())));
+                continue;
+            }
+            final BiConsumer<RecordSheetOptions, Boolean> setter = BatchExporter.BOOLEAN_OPTIONS.get(entry.getKey());
+            if ((setter == null) || !(entry.getValue() instanceof Boolean)) {
+                throw new IllegalArgumentException("Invalid option: " + entry.getKey());
+            }
+            setter.accept(options, (Boolean) entry.getValue());
+        }
+        return options;
+    }
+
+    private static int renderPDF(List<PrintRecordSheet> sheets, PageFormat pageFormat, String output,
+                                 Map<String, Object> response) throws Exception {
+        final File file = (output != null) ? new File(output) : File.createTempFile("mml-service", ".pdf");
+        try (MergedPDFWriter writer = new MergedPDFWriter()) {
+            final int pages = RecordSheetTask.exportPDF(sheets, pageFormat, file, writer);
+            response.put("sharedResources", writer.getSharedObjects());
+            response.put("bytesSaved", writer.getBytesSaved());
+            if (output != null) {
+                response.put("output", output);
+            } else {
+                response.put("data", Base64.getEncoder().encodeToString(Files.readAllBytes(file.toPath())));
+            }
+            return pages;
+        } finally {
+            if (output == null) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+    private int renderPNG(List<PrintRecordSheet> sheets, PageFormat pageFormat, String output, int dpi,
+                          Map<String, Object> response) throws IOException {
+        final int pageCount = sheets.stream().mapToInt(PrintRecordSheet::getPageCount).sum();
+        final List<String> data = new ArrayList<>();
+        final List<String> files = new ArrayList<>();
+        int pages = 0;
+        for (PrintRecordSheet rs : sheets) {
+            for (int i = 0; i < rs.getPageCount(); i++) {
+                // Each request gets a share of the processors for painting strips
+                final int strips = Math.max(2, Runtime.getRuntime().availableProcessors() / threads);
+                final List<GraphicsNode> nodes = rs.exportGraphicsNodes(i, pageFormat, strips);
+                if (nodes == null) {
+                    continue;
+                }
+                final RasterPageImage image = new RasterPageImage(nodes, pageFormat, dpi, stripExecutor, strips);
+                try {
+                    if (output != null) {
+                        final File file = RasterFormat.PNG.pageFile(output, rs.getFirstPage() + i, pageCount);
+                        ImageIO.write(image, RasterFormat.PNG.extension, file);
+                        files.add(file.getPath());
+                    } else {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        ImageIO.write(image, RasterFormat.PNG.extension, bytes);
+                        data.add(Base64.getEncoder().encodeToString(bytes.toByteArray()));
+                    }
+                } finally {
+                    image.dispose();
+                }
+                pages++;
+            }
+        }
+        if (output != null) {
+            response.put("output", files);
+        } else {
+            response.put("data", data);
+        }
+        return pages;
+    }
+
+    private static Map<String, Object> response(Object id, String status) {
+        final Map<String, Object> response = new LinkedHashMap<>();
+        if (id != null) {
+            response.put("id", id);
+        }
+        response.put("status", status);
+        return response;
+    }
+
+    private static Map<String, Object> errorResponse(Object id, String message) {
+        final Map<String, Object> response = response(id, "error");
+        response.put("message", message);
+        return response;
+    }
+
+    private Map<String, Object> healthResponse(Object id) {
+        final Map<String, Object> response = response(id, running ? "ok" : "stopping");
+        response.put("uptimeMs", System.currentTimeMillis() - startTime);
+        response.put("queued", executor.getQueue().size());
+        response.put("active", executor.getActiveCount());
+        return response;
+    }
+
+    private Map<String, Object> metricsResponse(Object id) {
+        final Map<String, Object> response = healthResponse(id);
+        final long done = completed.get();
+        response.put("threads", threads);
+        response.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        response.put("received", received.get());
+        response.put("completed", done);
+        response.put("failed", failed.get());
+        response.put("rejected", rejected.get());
+        response.put("pages", pagesRendered.get());
+        response.put("averageMs", (done > 0) ? totalMillis.get() / done : 0);
+        response.put("maxMs", maxMillis.get());
+        final Runtime runtime = Runtime.getRuntime();
+        response.put("heapUsedBytes", runtime.totalMemory() - runtime.freeMemory());
+        response.put("heapMaxBytes", runtime.maxMemory());
+        return response;
+    }
+
+    /**
+     * Writes responses to a client one line at a time
+     */
+    private static class Channel {
+        private final Writer writer;
+
+        Channel(OutputStream output) {
+            writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        }
+
+        synchronized void send(Map<String, Object> response) {
+            try {
+                writer.write(SimpleJson.write(response));
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException ex) {
+                LogManager.getLogger().warn("Could not send response: " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import megamek.common.Entity;
+import megamek.common.annotations.Nullable;
+import megameklab.util.StringUtils;
+import megameklab.util.UnitPrintManager;
+import org.apache.logging.log4j.LogManager;
+
+import java.awt.print.PageFormat;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports a separate PDF for each unit in a set of unit files, either into a directory or as the
+ * entries of a single ZIP file. Units are loaded and rendered on a pool of worker threads, with one
+ * task for each unit, including each unit in a MUL file. The results are written in the order of the
+ * input files as they complete, and only a limited number of units are in progress at once, so memory
+ * use does not depend on the number of units.
+ *
+ * File names are derived from the units' short names. Each unit produces a {@link Result} with
+ * its timing and any error, so that failures do not stop the export.
+ */
+public class SplitPDFExporter {
+
+    /**
+     * The outcome of exporting one unit, or of a unit file that could not be loaded
+     */
+    public static class Result {
+        private final File source;
+        private final String unitName;
+        private final @Nullable String fileName;
+        private final int pages;
+        private final long bytes;
+        private final long millis;
+        private final @Nullable String error;
+
+        private Result(File source, String unitName, @Nullable String fileName, int pages, long bytes,
+                       long millis, @Nullable String error) {
+            this.source = source;
+            this.unitName = unitName;
+            this.fileName = fileName;
+            this.pages = pages;
+            this.bytes = bytes;
+            this.millis = millis;
+            this.error = error;
+        }
+
+        /** @return The unit file the unit was loaded from */
+        public File getSource() {
+            return source;
+        }
+
+        /** @return The unit's short name, or the name of the source file if it could not be loaded */
+        public String getUnitName() {
+            return unitName;
+        }
+
+        /** @return The name of the output file or ZIP entry, or null if the export failed */
+        public @Nullable String getFileName() {
+            return fileName;
+        }
+
+        public int getPages() {
+            return pages;
+        }
+
+        /** @return The size of the output file in bytes */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /** @return The time taken to load, render and write the unit in milliseconds */
+        public long getMillis() {
+            return millis;
+        }
+
+        /** @return A description of the error if the export failed, otherwise null */
+        public @Nullable String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * A rendered PDF waiting to be written
+     */
+    private static class RenderedUnit {
+        final String unitName;
+        final byte[] pdf;
+        final int pages;
+        final long nanos;
+        final String error;
+
+        RenderedUnit(String unitName, byte[] pdf, int pages, long nanos, String error) {
+            this.unitName = unitName;
+            this.pdf = pdf;
+            this.pages = pages;
+            this.nanos = nanos;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A unit queued for rendering
+     */
+    private static class PendingUnit {
+        final File source;
+        final int fileIndex;
+        final boolean lastInFile;
+        /** Null for a MUL file without any units */
+        final @Nullable Future<RenderedUnit> rendered;
+
+        PendingUnit(File source, int fileIndex, boolean lastInFile, @Nullable Future<RenderedUnit> rendered) {
+            this.source = source;
+            this.fileIndex = fileIndex;
+            this.lastInFile = lastInFile;
+            this.rendered = rendered;
+        }
+    }
+
+    private final RecordSheetOptions options;
+    private final PageFormat pageFormat = new PageFormat();
+    private final int threads;
+
+    /**
+     * @param options The options to use for the record sheets
+     * @param threads The number of worker threads
+     */
+    public SplitPDFExporter(RecordSheetOptions options, int threads) {
+        this.options = options;
+        this.threads = Math.max(1, threads);
+        pageFormat.setPaper(options.getPaperSize().createPaper());
+    }
+
+    /**
+     * Exports a PDF for each unit in the files.
+     *
+     * @param unitFiles The unit or MUL files to export
+     * @param output    The output directory, which is created if necessary, or the ZIP file
+     * @param zip       Whether to write the PDFs to a ZIP file instead of a directory
+     * @param progress  If not null, called with the number of files completed as each one is written
+     * @return          The result for each unit in the order of the input files
+     * @throws IOException If the output cannot be created or written
+     * @throws InterruptedException If the thread is interrupted while waiting for a unit to render
+     */
+    public List<Result> export(List<File> unitFiles, File output, boolean zip, @Nullable IntConsumer progress)
+            throws IOException, InterruptedException {
+        if (!zip && !output.isDirectory() && !output.mkdirs()) {
+            throw new IOException("Could not create directory " + output);
+        }
+        final List<Result> results = new ArrayList<>();
+        final Set<String> names = new HashSet<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Deque<PendingUnit> inFlight = new ArrayDeque<>();
+        try (ZipOutputStream zipStream = zip ?
+                new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(output))) : null) {
+            if (zipStream != null) {
+                // PDF content is already compressed
+                zipStream.setLevel(Deflater.BEST_SPEED);
+            }
+            int nextFile = 0;
+            Iterator<Entity> mulUnits = Collections.emptyIterator();
+            File mulFile = null;
+            int mulIndex = 0;
+            while (true) {
+                while ((inFlight.size() < threads * 2) && (mulUnits.hasNext() || (nextFile < unitFiles.size()))) {
+                    if (mulUnits.hasNext()) {
+                        final Entity entity = mulUnits.next();
+                        inFlight.add(new PendingUnit(mulFile, mulIndex, !mulUnits.hasNext(),
+                                executor.submit(() -> render(entity, System.nanoTime()))));
+                        continue;
+                    }
+                    final int index = nextFile++;
+                    final File file = unitFiles.get(index);
+                    if (!BatchExporter.isMUL(file)) {
+                        inFlight.add(new PendingUnit(file, index, true, executor.submit(() -> render(file))));
+                        continue;
+                    }
+                    // The units in a MUL file are queued one at a time like unit files
+                    final long start = System.nanoTime();
+                    try {
+                        mulUnits = BatchExporter.loadUnits(file).iterator();
+                        mulFile = file;
+                        mulIndex = index;
+                        if (!mulUnits.hasNext()) {
+                            inFlight.add(new PendingUnit(file, index, true, null));
+                        }
+                    } catch (Exception ex) {
+                        inFlight.add(new PendingUnit(file, index, true,
+                                CompletableFuture.completedFuture(loadFailure(file, ex, start))));
+                    }
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                final PendingUnit pending = inFlight.remove();
+                if (pending.rendered != null) {
+                    try {
+                        results.add(write(pending.source, pending.rendered.get(), output, zipStream, names));
+                    } catch (ExecutionException ex) {
+                        // render() reports its own errors, so this is unexpected
+                        throw new IOException(ex.getCause());
+                    }
+                }
+                if (pending.lastInFile && (progress != null)) {
+                    progress.accept(pending.fileIndex + 1);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Loads the unit in a unit file and renders it. Errors are recorded in the result.
+     */
+    private RenderedUnit render(File file) {
+        final long start = System.nanoTime();
+        final List<Entity> entities;
+        try {
+            entities = BatchExporter.loadUnits(file);
+        } catch (Exception ex) {
+            return loadFailure(file, ex, start);
+        }
+        return render(entities.get(0), start);
+    }
+
+    private static RenderedUnit loadFailure(File file, Exception ex, long start) {
+        LogManager.getLogger().error("Could not load " + file, ex);
+        return new RenderedUnit(file.getName(), null, 0, System.nanoTime() - start,
+                "Could not load unit: " + describe(ex));
+    }
+
+    /**
+     * Renders a PDF for a unit. Errors are recorded in the result.
+     *
+     * @param start The value of {@link System#nanoTime()} when loading the unit started
+     */
+    private RenderedUnit render(Entity entity, long start) {
+        try {
+            final List<Entity> unprintable = new ArrayList<>();
+            final List<PrintRecordSheet> sheets = UnitPrintManager.createSheets(Collections.singletonList(entity),
+                    true, new RecordSheetOptions(options), unprintable);
+            if (!unprintable.isEmpty() || sheets.isEmpty()) {
+                throw new IllegalArgumentException("Record sheets are not supported for this unit type");
+            }
+            try (MergedPDFWriter writer = new MergedPDFWriter()) {
+                for (PrintRecordSheet rs : sheets) {
+                    writer.addBookmarks(rs.getFirstPage(), rs.getBookmarkNames());
+                    for (int i = 0; i < rs.getPageCount(); i++) {
+                        final InputStream is = rs.exportPDF(i, pageFormat);
+                        if (is != null) {
+                            writer.addPages(is);
+                        }
+                    }
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                writer.save(bytes);
+                return new RenderedUnit(entity.getShortNameRaw(), bytes.toByteArray(),
+                        writer.getPageCount(), System.nanoTime() - start, null);
+            }
+        } catch (Exception ex) {
+            LogManager.getLogger().error("Could not export " + entity.getShortNameRaw(), ex);
+            return new RenderedUnit(entity.getShortNameRaw(), null, 0, System.nanoTime() - start, describe(ex));
+        }
+    }
+
+    private static String describe(Exception ex) {
+        return (ex.getMessage() != null) ? ex.getMessage() : ex.getClass().getSimpleName();
+    }
+
+    private static Result write(File source, RenderedUnit unit, File output, @Nullable ZipOutputStream zipStream,
+                                Set<String> names) throws IOException {
+        if (unit.error != null) {
+            return new Result(source, unit.unitName, null, 0, 0, unit.nanos / 1_000_000, unit.error);
+        }
+        final long start = System.nanoTime();
+        final String fileName = uniqueFileName(unit.unitName, names);
+        if (zipStream != null) {
+            zipStream.putNextEntry(new ZipEntry(fileName));
+            zipStream.write(unit.pdf);
+            zipStream.closeEntry();
+        } else {
+            Files.write(new File(output, fileName).toPath(), unit.pdf);
+        }
+        return new Result(source, unit.unitName, fileName, unit.pages, unit.pdf.length,
+                (unit.nanos + System.nanoTime() - start) / 1_000_000, null);
+    }
+
+    /**
+     * @return A PDF file name based on the unit name that is not already in use in this export
+     */
+    static String uniqueFileName(String unitName, Set<String> names) {
+        final String base = unitName.replaceAll("[\\\\/:*?\"<>|]", "_").trim();
+        String name = base;
+        for (int i = 2; !names.add(name.toLowerCase(Locale.ROOT)); i++) {
+            name = base + " (" + i + ")";
+        }
+        return name + ".pdf";
+    }
+
+    /**
+     * Writes the results as CSV, with one row for each unit
+     *
+     * @param results The export results
+     * @param file    The report file
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeReport(List<Result> results, File file) throws IOException {
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file.toPath()))) {
+            pw.println("Source,Unit,File,Pages,Bytes,Milliseconds,Error");
+            for (Result result : results) {
+                pw.println(String.join(",", StringUtils.csv(result.getSource().getPath()),
+                        StringUtils.csv(result.getUnitName()), StringUtils.csv(result.getFileName()), String.valueOf(result.getPages()),
+                        String.valueOf(result.getBytes()), String.valueOf(result.getMillis()),
+                        StringUtils.csv(result.getError())));
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import megameklab.util.UnitUtil;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -40,7 +41,7 @@ import java.util.stream.Collectors;
 public class StandardInventoryEntry implements InventoryEntry, Comparable<StandardInventoryEntry> {
     // Cache for whether equipment on a mixed tech unit needs to state explicitly whether
     // it's IS or Clan
-    private static final Map<EquipmentType, Boolean> showMixedTechBase = new HashMap<>();
+    private static final Map<EquipmentType, Boolean> showMixedTechBase = new ConcurrentHashMap<>();
 
     private final Mounted mount;
 
@@ -290,8 +291,9 @@ public class StandardInventoryEntry implements InventoryEntry, Comparable<Standa
                 || (mount.getType().getTechBase() == ITechnology.TECH_BASE_ALL)) {
             return false;
         }
-        if (showMixedTechBase.containsKey(mount.getType())) {
-            return showMixedTechBase.get(mount.getType());
+        final Boolean known = showMixedTechBase.get(mount.getType());
+        if (known != null) {
+            return known;
         }
         final Enumeration<EquipmentType> e = EquipmentType.getAllTypes();
         while (e.hasMoreElements()) {
@@ -303,8 +305,8 @@ public class StandardInventoryEntry implements InventoryEntry, Comparable<Standa
                 return true;
             }
         }
-        showMixedTechBase.put(mount.getType(), false);
-        return false;
+        // Another thread may have found a match with the same name through the other tech base
+        return showMixedTechBase.computeIfAbsent(mount.getType(), k -> false);
     }
 
     private String formatLocation() {
@@ -0,0 +1,157 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import megamek.common.Entity;
+
+import java.awt.print.PageFormat;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the record sheets for a stream of units to a single PDF. Units are added one at a time, and
+ * each record sheet is rendered on a pool of worker threads as soon as all the units on it have been
+ * added. The rendered pages are merged in order. Only a limited number of sheets are rendered or
+ * waiting to be merged at once; when that limit is reached, adding a unit blocks until the oldest
+ * sheet is merged, and merged pages are buffered on disk until the file is written. This keeps
+ * memory use independent of the number of units.
+ */
+class StreamingPDFExporter implements Closeable {
+
+    private final RecordSheetAssembler assembler;
+    private final PageFormat pageFormat = new PageFormat();
+    private final ExecutorService executor;
+    private final int window;
+    private final MergedPDFWriter writer = new MergedPDFWriter();
+    private final Deque<Future<List<InputStream>>> inFlight = new ArrayDeque<>();
+    private int expectedPages = 0;
+
+    /**
+     * @param options     The options for the record sheets
+     * @param singlePrint Whether to limit each record sheet to a single unit
+     * @param threads     The number of worker threads used for rendering
+     */
+    StreamingPDFExporter(RecordSheetOptions options, boolean singlePrint, int threads) {
+        assembler = new RecordSheetAssembler(singlePrint, options);
+        pageFormat.setPaper(options.getPaperSize().createPaper());
+        executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        window = Math.max(1, threads) * 2;
+    }
+
+    /**
+     * Adds the next unit, starting to render any sheets that are complete.
+     *
+     * @param unit The unit
+     * @throws IOException If a sheet could not be rendered or merged
+     * @throws InterruptedException If the thread is interrupted while waiting for a sheet to render
+     */
+    void add(Entity unit) throws IOException, InterruptedException {
+        submit(assembler.add(unit));
+    }
+
+    /**
+     * Renders any partly filled sheets, waits for all pages to be merged and writes the file.
+     *
+     * @param file The output file
+     * @return     The number of pages written
+     * @throws IOException If a sheet could not be rendered or the file could not be written
+     * @throws InterruptedException If the thread is interrupted while waiting for a sheet to render
+     */
+    int finish(File file) throws IOException, InterruptedException {
+        submit(assembler.finish());
+        while (!inFlight.isEmpty()) {
+            mergeNext();
+        }
+        if (writer.getPageCount() == 0) {
+            return 0;
+        }
+        if (writer.getPageCount() < expectedPages) {
+            // A missing page would throw off the bookmarks
+            throw new IOException("Could not render all pages; " + file + " was not written");
+        }
+        writer.save(file);
+        return writer.getPageCount();
+    }
+
+    /**
+     * @return The units that were added that do not have a record sheet
+     */
+    List<Entity> getUnprintable() {
+        return assembler.getUnprintable();
+    }
+
+    /**
+     * @return The writer used to merge the pages, for reporting the savings from shared resources
+     */
+    MergedPDFWriter getWriter() {
+        return writer;
+    }
+
+    private void submit(List<PrintRecordSheet> sheets) throws IOException, InterruptedException {
+        for (PrintRecordSheet rs : sheets) {
+            while (inFlight.size() >= window) {
+                mergeNext();
+            }
+            writer.addBookmarks(rs.getFirstPage(), rs.getBookmarkNames());
+            expectedPages += rs.getPageCount();
+            // A sheet holds the document for the page being rendered, so each sheet renders its pages
+            // on a single thread.
+            inFlight.add(executor.submit(() -> renderPages(rs, pageFormat)));
+        }
+    }
+
+    private void mergeNext() throws IOException, InterruptedException {
+        final List<InputStream> pages;
+        try {
+            pages = inFlight.remove().get();
+        } catch (ExecutionException ex) {
+            throw new IOException("Could not render record sheet", ex.getCause());
+        }
+        for (InputStream is : pages) {
+            writer.addPages(is);
+        }
+    }
+
+    /**
+     * Renders each page of a sheet to a PDF stream, then releases the sheet's document
+     */
+    private static List<InputStream> renderPages(PrintRecordSheet rs, PageFormat pageFormat) throws Exception {
+        final List<InputStream> pages = new ArrayList<>();
+        for (int i = 0; i < rs.getPageCount(); i++) {
+            final InputStream is = rs.exportPDF(i, pageFormat);
+            if (is != null) {
+                pages.add(is);
+            }
+        }
+        rs.setSVGDocument(null);
+        return pages;
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        inFlight.clear();
+        writer.close();
+    }
+}
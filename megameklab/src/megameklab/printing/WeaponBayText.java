@@ -21,6 +21,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import megamek.common.*;
 import megamek.common.weapons.AmmoWeapon;
@@ -129,6 +130,89 @@ public class WeaponBayText implements Comparable<WeaponBayText> {
         return rv;
     }
 
+    /**
+     * Creates a key that identifies this bay as a candidate for combining. A bay that has not yet
+     * been combined with another can combine with {@code other} exactly when its
+     * {@link #combineKey()} equals {@code other.opposingCombineKey()}, consistent with
+     * {@link #canCombine(WeaponBayText)}. This allows finding the bay to combine with by hash lookup
+     * instead of comparing every pair. The key reflects the contents of the bay when it is created.
+     *
+     * @return The key for this bay's first location
+     */
+    public Object combineKey() {
+        return new CombineKey(loc.get(0), this);
+    }
+
+    /**
+     * @return The {@link #combineKey()} of a bay on the opposing side that this bay can be combined
+     *         with, or null if this bay's location does not have an opposing side
+     */
+    public Object opposingCombineKey() {
+        int opposing = getOpposingSide(loc.get(0));
+        return (opposing < 0) ? null : new CombineKey(opposing, this);
+    }
+
+    /**
+     * @return The location that is the mirror image of the given one, or -1 if there is none
+     */
+    private static int getOpposingSide(int location) {
+        switch (location) {
+            case Jumpship.LOC_FLS:
+                return Jumpship.LOC_FRS;
+            case Jumpship.LOC_FRS:
+                return Jumpship.LOC_FLS;
+            case Jumpship.LOC_ALS:
+                return Jumpship.LOC_ARS;
+            case Jumpship.LOC_ARS:
+                return Jumpship.LOC_ALS;
+            case Warship.LOC_LBS:
+                return Warship.LOC_RBS;
+            case Warship.LOC_RBS:
+                return Warship.LOC_LBS;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * The location and contents of a bay. Only the fore sides distinguish front and rear mounted
+     * bays when combining, so the rear flag is ignored for other locations.
+     */
+    private static class CombineKey {
+        private final int location;
+        private final boolean rear;
+        private final Map<WeaponType, Integer> weapons;
+        private final Map<WeaponType, Integer> ammoShots = new HashMap<>();
+        private final Map<WeaponType, Map<EquipmentType, Integer>> augmentations;
+
+        CombineKey(int location, WeaponBayText bay) {
+            this.location = location;
+            this.rear = ((location == Jumpship.LOC_FLS) || (location == Jumpship.LOC_FRS)) && bay.rear;
+            this.weapons = new HashMap<>(bay.weapons);
+            for (Map.Entry<WeaponType, Mounted> entry : bay.weaponAmmo.entrySet()) {
+                ammoShots.put(entry.getKey(), entry.getValue().getBaseShotsLeft());
+            }
+            this.augmentations = new HashMap<>(bay.augmentations);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CombineKey that = (CombineKey) o;
+            return location == that.location &&
+                    rear == that.rear &&
+                    weapons.equals(that.weapons) &&
+                    ammoShots.equals(that.ammoShots) &&
+                    augmentations.equals(that.augmentations);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(location, rear, weapons, ammoShots, augmentations);
+        }
+    }
+
     private boolean checkOpposingSide(int loc1, int loc2, boolean rear1, boolean rear2) {
         switch (loc1) {
             // Jumpship.LOC_FLS and Jumpship.LOC_FRS are the same indices as
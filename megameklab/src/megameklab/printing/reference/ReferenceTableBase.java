@@ -20,6 +20,7 @@ import org.apache.batik.util.SVGConstants;
 import org.w3c.dom.Element;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicStampedReference;
 
 import static megameklab.printing.PrintRecordSheet.svgNS;
 
@@ -33,6 +34,17 @@ abstract public class ReferenceTableBase {
     private static final double STROKE_WIDTH = 1.6;
     static final double PADDING = 3.0;
 
+    /**
+     * The font family style declaration, cached because it is needed for every cell. The stamp is
+     * changed with the font, so a declaration built from the old font on another thread is not stored.
+     */
+    private static final AtomicStampedReference<String> fontFamilyStyle = new AtomicStampedReference<>(null, 0);
+
+    static {
+        CConfig.addChangeListener(CConfig.RS_FONT,
+                evt -> fontFamilyStyle.set(null, fontFamilyStyle.getStamp() + 1));
+    }
+
     protected final ResourceBundle bundle = ResourceBundle.getBundle(getClass().getName(),
             new EncodeControl());
     final PrintRecordSheet sheet;
@@ -125,9 +137,15 @@ abstract public class ReferenceTableBase {
     }
 
     protected String formatStyle(float fontSize, String fontWeight) {
+        final int[] stamp = new int[1];
+        String fontFamily = fontFamilyStyle.get(stamp);
+        if (fontFamily == null) {
+            fontFamily = SVGConstants.CSS_FONT_FAMILY_PROPERTY + ":"
+                    + CConfig.getParam(CConfig.RS_FONT, PrintRecordSheet.DEFAULT_TYPEFACE);
+            fontFamilyStyle.compareAndSet(null, fontFamily, stamp[0], stamp[0]);
+        }
         final StringJoiner sj = new StringJoiner(";");
-        sj.add(SVGConstants.CSS_FONT_FAMILY_PROPERTY + ":"
-                + CConfig.getParam(CConfig.RS_FONT, PrintRecordSheet.DEFAULT_TYPEFACE));
+        sj.add(fontFamily);
         sj.add(SVGConstants.CSS_FONT_SIZE_PROPERTY + ":" + fontSize + "px");
         sj.add(SVGConstants.CSS_FONT_WEIGHT_PROPERTY + ":" + fontWeight);
         return sj.toString();
@@ -23,7 +23,10 @@ import megamek.common.preference.PreferenceManager;
 import megameklab.MMLConstants;
 import megameklab.MegaMekLab;
 import megameklab.util.CConfig;
+import megameklab.util.PerformanceLog;
 import megameklab.ui.util.RefreshListener;
+import megameklab.util.UnitFileWriter;
+import megameklab.util.UnitValuationCache;
 
 import javax.swing.*;
 import javax.swing.UIManager.LookAndFeelInfo;
@@ -35,6 +38,11 @@ public abstract class MegaMekLabMainUI extends JFrame implements RefreshListener
 
     private Entity entity = null;
     protected MenuBar menubarcreator;
+    private final Timer autosaveTimer;
+    /** Whether the unit may have changed since it was last recorded in the autosave journal */
+    private boolean changedSinceAutosave = true;
+    /** Whether the cached values for the unit have been cleared while handling the current event */
+    private boolean invalidatedForEvent = false;
     
     public MegaMekLabMainUI() {
         setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
@@ -46,15 +54,63 @@ public abstract class MegaMekLabMainUI extends JFrame implements RefreshListener
         });
         setResizable(true);
         setExtendedState(CConfig.getIntParam("WINDOWSTATE"));
+        autosaveTimer = new Timer(Math.max(1, CConfig.getIntParam(CConfig.AUTOSAVE_INTERVAL, 60)) * 1000,
+                e -> autosave());
     }
 
     protected void finishSetup() {
+        final String name = getClass().getSimpleName();
+        long start = System.nanoTime();
         menubarcreator = new MenuBar(this);
         setJMenuBar(menubarcreator);
+        PerformanceLog.record(PerformanceLog.MAIN_UI, name + " menu", start);
+        start = System.nanoTime();
         reloadTabs();
+        PerformanceLog.record(PerformanceLog.MAIN_UI, name + " tabs", start);
+        start = System.nanoTime();
         setSizeAndLocation();
         setVisible(true);
+        PerformanceLog.record(PerformanceLog.MAIN_UI, name + " layout", start);
+        start = System.nanoTime();
         refreshAll();
+        PerformanceLog.record(PerformanceLog.MAIN_UI, name + " refresh", start);
+        if (CConfig.getIntParam(CConfig.AUTOSAVE_INTERVAL, 60) > 0) {
+            autosaveTimer.start();
+        }
+    }
+
+    /**
+     * Records the unit in the autosave journal if it has changed since the last time. The file is
+     * written in the background.
+     */
+    private void autosave() {
+        if ((getEntity() != null) && changedSinceAutosave) {
+            changedSinceAutosave = false;
+            UnitFileWriter.journal(getEntity());
+        }
+    }
+
+    /**
+     * Called from the refresh methods when the unit may have changed. Clears the cached values for the
+     * unit and marks it for the next autosave. An edit usually calls several refresh methods in turn,
+     * so on the event dispatch thread the values are only cleared once for each event, and the refreshes
+     * share the values calculated after the edit.
+     */
+    protected void unitChanged() {
+        changedSinceAutosave = true;
+        if (!SwingUtilities.isEventDispatchThread()) {
+            UnitValuationCache.invalidate(getEntity());
+        } else if (!invalidatedForEvent) {
+            invalidatedForEvent = true;
+            UnitValuationCache.invalidate(getEntity());
+            SwingUtilities.invokeLater(() -> invalidatedForEvent = false);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        autosaveTimer.stop();
+        super.dispose();
     }
     
     protected void setSizeAndLocation() {
@@ -110,8 +166,10 @@ public abstract class MegaMekLabMainUI extends JFrame implements RefreshListener
         if (response == JOptionPane.YES_OPTION) {
             CConfig.setParam("WINDOWSTATE", Integer.toString(getExtendedState()));
             CConfig.setParam(CConfig.CONFIG_PLAF, UIManager.getLookAndFeel().getClass().getName());
-            CConfig.saveConfig();
+            CConfig.flushConfig();
             PreferenceManager.getInstance().save();
+            autosaveTimer.stop();
+            UnitFileWriter.close();
 
             MegaMek.getMMPreferences().saveToFile(MMLConstants.MM_PREFERENCES_FILE);
             MegaMekLab.getMMLPreferences().saveToFile(MMLConstants.MML_PREFERENCES_FILE);
@@ -141,6 +199,7 @@ public abstract class MegaMekLabMainUI extends JFrame implements RefreshListener
 
     public void setEntity(Entity en) {
         entity = en;
+        changedSinceAutosave = true;
     }
 
     public Entity getEntity() {
@@ -18,7 +18,6 @@ import megamek.client.ui.swing.UnitLoadingDialog;
 import megamek.common.*;
 import megamek.common.annotations.Nullable;
 import megamek.common.loaders.BLKFile;
-import megamek.common.templates.TROView;
 import megamek.common.util.EncodeControl;
 import megameklab.MMLConstants;
 import megameklab.ui.dialog.LoadingDialog;
@@ -26,6 +25,10 @@ import megameklab.ui.dialog.MegaMekLabUnitSelectorDialog;
 import megameklab.ui.dialog.settings.SettingsDialog;
 import megameklab.util.CConfig;
 import megameklab.util.ImageHelper;
+import megameklab.util.ParsedEntityCache;
+import megameklab.util.PerformanceLog;
+import megameklab.util.RecentUnitSnapshots;
+import megameklab.util.UnitFileWriter;
 import megameklab.util.UnitPrintManager;
 import megameklab.util.UnitUtil;
 import org.apache.logging.log4j.LogManager;
@@ -45,6 +48,8 @@ import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.PrintStream;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static java.awt.event.KeyEvent.VK_C;
 
@@ -71,6 +76,12 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
         JMenu help = new JMenu(resourceMap.getString("menu.help"));
         help.add(item);
 
+        item = new JMenuItem();
+        item.setText(resourceMap.getString("menu.help.performance"));
+        item.setMnemonic(KeyEvent.VK_P);
+        item.addActionListener(e -> jMenuHelpPerformance_actionPerformed());
+        help.add(item);
+
         item = new JMenuItem();
         item.setText(resourceMap.getString("menu.help.recordSheetImages"));
         item.setMnemonic(KeyEvent.VK_R);
@@ -371,6 +382,7 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
 
         fileMenu.add(UnitPrintManager.printMenu(parentFrame));
         fileMenu.add(UnitPrintManager.exportMenu(parentFrame));
+        fileMenu.add(UnitPrintManager.exportImageMenu(parentFrame));
 
         item = new JMenuItem();
         item.setText(resourceMap.getString("menu.file.save"));
@@ -582,7 +594,7 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
         }
 
         try {
-            UnitUtil.showBVCalculations(parentFrame, new MechFileParser(unitFile).getEntity());
+            UnitUtil.showBVCalculations(parentFrame, ParsedEntityCache.load(unitFile));
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(parentFrame,
                     String.format(resourceMap.getString("message.invalidUnit.format"),
@@ -596,7 +608,7 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
         if (unitFile == null) return;
 
         try {
-            Entity tempEntity = new MechFileParser(unitFile).getEntity();
+            Entity tempEntity = ParsedEntityCache.load(unitFile);
             UnitUtil.showValidation(tempEntity, parentFrame);
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(parentFrame,
@@ -630,7 +642,7 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
         }
 
         try {
-            UnitUtil.showUnitCostBreakDown(parentFrame, new MechFileParser(unitFile).getEntity());
+            UnitUtil.showUnitCostBreakDown(parentFrame, ParsedEntityCache.load(unitFile));
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(parentFrame,
                     String.format(resourceMap.getString("message.invalidUnit.format"),
@@ -645,7 +657,7 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
         }
 
         try {
-            Entity tempEntity = new MechFileParser(unitFile).getEntity();
+            Entity tempEntity = ParsedEntityCache.load(unitFile);
             UnitUtil.showUnitWeightBreakDown(tempEntity, parentFrame);
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(parentFrame,
@@ -661,7 +673,7 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
         }
 
         try {
-            Entity tempEntity = new MechFileParser(unitFile).getEntity();
+            Entity tempEntity = ParsedEntityCache.load(unitFile);
             UnitUtil.showUnitSpecs(tempEntity, parentFrame);
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(parentFrame,
@@ -677,7 +689,7 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
         }
 
         try {
-            Entity tempEntity = new MechFileParser(unitFile).getEntity();
+            Entity tempEntity = ParsedEntityCache.load(unitFile);
 
             if (UnitUtil.validateUnit(parentFrame.getEntity()).trim().length() > 0) {
                 JOptionPane.showMessageDialog(parentFrame,
@@ -779,6 +791,30 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
         dlg.setVisible(true);
     }
 
+    // Show the timings recorded for startup and loading units in this session
+    private void jMenuHelpPerformance_actionPerformed() {
+        JDialog dlg = new JDialog(parentFrame, resourceMap.getString("menu.help.performance.title"));
+
+        JTextArea report = new JTextArea();
+        report.setEditable(false);
+        report.setFont(new Font(Font.MONOSPACED, Font.PLAIN, report.getFont().getSize()));
+        report.setText(PerformanceLog.getReport() + "\n"
+                + String.format(resourceMap.getString("menu.help.performance.entityCache.format"),
+                        ParsedEntityCache.getStatistics()) + "\n"
+                + String.format(resourceMap.getString("menu.help.performance.history.format"),
+                        new File(PerformanceLog.HISTORY_FILE).getAbsolutePath()));
+        report.setCaretPosition(0);
+
+        JScrollPane scrollPane = new JScrollPane(report);
+        scrollPane.setPreferredSize(new Dimension(600, 400));
+        dlg.getContentPane().add(scrollPane);
+
+        dlg.setLocationRelativeTo(parentFrame);
+        dlg.setModal(true);
+        dlg.pack();
+        dlg.setVisible(true);
+    }
+
     // Show how to create fluff images for Record Sheets
     private void jMenuHelpFluff_actionPerformed() {
 
@@ -969,27 +1005,7 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
                 return;
             }
         }
-        try {
-            if (parentFrame.getEntity() instanceof Mech) {
-                FileOutputStream out = new FileOutputStream(filePathName);
-                PrintStream p = new PrintStream(out);
-
-                p.println(((Mech) parentFrame.getEntity()).getMtf());
-                p.close();
-                out.close();
-            } else {
-                BLKFile.encode(filePathName, parentFrame.getEntity());
-            }
-            CConfig.updateSaveFiles(filePathName);
-        } catch (Exception ex) {
-            LogManager.getLogger().error("", ex);
-        }
-
-        JOptionPane.showMessageDialog(parentFrame,
-                String.format(resourceMap.getString("dialog.saveAs.message.format"),
-                        parentFrame.getEntity().getChassis(),
-                        parentFrame.getEntity().getModel(), filePathName));
-
+        saveUnit(filePathName);
     }
 
     private void jMenuSaveAsEntity_actionPerformed(ActionEvent event) {
@@ -1018,36 +1034,51 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
             return;
         }
 
-        try {
-            if (parentFrame.getEntity() instanceof Mech) {
-                FileOutputStream out = new FileOutputStream(filePathName);
-                PrintStream p = new PrintStream(out);
+        saveUnit(filePathName);
+    }
 
-                p.println(((Mech) parentFrame.getEntity()).getMtf());
-                p.close();
-                out.close();
-            } else {
-                BLKFile.encode(filePathName, parentFrame.getEntity());
-            }
-            CConfig.updateSaveFiles(filePathName);
+    /**
+     * Writes the unit to a file in the background, then updates the recent files list and reports
+     * the result.
+     *
+     * @param filePathName The file to write
+     */
+    private void saveUnit(String filePathName) {
+        final Entity entity = parentFrame.getEntity();
+        final String chassis = entity.getChassis();
+        final String model = entity.getModel();
+        final CompletableFuture<Void> saved;
+        try {
+            saved = UnitFileWriter.save(entity, new File(filePathName));
         } catch (Exception ex) {
             LogManager.getLogger().error("", ex);
+            JOptionPane.showMessageDialog(parentFrame,
+                    String.format(resourceMap.getString("dialog.saveAs.error.format"), chassis, model,
+                            filePathName, ex.getMessage()),
+                    resourceMap.getString("dialog.saveAs.title"), JOptionPane.ERROR_MESSAGE);
+            return;
         }
-
-        JOptionPane.showMessageDialog(parentFrame,
-                String.format(resourceMap.getString("dialog.saveAs.message.format"),
-                        parentFrame.getEntity().getChassis(),
-                        parentFrame.getEntity().getModel(), filePathName));
+        saved.whenComplete((ignored, ex) -> SwingUtilities.invokeLater(() -> {
+            if (ex == null) {
+                CConfig.updateSaveFiles(filePathName);
+                JOptionPane.showMessageDialog(parentFrame,
+                        String.format(resourceMap.getString("dialog.saveAs.message.format"),
+                                chassis, model, filePathName));
+            } else {
+                final Throwable cause = (ex instanceof CompletionException) && (ex.getCause() != null)
+                        ? ex.getCause() : ex;
+                LogManager.getLogger().error("", cause);
+                JOptionPane.showMessageDialog(parentFrame,
+                        String.format(resourceMap.getString("dialog.saveAs.error.format"), chassis, model,
+                                filePathName, cause.getMessage()),
+                        resourceMap.getString("dialog.saveAs.title"), JOptionPane.ERROR_MESSAGE);
+            }
+        }));
     }
     
     private String entitySummaryText(boolean html) {
-        if (CConfig.getBooleanParam(CConfig.MISC_SUMMARY_FORMAT_TRO)) {
-            TROView view = TROView.createView(parentFrame.getEntity(), html);
-            return view.processTemplate();
-        } else {
-            MechView view = new MechView(parentFrame.getEntity(), !html, false, html);
-            return view.getMechReadout();
-        }
+        return UnitUtil.getSummaryText(parentFrame.getEntity(), html,
+                CConfig.getBooleanParam(CConfig.MISC_SUMMARY_FORMAT_TRO));
     }
 
     private void exportSummary(boolean html) {
@@ -1190,18 +1221,20 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
     }
 
     private void loadUnitFromFile(File unitFile) {
+        final long start = System.nanoTime();
         try {
-            Entity tempEntity = new MechFileParser(unitFile).getEntity();
-
+            final RecentUnitSnapshots.LoadedUnit loaded = RecentUnitSnapshots.load(unitFile);
 
-            if (null == tempEntity) {
+            if (null == loaded) {
                 return;
             }
+            Entity tempEntity = loaded.getEntity();
 
-            if (UnitUtil.validateUnit(tempEntity).trim().length() > 0) {
+            // Validated as parsed, before the fix-ups for loaded units corrected anything
+            if (!loaded.getValidation().isEmpty()) {
                 JOptionPane.showMessageDialog(parentFrame, String.format(
                         resourceMap.getString("message.invalidUnit.format"),
-                                UnitUtil.validateUnit(tempEntity)));
+                                loaded.getValidation()));
             }
 
             if (tempEntity.getEntityType() != parentFrame.getEntity().getEntityType()) {
@@ -1243,6 +1276,7 @@ public class MenuBar extends JMenuBar implements ClipboardOwner {
         reload();
         refresh();
         parentFrame.setVisible(true);
+        PerformanceLog.record(PerformanceLog.UNIT_LOAD, unitFile.getName(), start);
     }
 
     private void refresh() {
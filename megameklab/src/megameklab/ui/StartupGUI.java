@@ -25,8 +25,10 @@ import megamek.common.util.ImageUtil;
 import megamek.common.util.fileUtils.MegaMekFile;
 import megameklab.MMLConstants;
 import megameklab.MegaMekLab;
+import megameklab.StartupOrchestrator;
 import megameklab.ui.dialog.LoadingDialog;
 import megameklab.ui.dialog.MegaMekLabUnitSelectorDialog;
+import megameklab.util.UnitFileWriter;
 import megameklab.util.UnitUtil;
 import org.apache.logging.log4j.LogManager;
 
@@ -36,8 +38,12 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * A startup splash screen for MegaMekLab
@@ -57,9 +63,19 @@ public class StartupGUI extends JPanel {
     }
     
     private final ResourceBundle resourceMap = ResourceBundle.getBundle("megameklab.resources.Splash", new EncodeControl());
+
+    /** Shows the phases of startup that are still running in the background */
+    private final JProgressBar startupProgress = new JProgressBar(0, StartupOrchestrator.Phase.values().length);
+    private final Consumer<StartupOrchestrator.Phase> phaseListener =
+            phase -> SwingUtilities.invokeLater(this::updateStartupProgress);
+    /** Whether the unit selector is waiting for the equipment to load */
+    private boolean awaitingEquipment = false;
     
     public StartupGUI() {       
         initComponents();
+        StartupOrchestrator.addPhaseListener(phaseListener);
+        SwingUtilities.invokeLater(this::updateStartupProgress);
+        SwingUtilities.invokeLater(this::recoverAutosave);
     }
 
     private void initComponents() {
@@ -221,6 +237,9 @@ public class StartupGUI extends JPanel {
         btnNewProto.setPreferredSize(minButtonDim);
         btnQuit.setMinimumSize(minButtonDim);
         btnQuit.setPreferredSize(minButtonDim);
+        startupProgress.setStringPainted(true);
+        startupProgress.setMinimumSize(minButtonDim);
+        startupProgress.setPreferredSize(minButtonDim);
         
         // layout
         setLayout(new GridBagLayout());
@@ -233,7 +252,7 @@ public class StartupGUI extends JPanel {
         c.fill = GridBagConstraints.NONE;
         c.weightx = 0.0; c.weighty = 0.0;
         c.gridwidth = 1;
-        c.gridheight = 12;
+        c.gridheight = 13;
         add(splash, c);
         // Right Column
         c.insets = new Insets(2, 2, 2, 10);
@@ -265,6 +284,8 @@ public class StartupGUI extends JPanel {
         add(btnNewLargeCraft, c);
         c.gridy++;
         add(btnQuit, c);
+        c.gridy++;
+        add(startupProgress, c);
         
         frame.setResizable(false);
         frame.getContentPane().setLayout(new BorderLayout());
@@ -305,6 +326,26 @@ public class StartupGUI extends JPanel {
         }
      }
 
+    /**
+     * Shows which phases of startup are still running, and hides the progress bar when all are done
+     */
+    private void updateStartupProgress() {
+        final List<String> running = new ArrayList<>();
+        for (StartupOrchestrator.Phase phase : StartupOrchestrator.Phase.values()) {
+            if (!StartupOrchestrator.isDone(phase)) {
+                running.add(resourceMap.getString("startup.phase." + phase.name()));
+            }
+        }
+        if (running.isEmpty()) {
+            StartupOrchestrator.removePhaseListener(phaseListener);
+            startupProgress.setVisible(false);
+        } else {
+            startupProgress.setValue(startupProgress.getMaximum() - running.size());
+            startupProgress.setString(String.format(resourceMap.getString("startup.loading.format"),
+                    String.join(", ", running)));
+        }
+    }
+
     /**
      * This function will create a new mainUI frame (via the loading dialog) for the 
      * given unit type and get rid of the splash screen
@@ -320,8 +361,33 @@ public class StartupGUI extends JPanel {
         ld.setVisible(true);
     }
     
+    /**
+     * Shows the unit selector once the equipment has loaded. The wait is done in the background, with
+     * the startup progress showing what is still loading.
+     */
     private void loadUnit() {
-        EquipmentType.initializeTypes();
+        if (awaitingEquipment) {
+            return;
+        }
+        awaitingEquipment = true;
+        frame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                StartupOrchestrator.await(StartupOrchestrator.Phase.EQUIPMENT);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                awaitingEquipment = false;
+                frame.setCursor(Cursor.getDefaultCursor());
+                selectUnit();
+            }
+        }.execute();
+    }
+
+    private void selectUnit() {
         UnitLoadingDialog unitLoadingDialog = new UnitLoadingDialog(frame);
         unitLoadingDialog.setVisible(true);
         MegaMekLabUnitSelectorDialog viewer = new MegaMekLabUnitSelectorDialog(frame, unitLoadingDialog);
@@ -333,7 +399,56 @@ public class StartupGUI extends JPanel {
         if (null == newUnit) {
             return;
         }
+        openUnit(newUnit);
+    }
+
+    /**
+     * Offers to open the unit from the autosave journal if the previous session did not exit normally.
+     * The journal is parsed in the background once the equipment has loaded, and discarded if the user
+     * declines.
+     */
+    private void recoverAutosave() {
+        final File journal = UnitFileWriter.getJournal();
+        if (null == journal) {
+            return;
+        }
+        new SwingWorker<Entity, Void>() {
+            @Override
+            protected Entity doInBackground() throws Exception {
+                // The startup screen is shown while the equipment is still loading
+                StartupOrchestrator.await(StartupOrchestrator.Phase.EQUIPMENT, StartupOrchestrator.Phase.QUIRKS,
+                        StartupOrchestrator.Phase.FONTS);
+                return new MechFileParser(journal).getEntity();
+            }
 
+            @Override
+            protected void done() {
+                try {
+                    offerRecovery(get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    LogManager.getLogger().error("Could not read autosave " + journal, ex.getCause());
+                    UnitFileWriter.setAsideJournal(journal);
+                }
+            }
+        }.execute();
+    }
+
+    private void offerRecovery(Entity recovered) {
+        int response = JOptionPane.showConfirmDialog(frame,
+                String.format(resourceMap.getString("message.recoverAutosave.format"),
+                        recovered.getChassis(), recovered.getModel()),
+                resourceMap.getString("message.recoverAutosave.title"),
+                JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (response == JOptionPane.YES_OPTION) {
+            openUnit(recovered);
+        } else {
+            UnitFileWriter.discardJournal();
+        }
+    }
+
+    private void openUnit(Entity newUnit) {
         if (UnitUtil.validateUnit(newUnit).trim().length() > 0) {
             JOptionPane.showMessageDialog(frame, String.format(
                     resourceMap.getString("message.invalidUnit.format"),
@@ -360,7 +475,6 @@ public class StartupGUI extends JPanel {
         } else if ((newUnit instanceof Tank)
                 && !(newUnit instanceof GunEmplacement)) {
             newUnit(Entity.ETYPE_TANK, false, false, newUnit);
-        } 
-        return;
+        }
     }
 }
@@ -24,10 +24,10 @@ import megameklab.ui.util.CritCellUtil;
 import megameklab.ui.util.IView;
 import megameklab.ui.util.BAASBMDropTargetCriticalList;
 import megameklab.ui.util.RefreshListener;
+import megameklab.util.EntityVerifierOptions;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
-import java.io.File;
 import java.util.Vector;
 
 /**
@@ -196,8 +196,7 @@ public class BACriticalView extends IView {
             rightArmPanel.setVisible(!isQuad);
             turretPanel.setVisible(isQuad && (getBattleArmor().getTurretCapacity() > 0));
             
-            EntityVerifier entityVerifier = EntityVerifier.getInstance(new File(
-                    "data/mechfiles/UnitVerifierOptions.xml"));
+            EntityVerifier entityVerifier = EntityVerifierOptions.get();
             TestBattleArmor testBA = new TestBattleArmor(getBattleArmor(), entityVerifier.baOption, null);
             
             String weightTxt = "Weight: "
@@ -100,6 +100,7 @@ public class BAMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshAll() {
+        unitChanged();
         statusbar.refresh();
         structureTab.refresh();
         refreshEquipment();
@@ -136,6 +137,7 @@ public class BAMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshStatus() {
+        unitChanged();
         statusbar.refresh();
     }
 
@@ -150,11 +152,13 @@ public class BAMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshPreview() {
+        unitChanged();
         structureTab.refreshPreview();
     }
     
     @Override
     public void refreshSummary() {
+        unitChanged();
     }
     
     @Override
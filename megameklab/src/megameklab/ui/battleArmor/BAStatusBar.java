@@ -18,12 +18,13 @@ package megameklab.ui.battleArmor;
 
 import megamek.client.ui.WrapLayout;
 import megamek.common.BattleArmor;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestBattleArmor;
 import megameklab.ui.util.ITab;
 import megameklab.ui.util.RefreshListener;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.ImageHelper;
 import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -41,8 +42,6 @@ public class BAStatusBar extends ITab {
     private final JLabel tons = new JLabel();
     private final JLabel cost = new JLabel();
     private final JLabel invalid = new JLabel();
-    private final EntityVerifier entityVerifier = EntityVerifier.getInstance(new File(
-            "data/mechfiles/UnitVerifierOptions.xml"));
     private final DecimalFormat formatter;
     private final JFrame parentFrame;
 
@@ -83,7 +82,7 @@ public class BAStatusBar extends ITab {
     }
 
     public JPanel bvPanel() {
-        final int bv = getBattleArmor().calculateBattleValue();
+        final int bv = UnitValuationCache.getBattleValue(getBattleArmor());
         bvLabel.setText("BV: " + bv);
         bvPanel.add(bvLabel);
 
@@ -102,9 +101,9 @@ public class BAStatusBar extends ITab {
         final int jump = getBattleArmor().getOriginalJumpMP();
         final double maxKilos = getBattleArmor().getTrooperWeight() * 1000;
         double currentKilos;
-        final int bv = getBattleArmor().calculateBattleValue();
+        final int bv = UnitValuationCache.getBattleValue(getBattleArmor());
 
-        TestBattleArmor testBA = new TestBattleArmor(getBattleArmor(), entityVerifier.baOption,
+        TestBattleArmor testBA = new TestBattleArmor(getBattleArmor(), EntityVerifierOptions.get().baOption,
                 null);
         currentKilos = testBA.calculateWeight(BattleArmor.LOC_SQUAD);
         currentKilos += UnitUtil.getUnallocatedAmmoTonnage(getBattleArmor());
@@ -125,9 +124,9 @@ public class BAStatusBar extends ITab {
         move.setText("Movement: " + walk + "/" + jump);
         move.setToolTipText("Walk/Jump MP");
 
-        cost.setText("Dry Cost: " + formatter.format(Math.round(getEntity().getCost(true))) + " C-bills");
+        cost.setText("Dry Cost: " + formatter.format(Math.round(UnitValuationCache.getDryCost(getEntity()))) + " C-bills");
         cost.setToolTipText("The dry cost of the unit (without ammo). The unit's full cost is "
-                + formatter.format(Math.round(getEntity().getCost(false))) + " C-bills.");
+                + formatter.format(Math.round(UnitValuationCache.getFullCost(getEntity()))) + " C-bills.");
 
         StringBuffer sb = new StringBuffer();
         invalid.setVisible(!testBA.correctEntity(sb));
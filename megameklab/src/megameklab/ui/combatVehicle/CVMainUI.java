@@ -85,6 +85,7 @@ public class CVMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshAll() {
+        unitChanged();
         structureTab.refresh();
         equipmentTab.refresh();
         buildTab.refresh();
@@ -122,6 +123,7 @@ public class CVMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshStatus() {
+        unitChanged();
         statusbar.refresh();
     }
 
@@ -200,11 +202,13 @@ public class CVMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshPreview() {
+        unitChanged();
         previewTab.refresh();
     }
 
     @Override
     public void refreshSummary() {
+        unitChanged();
         structureTab.refreshSummary();
     }
 
@@ -16,13 +16,14 @@
 package megameklab.ui.combatVehicle;
 
 import megamek.common.Tank;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestTank;
 import megameklab.ui.util.ITab;
 import megameklab.ui.util.RefreshListener;
 import megamek.client.ui.WrapLayout;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.ImageHelper;
 import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -41,8 +42,6 @@ public class CVStatusBar extends ITab {
     private final JLabel slots = new JLabel();
     private final JLabel cost = new JLabel();
     private final JLabel invalid = new JLabel();
-    private final EntityVerifier entityVerifier = EntityVerifier.getInstance(new File(
-            "data/mechfiles/UnitVerifierOptions.xml"));
     private TestTank testEntity;
     private final DecimalFormat formatter;
     private final JFrame parentFrame;
@@ -54,7 +53,7 @@ public class CVStatusBar extends ITab {
         parentFrame = parent;
 
         formatter = new DecimalFormat();
-        testEntity = new TestTank((Tank) parent.getEntity(), entityVerifier.tankOption,
+        testEntity = new TestTank((Tank) parent.getEntity(), EntityVerifierOptions.get().tankOption,
                 null);
         JButton showEquipmentDatabase = new JButton("Show Equipment Database");
         showEquipmentDatabase.addActionListener(evt -> parent.getFloatingEquipmentDatabase().setVisible(true));
@@ -95,7 +94,7 @@ public class CVStatusBar extends ITab {
     }
 
     public JLabel bvLabel() {
-        int bv = getTank().calculateBattleValue();
+        int bv = UnitValuationCache.getBattleValue(getTank());
         bvLabel.setText("BV: " + bv);
 
         return bvLabel;
@@ -126,9 +125,9 @@ public class CVStatusBar extends ITab {
         int jump = getTank().getOriginalJumpMP();
         double tonnage = getTank().getWeight();
         double currentTonnage;
-        int bv = getTank().calculateBattleValue();
+        int bv = UnitValuationCache.getBattleValue(getTank());
 
-        testEntity = new TestTank(getTank(), entityVerifier.tankOption,
+        testEntity = new TestTank(getTank(), EntityVerifierOptions.get().tankOption,
                 null);
 
         currentTonnage = testEntity.calculateWeight();
@@ -154,9 +153,9 @@ public class CVStatusBar extends ITab {
         bvLabel.setText("BV: " + bv);
         bvLabel.setToolTipText("BV 2.0");
 
-        cost.setText("Dry Cost: " + formatter.format(Math.round(getEntity().getCost(true))) + " C-bills");
+        cost.setText("Dry Cost: " + formatter.format(Math.round(UnitValuationCache.getDryCost(getEntity()))) + " C-bills");
         cost.setToolTipText("The dry cost of the unit (without ammo). The unit's full cost is "
-                + formatter.format(Math.round(getEntity().getCost(false))) + " C-bills.");
+                + formatter.format(Math.round(UnitValuationCache.getFullCost(getEntity()))) + " C-bills.");
 
         move.setText("Movement: " + walk + "/" + run + "/" + jump);
         move.setToolTipText("Walk/Run/Jump MP");
@@ -19,7 +19,6 @@ import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.io.File;
 import java.util.Vector;
 
 import javax.swing.BorderFactory;
@@ -34,10 +33,10 @@ import megamek.common.EquipmentType;
 import megamek.common.MiscType;
 import megamek.common.Mounted;
 import megamek.common.TechConstants;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestTank;
 import megameklab.ui.EntitySource;
 import megameklab.ui.util.IView;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.UnitUtil;
 
 public class CVSummaryView extends IView{
@@ -74,7 +73,6 @@ public class CVSummaryView extends IView{
     
     
 
-    private EntityVerifier entityVerifier = EntityVerifier.getInstance(new File("data/mechfiles/UnitVerifierOptions.xml"));
 
     public CVSummaryView(EntitySource eSource) {
         super(eSource);
@@ -285,7 +283,7 @@ public class CVSummaryView extends IView{
 
     public void refresh() {
 
-        TestTank testTank = new TestTank(getTank(), entityVerifier.mechOption, null);
+        TestTank testTank = new TestTank(getTank(), EntityVerifierOptions.get().mechOption, null);
 
         txtStructTon.setText(Double.toString(testTank.getWeightStructure()));
         txtEngineTon.setText(Double.toString(testTank.getWeightEngine()));        
@@ -0,0 +1,151 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.ui.dialog;
+
+import megamek.common.util.EncodeControl;
+import megameklab.printing.SplitPDFExporter;
+import org.apache.logging.log4j.LogManager;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.ResourceBundle;
+
+/**
+ * Shows the outcome of exporting a separate PDF for each unit, with the output file, size and time
+ * for each one and the reason for any failures. The results can be saved as a CSV report.
+ */
+public class ExportResultsDialog extends AbstractMMLDialog {
+
+    private final ResourceBundle resourceMap = ResourceBundle.getBundle("megameklab.resources.Dialogs",
+            new EncodeControl());
+    private final List<SplitPDFExporter.Result> results;
+    private final File output;
+
+    public ExportResultsDialog(JFrame parent, List<SplitPDFExporter.Result> results, File output) {
+        super(parent, "ExportResultsDialog", "ExportResultsDialog.title");
+        this.results = results;
+        this.output = output;
+        initialize();
+    }
+
+    @Override
+    protected Container createCenterPane() {
+        long failures = results.stream().filter(r -> !r.isSuccess()).count();
+        long bytes = results.stream().mapToLong(SplitPDFExporter.Result::getBytes).sum();
+        JLabel summary = new JLabel(MessageFormat.format(resourceMap.getString("ExportResultsDialog.summary"),
+                results.size() - failures, failures, bytes / 1024, output.getPath()));
+        summary.setBorder(new EmptyBorder(0, 0, 10, 0));
+
+        JTable table = new JTable(new ResultsModel());
+        table.setAutoCreateRowSorter(true);
+        table.setFillsViewportHeight(true);
+        table.setPreferredScrollableViewportSize(new Dimension(700, 300));
+
+        JButton saveButton = new JButton(resourceMap.getString("ExportResultsDialog.saveReport.text"));
+        saveButton.addActionListener(e -> saveReport());
+        JButton closeButton = new JButton(resourceMap.getString("ExportResultsDialog.close.text"));
+        closeButton.addActionListener(e -> setVisible(false));
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(saveButton);
+        buttonPanel.add(closeButton);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        panel.add(summary, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private void saveReport() {
+        JFileChooser f = new JFileChooser(output.getParentFile());
+        f.setDialogTitle(resourceMap.getString("ExportResultsDialog.saveReport.text"));
+        f.setFileFilter(new FileNameExtensionFilter("CSV Files", "csv"));
+        f.setSelectedFile(new File("export-report.csv"));
+        if (f.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = f.getSelectedFile();
+        if (!file.getName().toLowerCase().endsWith(".csv")) {
+            file = new File(file.getParentFile(), file.getName() + ".csv");
+        }
+        try {
+            SplitPDFExporter.writeReport(results, file);
+        } catch (IOException ex) {
+            LogManager.getLogger().error("", ex);
+            JOptionPane.showMessageDialog(this, ex.getMessage(),
+                    "A problem has occurred", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private class ResultsModel extends AbstractTableModel {
+        private final String[] columns = {
+                resourceMap.getString("ExportResultsDialog.colUnit"),
+                resourceMap.getString("ExportResultsDialog.colSource"),
+                resourceMap.getString("ExportResultsDialog.colFile"),
+                resourceMap.getString("ExportResultsDialog.colPages"),
+                resourceMap.getString("ExportResultsDialog.colSize"),
+                resourceMap.getString("ExportResultsDialog.colTime"),
+                resourceMap.getString("ExportResultsDialog.colStatus")
+        };
+
+        @Override
+        public int getRowCount() {
+            return results.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return ((column >= 3) && (column <= 5)) ? Long.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            SplitPDFExporter.Result result = results.get(row);
+            switch (column) {
+                case 0:
+                    return result.getUnitName();
+                case 1:
+                    return result.getSource().getName();
+                case 2:
+                    return (result.getFileName() == null) ? "" : result.getFileName();
+                case 3:
+                    return (long) result.getPages();
+                case 4:
+                    return (result.getBytes() + 1023) / 1024;
+                case 5:
+                    return result.getMillis();
+                default:
+                    return result.isSuccess() ? resourceMap.getString("ExportResultsDialog.ok") : result.getError();
+            }
+        }
+    }
+}
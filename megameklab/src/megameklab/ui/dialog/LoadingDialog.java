@@ -16,6 +16,7 @@ package megameklab.ui.dialog;
 import megamek.client.ui.swing.util.UIUtil;
 import megamek.common.Entity;
 import megameklab.MegaMekLab;
+import megameklab.StartupOrchestrator;
 import megameklab.ui.MegaMekLabMainUI;
 import megameklab.ui.largeAero.DSMainUI;
 import megameklab.ui.largeAero.WSMainUI;
@@ -26,6 +27,7 @@ import megameklab.ui.fighterAero.ASMainUI;
 import megameklab.ui.mek.BMMainUI;
 import megameklab.ui.protoMek.PMMainUI;
 import megameklab.ui.supportVehicle.SVMainUI;
+import megameklab.util.PerformanceLog;
 import megameklab.util.UnitUtil;
 import org.apache.logging.log4j.LogManager;
 
@@ -91,6 +93,10 @@ public class LoadingDialog extends JDialog {
 
         @Override
         public Void doInBackground() {
+            // The user can start a new unit while the startup screen is still loading
+            StartupOrchestrator.await(StartupOrchestrator.Phase.EQUIPMENT, StartupOrchestrator.Phase.QUIRKS,
+                    StartupOrchestrator.Phase.FONTS);
+            final long start = System.nanoTime();
             MegaMekLabMainUI newUI;
             if (type == Entity.ETYPE_TANK) {
                 newUI = new CVMainUI();
@@ -111,15 +117,18 @@ public class LoadingDialog extends JDialog {
             } else {
                 newUI = new BMMainUI(primitive, industrial);
             }
+            PerformanceLog.record(PerformanceLog.MAIN_UI, newUI.getClass().getSimpleName(), start);
             setVisible(false);
             //update if we had a specific unit to load
             if (null != newUnit) {
+                final long loadStart = System.nanoTime();
                 UnitUtil.updateLoadedUnit(newUnit);
                 newUI.setEntity(newUnit);
                 newUI.reloadTabs();
                 newUI.repaint();
                 newUI.refreshAll();
                 newUI.setLocationRelativeTo(frame);
+                PerformanceLog.record(PerformanceLog.UNIT_LOAD, newUnit.getShortNameRaw(), loadStart);
             }
             return null;
         }
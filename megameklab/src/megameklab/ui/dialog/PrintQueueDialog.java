@@ -21,9 +21,8 @@ package megameklab.ui.dialog;
 import megamek.client.ui.baseComponents.MMButton;
 import megamek.client.ui.swing.UnitLoadingDialog;
 import megamek.common.Entity;
-import megamek.common.MechFileParser;
+import megameklab.util.UnitFileLoader;
 import megameklab.util.UnitPrintManager;
-import org.apache.logging.log4j.LogManager;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -182,15 +181,10 @@ public class PrintQueueDialog extends AbstractMMLButtonDialog {
             return;
         }
 
-        for (File entityFile : f.getSelectedFiles()) {
-            try {
-                Entity tempEntity = new MechFileParser(entityFile).getEntity();
-                units.add(tempEntity);
-            } catch (Exception ex) {
-                LogManager.getLogger().error("", ex);
-            }
-        }
-        refresh();
+        UnitFileLoader.loadInBackground(this, Arrays.asList(f.getSelectedFiles()), loaded -> {
+            units.addAll(loaded);
+            refresh();
+        });
     }
 
     private void removeSelectedUnits() {
@@ -51,6 +51,8 @@ class ExportSettingsPanel extends JPanel {
     private final JCheckBox chkTacOpsHeat = new JCheckBox();
     private final JComboBox<String> cbRSScale = new JComboBox<>();
     private final IntRangeTextField txtScale = new IntRangeTextField(3);
+    private final IntRangeTextField txtImageDpi = new IntRangeTextField(4);
+    private final IntRangeTextField txtFluffDpi = new IntRangeTextField(4);
 
     ExportSettingsPanel() {
         ResourceBundle resourceMap = ResourceBundle.getBundle("megameklab.resources.Dialogs", new EncodeControl());
@@ -143,6 +145,24 @@ class ExportSettingsPanel extends JPanel {
         scalePanel.add(txtScale);
         scalePanel.add(cbRSScale);
 
+        txtImageDpi.setMinimum(72);
+        txtImageDpi.setMaximum(1200);
+        txtImageDpi.setText(CConfig.getParam(CConfig.RS_IMAGE_DPI));
+        txtImageDpi.setToolTipText(resourceMap.getString("ConfigurationDialog.txtImageDpi.tooltip"));
+        JPanel imageDpiPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        imageDpiPanel.add(new JLabel(resourceMap.getString("ConfigurationDialog.txtImageDpi.text")));
+        imageDpiPanel.add(Box.createHorizontalStrut(25));
+        imageDpiPanel.add(txtImageDpi);
+
+        txtFluffDpi.setMinimum(72);
+        txtFluffDpi.setMaximum(1200);
+        txtFluffDpi.setText(CConfig.getParam(CConfig.RS_IMAGE_TARGET_DPI));
+        txtFluffDpi.setToolTipText(resourceMap.getString("ConfigurationDialog.txtFluffDpi.tooltip"));
+        JPanel fluffDpiPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        fluffDpiPanel.add(new JLabel(resourceMap.getString("ConfigurationDialog.txtFluffDpi.text")));
+        fluffDpiPanel.add(Box.createHorizontalStrut(25));
+        fluffDpiPanel.add(txtFluffDpi);
+
         JPanel gridPanel = new JPanel(new SpringLayout());
         gridPanel.add(chkProgressBar);
         gridPanel.add(paperPanel);
@@ -156,7 +176,9 @@ class ExportSettingsPanel extends JPanel {
         gridPanel.add(chkHeatProfile);
         gridPanel.add(chkTacOpsHeat);
         gridPanel.add(scalePanel);
-        SpringUtilities.makeCompactGrid(gridPanel, 12, 1, 0, 0, 15, 10);
+        gridPanel.add(imageDpiPanel);
+        gridPanel.add(fluffDpiPanel);
+        SpringUtilities.makeCompactGrid(gridPanel, 14, 1, 0, 0, 15, 10);
         gridPanel.setBorder(new EmptyBorder(20, 30, 20, 30));
         setLayout(new FlowLayout(FlowLayout.LEFT));
         add(gridPanel);
@@ -177,6 +199,8 @@ class ExportSettingsPanel extends JPanel {
         recordSheetSettings.put(CConfig.RS_TAC_OPS_HEAT, Boolean.toString(chkTacOpsHeat.isSelected()));
         recordSheetSettings.put(CConfig.RS_SCALE_UNITS, CConfig.RSScale.values()[cbRSScale.getSelectedIndex()].toString());
         recordSheetSettings.put(CConfig.RS_SCALE_FACTOR, Integer.toString(txtScale.getIntVal(getDefaultScale())));
+        recordSheetSettings.put(CConfig.RS_IMAGE_DPI, Integer.toString(txtImageDpi.getIntVal(300)));
+        recordSheetSettings.put(CConfig.RS_IMAGE_TARGET_DPI, Integer.toString(txtFluffDpi.getIntVal(300)));
         return recordSheetSettings;
     }
 
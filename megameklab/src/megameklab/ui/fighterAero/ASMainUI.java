@@ -138,6 +138,7 @@ public class ASMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshAll() {
+        unitChanged();
         statusbar.refresh();
         structureTab.refresh();
         equipmentTab.refresh();
@@ -168,6 +169,7 @@ public class ASMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshPreview() {
+        unitChanged();
         previewTab.refresh();
 
     }
@@ -182,6 +184,7 @@ public class ASMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshStatus() {
+        unitChanged();
         statusbar.refresh();
     }
 
@@ -196,6 +199,7 @@ public class ASMainUI extends MegaMekLabMainUI {
     
     @Override
     public void refreshSummary() {
+        unitChanged();
         structureTab.refreshSummary();
     }
     
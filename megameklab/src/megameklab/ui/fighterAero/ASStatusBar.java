@@ -20,12 +20,13 @@ import megamek.common.AmmoType;
 import megamek.common.Entity;
 import megamek.common.Mounted;
 import megamek.common.WeaponType;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestAero;
 import megameklab.ui.util.ITab;
 import megameklab.ui.util.RefreshListener;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.ImageHelper;
 import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -39,8 +40,6 @@ public class ASStatusBar extends ITab {
     private final JLabel heatSink = new JLabel();
     private final JLabel cost = new JLabel();
     private final JLabel invalid = new JLabel();
-    private final EntityVerifier entityVerifier = EntityVerifier.getInstance(new File(
-            "data/mechfiles/UnitVerifierOptions.xml"));
     private final DecimalFormat formatter;
     private final JFrame parentFrame;
 
@@ -77,9 +76,9 @@ public class ASStatusBar extends ITab {
         int heat = getAero().getHeatCapacity();
         double tonnage = getAero().getWeight();
         double currentTonnage;
-        int bv = getAero().calculateBattleValue();
+        int bv = UnitValuationCache.getBattleValue(getAero());
 
-        TestAero testAero = new TestAero(getAero(), entityVerifier.aeroOption, null);
+        TestAero testAero = new TestAero(getAero(), EntityVerifierOptions.get().aeroOption, null);
 
         currentTonnage = testAero.calculateWeight();
         currentTonnage += UnitUtil.getUnallocatedAmmoTonnage(getAero());
@@ -106,9 +105,9 @@ public class ASStatusBar extends ITab {
         bvLabel.setText("BV: " + bv);
         bvLabel.setToolTipText("BV 2.0");
 
-        cost.setText("Dry Cost: " + formatter.format(Math.round(getEntity().getCost(true))) + " C-bills");
+        cost.setText("Dry Cost: " + formatter.format(Math.round(UnitValuationCache.getDryCost(getEntity()))) + " C-bills");
         cost.setToolTipText("The dry cost of the unit (without ammo). The unit's full cost is "
-                + formatter.format(Math.round(getEntity().getCost(false))) + " C-bills.");
+                + formatter.format(Math.round(UnitValuationCache.getFullCost(getEntity()))) + " C-bills.");
 
         StringBuffer sb = new StringBuffer();
         invalid.setVisible(!testAero.correctEntity(sb));
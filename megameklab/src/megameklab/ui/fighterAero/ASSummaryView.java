@@ -19,7 +19,6 @@ import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.io.File;
 import java.util.Vector;
 
 import javax.swing.BorderFactory;
@@ -28,10 +27,10 @@ import javax.swing.JLabel;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
 
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestAero;
 import megameklab.ui.EntitySource;
 import megameklab.ui.util.IView;
+import megameklab.util.EntityVerifierOptions;
 
 public class ASSummaryView extends IView{
     private JTextField txtStructTon = new JTextField("?");
@@ -44,8 +43,6 @@ public class ASSummaryView extends IView{
     private JTextField txtWeapTon = new JTextField("?");
     private JTextField txtOtherTon = new JTextField("?");
 
-    private EntityVerifier entityVerifier = EntityVerifier.getInstance(
-            new File("data/mechfiles/UnitVerifierOptions.xml"));
 
     public ASSummaryView(EntitySource eSource) {
         super(eSource);
@@ -158,7 +155,7 @@ public class ASSummaryView extends IView{
 
     public void refresh() {
         TestAero testAero = 
-                new TestAero(getAero(), entityVerifier.aeroOption, null);
+                new TestAero(getAero(), EntityVerifierOptions.get().aeroOption, null);
        
         txtStructTon.setText(Double.toString(testAero.getWeightStructure()));
         txtEngineTon.setText(Double.toString(testAero.getWeightEngine()));
@@ -89,6 +89,7 @@ public class CIMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshAll() {
+        unitChanged();
         statusbar.refresh();
         structureTab.refresh();
         previewTab.refresh();
@@ -124,6 +125,7 @@ public class CIMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshStatus() {
+        unitChanged();
         statusbar.refresh();
     }
 
@@ -140,11 +142,13 @@ public class CIMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshPreview() {
+        unitChanged();
         previewTab.refresh();
     }
 
     @Override
     public void refreshSummary() {
+        unitChanged();
     }
 
     @Override
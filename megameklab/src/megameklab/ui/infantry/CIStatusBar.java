@@ -28,6 +28,7 @@ import megameklab.ui.util.ITab;
 import megameklab.util.ImageHelper;
 import megameklab.ui.util.RefreshListener;
 import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 
 public class CIStatusBar extends ITab {
     private final JLabel move = new JLabel();
@@ -82,7 +83,7 @@ public class CIStatusBar extends ITab {
     public void refresh() {
         DecimalFormat roundFormat = new DecimalFormat("#.##");
         double currentTonnage;
-        int bv = getInfantry().calculateBattleValue();
+        int bv = UnitValuationCache.getBattleValue(getInfantry());
 
         currentTonnage = getInfantry().getWeight();
 
@@ -95,9 +96,9 @@ public class CIStatusBar extends ITab {
         bvLabel.setText("BV: " + bv);
         bvLabel.setToolTipText("BV 2.0");
 
-        cost.setText("Dry Cost: " + formatter.format(Math.round(getEntity().getCost(true))) + " C-bills");
+        cost.setText("Dry Cost: " + formatter.format(Math.round(UnitValuationCache.getDryCost(getEntity()))) + " C-bills");
         cost.setToolTipText("The dry cost of the unit (without ammo). The unit's full cost is "
-                + formatter.format(Math.round(getEntity().getCost(false))) + " C-bills.");
+                + formatter.format(Math.round(UnitValuationCache.getFullCost(getEntity()))) + " C-bills.");
 
         String str = UnitUtil.validateUnit(getInfantry());
         invalid.setVisible(!str.isEmpty());
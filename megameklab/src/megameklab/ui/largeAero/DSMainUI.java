@@ -52,6 +52,7 @@ public class DSMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshSummary() {
+        unitChanged();
         structureTab.refreshSummary();
     }
 
@@ -180,6 +181,7 @@ public class DSMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshAll() {
+        unitChanged();
         statusbar.refresh();
         structureTab.refresh();
         equipmentTab.refresh();
@@ -210,6 +212,7 @@ public class DSMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshStatus() {
+        unitChanged();
         statusbar.refresh();
     }
 
@@ -224,6 +227,7 @@ public class DSMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshPreview() {
+        unitChanged();
         previewTab.refresh();
     }
 
@@ -17,13 +17,14 @@ import megamek.common.AmmoType;
 import megamek.common.Entity;
 import megamek.common.Mounted;
 import megamek.common.WeaponType;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestSmallCraft;
 import megameklab.ui.util.ITab;
 import megameklab.ui.util.RefreshListener;
 import megamek.client.ui.WrapLayout;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.ImageHelper;
 import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -43,8 +44,6 @@ public class DSStatusBar extends ITab {
     private final JLabel heatSink = new JLabel();
     private final JLabel cost = new JLabel();
     private final JLabel invalid = new JLabel();
-    private final EntityVerifier entityVerifier = EntityVerifier.getInstance(new File(
-            "data/mechfiles/UnitVerifierOptions.xml"));
     private final DecimalFormat formatter;
     private final JFrame parentFrame;
 
@@ -81,9 +80,9 @@ public class DSStatusBar extends ITab {
         int heat = getSmallCraft().getHeatCapacity();
         double tonnage = getSmallCraft().getWeight();
         double currentTonnage;
-        int bv = getSmallCraft().calculateBattleValue();
+        int bv = UnitValuationCache.getBattleValue(getSmallCraft());
 
-        TestSmallCraft testSmallCraft = new TestSmallCraft(getSmallCraft(), entityVerifier.aeroOption, null);
+        TestSmallCraft testSmallCraft = new TestSmallCraft(getSmallCraft(), EntityVerifierOptions.get().aeroOption, null);
 
         currentTonnage = testSmallCraft.calculateWeight();
         currentTonnage += UnitUtil.getUnallocatedAmmoTonnage(getSmallCraft());
@@ -110,9 +109,9 @@ public class DSStatusBar extends ITab {
         bvLabel.setText("BV: " + bv);
         bvLabel.setToolTipText("BV 2.0");
 
-        cost.setText("Dry Cost: " + formatter.format(Math.round(getEntity().getCost(true))) + " C-bills");
+        cost.setText("Dry Cost: " + formatter.format(Math.round(UnitValuationCache.getDryCost(getEntity()))) + " C-bills");
         cost.setToolTipText("The dry cost of the unit (without ammo). The unit's full cost is "
-                + formatter.format(Math.round(getEntity().getCost(false))) + " C-bills.");
+                + formatter.format(Math.round(UnitValuationCache.getFullCost(getEntity()))) + " C-bills.");
 
         StringBuffer sb = new StringBuffer();
         invalid.setVisible(!testSmallCraft.correctEntity(sb));
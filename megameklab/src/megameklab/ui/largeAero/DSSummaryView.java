@@ -7,7 +7,6 @@ import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.io.File;
 import java.util.Vector;
 
 import javax.swing.BorderFactory;
@@ -16,10 +15,10 @@ import javax.swing.JLabel;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
 
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestSmallCraft;
 import megameklab.ui.EntitySource;
 import megameklab.ui.util.IView;
+import megameklab.util.EntityVerifierOptions;
 
 /**
  * @author Neoancient
@@ -38,8 +37,6 @@ public class DSSummaryView extends IView {
     private JTextField txtCrewTon = new JTextField("?");
     private JTextField txtOtherTon = new JTextField("?");
 
-    private EntityVerifier entityVerifier = EntityVerifier.getInstance(
-            new File("data/mechfiles/UnitVerifierOptions.xml"));
 
     public DSSummaryView(EntitySource eSource) {
         super(eSource);
@@ -165,7 +162,7 @@ public class DSSummaryView extends IView {
 
     public void refresh() {
         TestSmallCraft testSmallCraft = 
-                new TestSmallCraft(getSmallCraft(), entityVerifier.aeroOption, null);
+                new TestSmallCraft(getSmallCraft(), EntityVerifierOptions.get().aeroOption, null);
        
         txtStructTon.setText(Double.toString(testSmallCraft.getWeightStructure()));
         txtEngineTon.setText(Double.toString(testSmallCraft.getWeightEngine()));
@@ -57,6 +57,7 @@ public class WSMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshSummary() {
+        unitChanged();
         structureTab.refreshSummary();
     }
 
@@ -196,6 +197,7 @@ public class WSMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshAll() {
+        unitChanged();
         statusbar.refresh();
         structureTab.refresh();
         equipmentTab.refresh();
@@ -226,6 +228,7 @@ public class WSMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshStatus() {
+        unitChanged();
         statusbar.refresh();
     }
 
@@ -240,6 +243,7 @@ public class WSMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshPreview() {
+        unitChanged();
         previewTab.refresh();
     }
 
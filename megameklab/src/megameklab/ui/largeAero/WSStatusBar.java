@@ -17,13 +17,14 @@ import megamek.common.AmmoType;
 import megamek.common.Entity;
 import megamek.common.Mounted;
 import megamek.common.WeaponType;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestAdvancedAerospace;
 import megameklab.ui.util.ITab;
 import megameklab.ui.util.RefreshListener;
 import megamek.client.ui.WrapLayout;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.ImageHelper;
 import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -44,8 +45,6 @@ public class WSStatusBar extends ITab {
     private final JLabel heatSink = new JLabel();
     private final JLabel cost = new JLabel();
     private final JLabel invalid = new JLabel();
-    private final EntityVerifier entityVerifier = EntityVerifier.getInstance(new File(
-            "data/mechfiles/UnitVerifierOptions.xml"));
     private final DecimalFormat formatter;
     private final JFrame parentFrame;
 
@@ -83,9 +82,9 @@ public class WSStatusBar extends ITab {
         int heat = getJumpship().getHeatCapacity();
         double tonnage = getJumpship().getWeight();
         double currentTonnage;
-        int bv = getJumpship().calculateBattleValue();
+        int bv = UnitValuationCache.getBattleValue(getJumpship());
 
-        TestAdvancedAerospace testAdvAero = new TestAdvancedAerospace(getJumpship(), entityVerifier.aeroOption, null);
+        TestAdvancedAerospace testAdvAero = new TestAdvancedAerospace(getJumpship(), EntityVerifierOptions.get().aeroOption, null);
         currentTonnage = testAdvAero.calculateWeight();
         currentTonnage += UnitUtil.getUnallocatedAmmoTonnage(getJumpship());
 
@@ -115,9 +114,9 @@ public class WSStatusBar extends ITab {
         bvLabel.setText("BV: " + bv);
         bvLabel.setToolTipText("BV 2.0");
 
-        cost.setText("Dry Cost: " + formatter.format(Math.round(getEntity().getCost(true))) + " C-bills");
+        cost.setText("Dry Cost: " + formatter.format(Math.round(UnitValuationCache.getDryCost(getEntity()))) + " C-bills");
         cost.setToolTipText("The dry cost of the unit (without ammo). The unit's full cost is "
-                + formatter.format(Math.round(getEntity().getCost(false))) + " C-bills.");
+                + formatter.format(Math.round(UnitValuationCache.getFullCost(getEntity()))) + " C-bills.");
 
         StringBuffer sb = new StringBuffer();
         invalid.setVisible(!testAdvAero.correctEntity(sb));
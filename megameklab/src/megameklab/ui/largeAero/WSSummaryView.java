@@ -17,7 +17,6 @@ import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.io.File;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.Vector;
@@ -28,10 +27,10 @@ import javax.swing.JLabel;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
 
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestAdvancedAerospace;
 import megameklab.ui.EntitySource;
 import megameklab.ui.util.IView;
+import megameklab.util.EntityVerifierOptions;
 
 /**
  * @author Neoancient
@@ -56,8 +55,6 @@ public class WSSummaryView extends IView {
     private JTextField txtLifeBoatTon = new JTextField("?");
     private JTextField txtMiscTon = new JTextField("?");
 
-    private EntityVerifier entityVerifier = EntityVerifier.getInstance(
-            new File("data/mechfiles/UnitVerifierOptions.xml"));
 
     public WSSummaryView(EntitySource eSource) {
         super(eSource);
@@ -179,7 +176,7 @@ public class WSSummaryView extends IView {
 
     public void refresh() {
         final TestAdvancedAerospace testShip = 
-                new TestAdvancedAerospace(getJumpship(), entityVerifier.aeroOption, null);
+                new TestAdvancedAerospace(getJumpship(), EntityVerifierOptions.get().aeroOption, null);
         final NumberFormat df = DecimalFormat.getInstance();
        
         txtEngineTon.setText(df.format(testShip.getWeightEngine()));
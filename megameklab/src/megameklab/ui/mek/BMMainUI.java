@@ -173,6 +173,7 @@ public class BMMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshAll() {
+        unitChanged();
         statusbar.refresh();
         structureTab.refresh();
         equipmentTab.refresh();
@@ -200,6 +201,7 @@ public class BMMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshPreview() {
+        unitChanged();
         previewTab.refresh();
     }
 
@@ -210,6 +212,7 @@ public class BMMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshStatus() {
+        unitChanged();
         statusbar.refresh();
     }
 
@@ -223,6 +226,7 @@ public class BMMainUI extends MegaMekLabMainUI {
     
     @Override
     public void refreshSummary() {
+        unitChanged();
         structureTab.refreshSummary();
     }
     
@@ -17,13 +17,14 @@ package megameklab.ui.mek;
 
 import megamek.client.ui.swing.GUIPreferences;
 import megamek.common.*;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestMech;
 import megameklab.ui.util.ITab;
 import megameklab.ui.util.RefreshListener;
 import megamek.client.ui.WrapLayout;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.ImageHelper;
 import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -38,7 +39,6 @@ public class BMStatusBar extends ITab {
     private final JLabel heatSink = new JLabel();
     private final JLabel cost = new JLabel();
     private final JLabel invalid = new JLabel();
-    private final EntityVerifier entityVerifier = EntityVerifier.getInstance(new File("data/mechfiles/UnitVerifierOptions.xml"));
     private TestMech testEntity;
     private final DecimalFormat formatter;
     private final JFrame parentFrame;
@@ -50,7 +50,7 @@ public class BMStatusBar extends ITab {
         parentFrame = parent;
 
         formatter = new DecimalFormat();
-        testEntity = new TestMech(getMech(), entityVerifier.mechOption, null);
+        testEntity = new TestMech(getMech(), EntityVerifierOptions.get().mechOption, null);
         JButton showEquipmentDatabase = new JButton("Show Equipment Database");
         showEquipmentDatabase.addActionListener(evt -> parent.getFloatingEquipmentDatabase().setVisible(true));
         JButton btnValidate = new JButton("Validate Unit");
@@ -78,7 +78,7 @@ public class BMStatusBar extends ITab {
         int heat = getMech().getHeatCapacity();
         double tonnage = getMech().getWeight();
         double currentTonnage;
-        int bv = getMech().calculateBattleValue();
+        int bv = UnitValuationCache.getBattleValue(getMech());
         int maxCrits;
         if (getMech() instanceof TripodMech) {
             maxCrits = 84;
@@ -89,7 +89,7 @@ public class BMStatusBar extends ITab {
         }
         int currentCrits = UnitUtil.countUsedCriticals(getMech());
 
-        testEntity = new TestMech(getMech(), entityVerifier.mechOption, null);
+        testEntity = new TestMech(getMech(), EntityVerifierOptions.get().mechOption, null);
 
         currentTonnage = testEntity.calculateWeight();
         currentTonnage += UnitUtil.getUnallocatedAmmoTonnage(getMech());
@@ -105,9 +105,9 @@ public class BMStatusBar extends ITab {
         bvLabel.setText("BV: " + bv);
         bvLabel.setToolTipText("BV 2.0");
 
-        cost.setText("Dry Cost: " + formatter.format(Math.round(getEntity().getCost(true))) + " C-bills");
+        cost.setText("Dry Cost: " + formatter.format(Math.round(UnitValuationCache.getDryCost(getEntity()))) + " C-bills");
         cost.setToolTipText("The dry cost of the unit (without ammo). The unit's full cost is "
-                + formatter.format(Math.round(getEntity().getCost(false))) + " C-bills.");
+                + formatter.format(Math.round(UnitValuationCache.getFullCost(getEntity()))) + " C-bills.");
 
         crits.setText("Criticals: " +  currentCrits + " / " + maxCrits);
         crits.setForeground(currentCrits > maxCrits ? GUIPreferences.getInstance().getWarningColor() : null);
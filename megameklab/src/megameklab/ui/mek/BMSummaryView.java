@@ -19,7 +19,6 @@ import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.io.File;
 import java.util.Vector;
 
 import javax.swing.BorderFactory;
@@ -34,10 +33,10 @@ import megamek.common.Mech;
 import megamek.common.MiscType;
 import megamek.common.Mounted;
 import megamek.common.TechConstants;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestMech;
 import megameklab.ui.EntitySource;
 import megameklab.ui.util.IView;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.UnitUtil;
 
 public class BMSummaryView extends IView{
@@ -74,7 +73,6 @@ public class BMSummaryView extends IView{
     private JTextField txtEquipAvail = new JTextField("?");
     private JTextField txtOtherAvail = new JTextField("?");
 
-    private EntityVerifier entityVerifier = EntityVerifier.getInstance(new File("data/mechfiles/UnitVerifierOptions.xml"));
 
     public BMSummaryView(EntitySource eSource) {
         super(eSource);
@@ -261,7 +259,7 @@ public class BMSummaryView extends IView{
 
     public void refresh() {
 
-        TestMech testMech = new TestMech(getMech(), entityVerifier.mechOption, null);
+        TestMech testMech = new TestMech(getMech(), EntityVerifierOptions.get().mechOption, null);
 
         txtGyroTon.setText(Double.toString(testMech.getWeightGyro()));
         txtEngineTon.setText(Double.toString(testMech.getWeightEngine()));
@@ -122,6 +122,7 @@ public class PMMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshAll() {
+        unitChanged();
         statusbar.refresh();
         structureTab.refresh();
         equipmentTab.refresh();
@@ -150,6 +151,7 @@ public class PMMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshPreview() {
+        unitChanged();
         previewTab.refresh();
     }
 
@@ -161,6 +163,7 @@ public class PMMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshStatus() {
+        unitChanged();
         statusbar.refresh();
     }
 
@@ -175,6 +178,7 @@ public class PMMainUI extends MegaMekLabMainUI {
     
     @Override
     public void refreshSummary() {
+        unitChanged();
         structureTab.refreshSummary();
     }
     
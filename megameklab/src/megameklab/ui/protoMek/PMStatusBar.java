@@ -18,8 +18,10 @@ import megamek.common.verifier.TestProtomech;
 import megameklab.ui.util.ITab;
 import megameklab.ui.util.RefreshListener;
 import megamek.client.ui.WrapLayout;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.ImageHelper;
 import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -50,7 +52,7 @@ public class PMStatusBar extends ITab {
         parentFrame = parent;
 
         formatter = new DecimalFormat();
-        EntityVerifier entityVerifier = EntityVerifier.getInstance(new File("data/mechfiles/UnitVerifierOptions.xml"));
+        EntityVerifier entityVerifier = EntityVerifierOptions.get();
         testEntity = new TestProtomech(getProtomech(), entityVerifier.mechOption, null);
         JButton showEquipmentDatabase = new JButton("Show Equipment Database");
         showEquipmentDatabase.addActionListener(evt -> parent.getFloatingEquipmentDatabase().setVisible(true));
@@ -77,7 +79,7 @@ public class PMStatusBar extends ITab {
     public void refresh() {
         double tonnage = getProtomech().getWeight() * 1000;
         double currentTonnage;
-        int bv = getProtomech().calculateBattleValue();
+        int bv = UnitValuationCache.getBattleValue(getProtomech());
         int maxCrits = 0;
         for (int l = 0; l < getProtomech().locations(); l++) {
             maxCrits += TestProtomech.maxSlotsByLocation(l, getProtomech());
@@ -98,9 +100,9 @@ public class PMStatusBar extends ITab {
         bvLabel.setText("BV: " + bv);
         bvLabel.setToolTipText("BV 2.0");
 
-        cost.setText("Dry Cost: " + formatter.format(Math.round(getEntity().getCost(true))) + " C-bills");
+        cost.setText("Dry Cost: " + formatter.format(Math.round(UnitValuationCache.getDryCost(getEntity()))) + " C-bills");
         cost.setToolTipText("The dry cost of the unit (without ammo). The unit's full cost is "
-                + formatter.format(Math.round(getEntity().getCost(false))) + " C-bills.");
+                + formatter.format(Math.round(UnitValuationCache.getFullCost(getEntity()))) + " C-bills.");
 
         crits.setText("Criticals: " +  currentCrits + "/" + maxCrits);
         if(currentCrits > maxCrits) {
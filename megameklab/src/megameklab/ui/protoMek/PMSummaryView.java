@@ -17,7 +17,6 @@ import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.io.File;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.Vector;
@@ -30,10 +29,10 @@ import javax.swing.SwingConstants;
 
 import megamek.common.MiscType;
 import megamek.common.Mounted;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestProtomech;
 import megameklab.ui.EntitySource;
 import megameklab.ui.util.IView;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.UnitUtil;
 
 /**
@@ -53,7 +52,6 @@ public class PMSummaryView extends IView {
     private JTextField txtAmmoKg = new JTextField("?");
     private JTextField txtMiscKg = new JTextField("?");
 
-    private EntityVerifier entityVerifier = EntityVerifier.getInstance(new File("data/mechfiles/UnitVerifierOptions.xml"));
 
     public PMSummaryView(EntitySource eSource) {
         super(eSource);
@@ -160,7 +158,7 @@ public class PMSummaryView extends IView {
 
     public void refresh() {
         final NumberFormat format = DecimalFormat.getInstance();
-        final TestProtomech testProto = new TestProtomech(getProtoMek(), entityVerifier.mechOption, null);
+        final TestProtomech testProto = new TestProtomech(getProtoMek(), EntityVerifierOptions.get().mechOption, null);
 
         txtEngineKg.setText(format.format(testProto.getWeightEngine() * 1000));
         txtControlKg.setText(format.format(testProto.getWeightControls() * 1000));
@@ -96,6 +96,7 @@ public class SVMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshAll() {
+        unitChanged();
         structureTab.refresh();
         armorTab.refresh();
         equipmentTab.refresh();
@@ -134,6 +135,7 @@ public class SVMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshStatus() {
+        unitChanged();
         statusbar.refresh();
     }
 
@@ -209,11 +211,13 @@ public class SVMainUI extends MegaMekLabMainUI {
 
     @Override
     public void refreshPreview() {
+        unitChanged();
         previewTab.refresh();
     }
 
     @Override
     public void refreshSummary() {
+        unitChanged();
         structureTab.refreshSummary();
     }
 
@@ -19,13 +19,14 @@
 package megameklab.ui.supportVehicle;
 
 import megamek.common.EntityWeightClass;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestSupportVehicle;
 import megameklab.ui.MegaMekLabMainUI;
 import megameklab.ui.util.ITab;
 import megamek.client.ui.WrapLayout;
+import megameklab.util.EntityVerifierOptions;
 import megameklab.util.ImageHelper;
 import megameklab.util.UnitUtil;
+import megameklab.util.UnitValuationCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -44,8 +45,6 @@ class SVStatusBar extends ITab {
     private final JLabel slots = new JLabel();
     private final JLabel cost = new JLabel();
     private final JLabel invalid = new JLabel();
-    private final EntityVerifier entityVerifier = EntityVerifier.getInstance(new File(
-            "data/mechfiles/UnitVerifierOptions.xml"));
     private TestSupportVehicle testEntity;
     private final DecimalFormat formatter;
     private final MegaMekLabMainUI mainUI;
@@ -55,7 +54,7 @@ class SVStatusBar extends ITab {
         mainUI = parent;
 
         formatter = new DecimalFormat();
-        testEntity = new TestSupportVehicle(parent.getEntity(), entityVerifier.tankOption,
+        testEntity = new TestSupportVehicle(parent.getEntity(), EntityVerifierOptions.get().tankOption,
                 null);
         JButton showEquipmentDatabase = new JButton("Show Equipment Database");
         showEquipmentDatabase.addActionListener(evt -> parent.getFloatingEquipmentDatabase().setVisible(true));
@@ -92,7 +91,7 @@ class SVStatusBar extends ITab {
     }
 
     private JLabel bvLabel() {
-        int bv = eSource.getEntity().calculateBattleValue();
+        int bv = UnitValuationCache.getBattleValue(eSource.getEntity());
         bvLabel.setText("BV: " + bv);
 
         return bvLabel;
@@ -123,9 +122,9 @@ class SVStatusBar extends ITab {
         int jump = eSource.getEntity().getOriginalJumpMP();
         double tonnage = eSource.getEntity().getWeight();
         double currentTonnage;
-        int bv = eSource.getEntity().calculateBattleValue();
+        int bv = UnitValuationCache.getBattleValue(eSource.getEntity());
 
-        testEntity = new TestSupportVehicle(eSource.getEntity(), entityVerifier.tankOption,
+        testEntity = new TestSupportVehicle(eSource.getEntity(), EntityVerifierOptions.get().tankOption,
                 null);
 
         currentTonnage = testEntity.calculateWeight();
@@ -157,9 +156,9 @@ class SVStatusBar extends ITab {
         bvLabel.setText("BV: " + bv);
         bvLabel.setToolTipText("BV 2.0");
 
-        cost.setText("Dry Cost: " + formatter.format(Math.round(getEntity().getCost(true))) + " C-bills");
+        cost.setText("Dry Cost: " + formatter.format(Math.round(UnitValuationCache.getDryCost(getEntity()))) + " C-bills");
         cost.setToolTipText("The dry cost of the unit (without ammo). The unit's full cost is "
-                + formatter.format(Math.round(getEntity().getCost(false))) + " C-bills.");
+                + formatter.format(Math.round(UnitValuationCache.getFullCost(getEntity()))) + " C-bills.");
 
         move.setText("Movement: " + walk + "/" + run + "/" + jump);
         move.setToolTipText("Walk/Run/Jump MP");
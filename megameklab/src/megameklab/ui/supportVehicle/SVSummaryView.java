@@ -19,14 +19,13 @@
 package megameklab.ui.supportVehicle;
 
 import megamek.common.EntityWeightClass;
-import megamek.common.verifier.EntityVerifier;
 import megamek.common.verifier.TestSupportVehicle;
 import megameklab.ui.EntitySource;
 import megameklab.ui.util.IView;
+import megameklab.util.EntityVerifierOptions;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.File;
 import java.text.NumberFormat;
 
 /**
@@ -56,7 +55,6 @@ public class SVSummaryView extends IView {
     private final JLabel lblWeightUnits = createLabel("Ton:", new Dimension(45, 25), SwingConstants.CENTER);
 
 
-    private final EntityVerifier entityVerifier = EntityVerifier.getInstance(new File("data/mechfiles/UnitVerifierOptions.xml"));
 
     public SVSummaryView(EntitySource eSource) {
         super(eSource);
@@ -217,7 +215,7 @@ public class SVSummaryView extends IView {
 
     public void refresh() {
         TestSupportVehicle testSV = new TestSupportVehicle(eSource.getEntity(),
-                entityVerifier.tankOption, null);
+                EntityVerifierOptions.get().tankOption, null);
         if (eSource.getEntity().getWeightClass() == EntityWeightClass.WEIGHT_SMALL_SUPPORT) {
             lblWeightUnits.setText("Kg");
         } else {
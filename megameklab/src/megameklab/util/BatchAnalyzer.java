@@ -0,0 +1,278 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.common.Entity;
+import megamek.common.MechFileParser;
+import megamek.common.UnitType;
+import megamek.common.annotations.Nullable;
+import megamek.common.verifier.TestEntity;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Computes battle value, cost, weight breakdown and key statistics for a collection of unit files from
+ * the command line without a display. Input can be any combination of unit files and directories,
+ * which are searched recursively for unit files. Units are processed on a pool of worker threads
+ * and written to a CSV file with one row per unit and one column per value, in the order of the input
+ * files. Rows are written as soon as they are ready, so memory use does not depend on the number of
+ * units. See {@link #usage(PrintStream)}.
+ */
+public class BatchAnalyzer extends BatchCommand {
+    /** The command line argument that selects batch analysis mode */
+    public static final String COMMAND = "--analyze";
+
+    private static final String[] COLUMNS = {
+            "Source", "Chassis", "Model", "Type", "Tech Base", "Year", "Era", "Rules Level", "Tonnage",
+            "BV", "Dry Cost", "Full Cost", "Walk MP", "Run MP", "Jump MP", "Armor Points",
+            "Structure Weight", "Engine Weight", "Controls Weight", "Heat Sink Weight", "Armor Weight",
+            "Weapon Weight", "Ammo Weight", "Equipment Weight", "Transport Weight", "Power Amp Weight",
+            "Other Weight", "Total Weight", "Milliseconds"
+    };
+
+    private File output = new File("unit-analysis.csv");
+    private final Set<String> eras = new HashSet<>();
+    private final Set<String> techBases = new HashSet<>();
+    private final Set<String> unitTypes = new HashSet<>();
+
+    /**
+     * The row for one unit file, or the reason it could not be produced
+     */
+    private static class Row {
+        private final String csv;
+        private final String error;
+
+        private Row(@Nullable String csv, @Nullable String error) {
+            this.csv = csv;
+            this.error = error;
+        }
+    }
+
+    private BatchAnalyzer(PrintStream out) {
+        super(out, BatchAnalyzer::usage);
+    }
+
+    /**
+     * Parses the arguments and runs the analysis.
+     *
+     * @param args The command line arguments following {@link #COMMAND}
+     * @return     The exit status
+     */
+    public static int run(String... args) {
+        return new BatchAnalyzer(System.out).execute(args);
+    }
+
+    /**
+     * Prints a summary of the command line arguments
+     *
+     * @param stream The stream to print to
+     */
+    public static void usage(PrintStream stream) {
+        stream.println("Usage: MegaMekLab " + COMMAND + " [options] <unit file|directory>...");
+        stream.println();
+        stream.println("  -o, --output <file>     The CSV file to write (default: unit-analysis.csv)");
+        stream.println("  --era <names>           Only include units introduced in these eras, such as");
+        stream.println("                          \"Star League\" or \"Clan Invasion\"");
+        stream.println("  --tech-base <names>     Only include units with these tech bases: IS, Clan or Mixed");
+        stream.println("  --type <names>          Only include these unit types, such as Mek, Tank or Dropship");
+        stream.println("  --threads <n>           Number of worker threads (default: number of processors)");
+        stream.println("  -h, --help              Show this message");
+        stream.println();
+        stream.println("Filters take a comma-separated list and are not case sensitive. Directories are");
+        stream.println("searched recursively for .mtf and .blk files.");
+    }
+
+    @Override
+    protected int parseOption(String[] args, int i) {
+        final String arg = args[i];
+        switch (arg) {
+            case "-o":
+            case "--output":
+                output = new File(argumentValue(args, ++i, arg));
+                break;
+            case "--era":
+                eras.addAll(parseFilter(argumentValue(args, ++i, arg)));
+                break;
+            case "--tech-base":
+                techBases.addAll(parseFilter(argumentValue(args, ++i, arg)));
+                break;
+            case "--type":
+                unitTypes.addAll(parseFilter(argumentValue(args, ++i, arg)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+        return i;
+    }
+
+    private static Set<String> parseFilter(String value) {
+        return Arrays.stream(value.split(","))
+                .map(BatchAnalyzer::normalize)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Reduces a name to lower case letters and digits so that filters ignore case, spaces and punctuation
+     */
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    @Override
+    protected int process() {
+        final long start = System.nanoTime();
+        final List<File> files = UnitFiles.collect(inputs);
+        final List<String> failures = new ArrayList<>();
+        int written = 0;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(output.toPath()))) {
+            pw.println(Arrays.stream(COLUMNS).map(StringUtils::csv).collect(Collectors.joining(",")));
+            // Only a limited number of rows are computed ahead of the one being written
+            final Deque<Future<Row>> pending = new ArrayDeque<>();
+            int submitted = 0;
+            for (File file : files) {
+                while ((submitted < files.size()) && (pending.size() < threads * 4)) {
+                    final File next = files.get(submitted++);
+                    pending.add(executor.submit(() -> analyze(next)));
+                }
+                Row row;
+                try {
+                    row = pending.remove().get();
+                } catch (ExecutionException ex) {
+                    LogManager.getLogger().error("", ex.getCause());
+                    row = new Row(null, String.valueOf(ex.getCause()));
+                }
+                if (row.error != null) {
+                    failures.add(file.getPath() + ": " + row.error);
+                } else if (row.csv != null) {
+                    pw.println(row.csv);
+                    written++;
+                }
+            }
+        } catch (IOException ex) {
+            LogManager.getLogger().error("", ex);
+            System.err.println("Could not write " + output + ": " + ex.getMessage());
+            return EXIT_FAILURES;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return EXIT_FAILURES;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("Analyzed %d unit files in %.1f s; %d units written to %s%n", files.size(), seconds,
+                written, output);
+        if (seconds > 0) {
+            out.printf("  %.2f units/s using %d threads%n", files.size() / seconds, threads);
+        }
+        if (!failures.isEmpty()) {
+            out.printf("%d failure%s:%n", failures.size(), (failures.size() == 1) ? "" : "s");
+            failures.forEach(f -> out.println("  " + f));
+            return EXIT_FAILURES;
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * Loads a unit and computes its row
+     *
+     * @return The row, a row with no values if the unit does not match the filters, or a row with
+     *         the reason the unit could not be analyzed
+     */
+    private Row analyze(File file) {
+        final long start = System.nanoTime();
+        final Entity entity;
+        try {
+            entity = new MechFileParser(file).getEntity();
+        } catch (Exception ex) {
+            return new Row(null, (ex.getMessage() != null) ? ex.getMessage() : ex.getClass().getSimpleName());
+        }
+        if (entity == null) {
+            return new Row(null, "No unit found");
+        }
+
+        final String unitType = UnitType.getTypeName(entity.getUnitType());
+        final String techBase = entity.isMixedTech() ? "Mixed" : (entity.isClan() ? "Clan" : "IS");
+        final String era = UnitUtil.getEraName(entity.getYear());
+        if ((!unitTypes.isEmpty() && !unitTypes.contains(normalize(unitType)))
+                || (!techBases.isEmpty() && !techBases.contains(normalize(techBase)))
+                || (!eras.isEmpty() && !eras.contains(normalize(era)))) {
+            return new Row(null, null);
+        }
+
+        final List<String> values = new ArrayList<>(COLUMNS.length);
+        try {
+            values.add(file.getPath());
+            values.add(entity.getChassis());
+            values.add(entity.getModel());
+            values.add(unitType);
+            values.add(techBase);
+            values.add(String.valueOf(entity.getYear()));
+            values.add(era);
+            values.add(String.valueOf(entity.getStaticTechLevel()));
+            values.add(String.valueOf(entity.getWeight()));
+            values.add(String.valueOf(entity.calculateBattleValue()));
+            values.add(String.valueOf(Math.round(entity.getCost(true))));
+            values.add(String.valueOf(Math.round(entity.getCost(false))));
+            values.add(String.valueOf(entity.getOriginalWalkMP()));
+            values.add(String.valueOf(entity.getOriginalRunMP()));
+            values.add(String.valueOf(entity.getOriginalJumpMP()));
+            values.add(String.valueOf(entity.getTotalOArmor()));
+            addWeights(values, UnitUtil.getEntityVerifier(entity));
+            values.add(String.valueOf((System.nanoTime() - start) / 1_000_000));
+        } catch (Exception ex) {
+            LogManager.getLogger().error("Could not analyze " + file, ex);
+            return new Row(null, "Could not analyze " + entity.getShortNameRaw() + ": " + ex);
+        }
+        return new Row(values.stream().map(StringUtils::csv).collect(Collectors.joining(",")), null);
+    }
+
+    /**
+     * Adds the weight of each group of components, or empty values if there is no verifier for the unit
+     */
+    private static void addWeights(List<String> values, @Nullable TestEntity test) {
+        if (test == null) {
+            for (int i = 0; i < 12; i++) {
+                values.add("");
+            }
+            return;
+        }
+        values.add(String.valueOf(test.getWeightStructure()));
+        values.add(String.valueOf(test.getWeightEngine()));
+        values.add(String.valueOf(test.getWeightControls()));
+        values.add(String.valueOf(test.getWeightHeatSinks()));
+        values.add(String.valueOf(test.getWeightArmor()));
+        values.add(String.valueOf(test.getWeightWeapon()));
+        values.add(String.valueOf(test.getWeightAmmo()));
+        values.add(String.valueOf(test.getWeightMiscEquip()));
+        values.add(String.valueOf(test.getWeightCarryingSpace()));
+        values.add(String.valueOf(test.getWeightPowerAmp()));
+        values.add(String.valueOf(test.getWeightMisc()));
+        values.add(String.valueOf(test.calculateWeight()));
+    }
+}
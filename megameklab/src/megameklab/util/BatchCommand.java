@@ -0,0 +1,153 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The base of the commands that process unit files from the command line without a display. Parses the
+ * arguments all of them share, which are the input files and directories, {@code --threads} and
+ * {@code --help}, and prints the usage of the command when help is requested or the arguments are
+ * not valid.
+ */
+public abstract class BatchCommand {
+    /** Exit status for a run where every unit was processed */
+    public static final int EXIT_OK = 0;
+    /** Exit status for a run where one or more units failed or could not be loaded */
+    public static final int EXIT_FAILURES = 1;
+    /** Exit status for invalid arguments */
+    public static final int EXIT_USAGE = 2;
+
+    /** The unit files, directories and MUL files given on the command line */
+    protected final List<File> inputs = new ArrayList<>();
+    /** The number of worker threads */
+    protected int threads = Runtime.getRuntime().availableProcessors();
+
+    protected final PrintStream out;
+    private final Consumer<PrintStream> usage;
+
+    /**
+     * @param out   The stream to print progress and results to
+     * @param usage Prints a summary of the command line arguments of the command
+     */
+    protected BatchCommand(PrintStream out, Consumer<PrintStream> usage) {
+        this.out = out;
+        this.usage = usage;
+    }
+
+    /**
+     * Parses the arguments and runs the command.
+     *
+     * @param args The command line arguments following the command
+     * @return     The exit status
+     */
+    protected final int execute(String... args) {
+        try {
+            if (!parseArguments(args)) {
+                usage.accept(System.out);
+                return EXIT_OK;
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            usage.accept(System.err);
+            return EXIT_USAGE;
+        }
+        return process();
+    }
+
+    /**
+     * Runs the command once the arguments have been parsed.
+     *
+     * @return The exit status
+     */
+    protected abstract int process();
+
+    /**
+     * Parses an option that is specific to the command.
+     *
+     * @param args  The command line arguments
+     * @param index The index of the option
+     * @return      The index of the last argument used by the option, which is past the option
+     *              if it takes a value
+     * @throws IllegalArgumentException if the option is not known or its value is not valid
+     */
+    protected abstract int parseOption(String[] args, int index);
+
+    /**
+     * Checks the arguments once they have all been parsed. By default at least one input is required.
+     *
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    protected void checkArguments() {
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No unit files given");
+        }
+    }
+
+    /**
+     * @return false if the help option was given
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    private boolean parseArguments(String... args) {
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+            if (!arg.startsWith("-")) {
+                inputs.add(new File(arg));
+                continue;
+            }
+            switch (arg) {
+                case "-h":
+                case "--help":
+                    return false;
+                case "--threads":
+                    try {
+                        threads = Integer.parseInt(argumentValue(args, ++i, arg));
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException("Invalid thread count: " + args[i]);
+                    }
+                    if (threads < 1) {
+                        throw new IllegalArgumentException("Invalid thread count: " + threads);
+                    }
+                    break;
+                default:
+                    i = parseOption(args, i);
+            }
+        }
+        for (File input : inputs) {
+            if (!input.exists()) {
+                throw new IllegalArgumentException("File not found: " + input);
+            }
+        }
+        checkArguments();
+        return true;
+    }
+
+    /**
+     * @param args   The command line arguments
+     * @param index  The index of the value of an option
+     * @param option The option, for the error message
+     * @return       The value
+     * @throws IllegalArgumentException if the value is missing
+     */
+    protected static String argumentValue(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.common.*;
+import megamek.common.annotations.Nullable;
+import megamek.common.options.IOption;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToLongFunction;
+
+/**
+ * Checks that unit files survive a save and load without changes, from the command line without a
+ * display. Each unit file is parsed, written to a temporary file with the same code the editor uses
+ * to save, and parsed again, and the two units are compared: battle value, weight, cost, construction
+ * data, equipment and critical slots. Files are processed on a pool of worker threads, and the time
+ * to load, save and reload each file is summarized as percentiles. See {@link #usage(PrintStream)}.
+ */
+public class BatchRoundTrip extends BatchCommand {
+    /** The command line argument that selects round trip mode */
+    public static final String COMMAND = "--round-trip";
+
+    private File report;
+    private boolean quiet = false;
+
+    /**
+     * The outcome of the round trip for one unit file
+     */
+    public static class Result {
+        private final File source;
+        private String unitName = "";
+        private long loadNanos = -1;
+        private long saveNanos = -1;
+        private long reloadNanos = -1;
+        private final List<String> differences = new ArrayList<>();
+        private String error;
+
+        Result(File source) {
+            this.source = source;
+        }
+
+        public File getSource() {
+            return source;
+        }
+
+        public String getUnitName() {
+            return unitName;
+        }
+
+        /** @return The time to parse the original file in nanoseconds, or -1 if it was not parsed */
+        public long getLoadNanos() {
+            return loadNanos;
+        }
+
+        /** @return The time to write the unit in nanoseconds, or -1 if it was not written */
+        public long getSaveNanos() {
+            return saveNanos;
+        }
+
+        /** @return The time to parse the written file in nanoseconds, or -1 if it was not parsed */
+        public long getReloadNanos() {
+            return reloadNanos;
+        }
+
+        /** @return A description of each value that changed in the round trip */
+        public List<String> getDifferences() {
+            return differences;
+        }
+
+        /** @return The reason the round trip could not be completed, or null if it was */
+        public @Nullable String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return (error == null) && differences.isEmpty();
+        }
+    }
+
+    private BatchRoundTrip(PrintStream out) {
+        super(out, BatchRoundTrip::usage);
+    }
+
+    /**
+     * Parses the arguments and runs the round trip check.
+     *
+     * @param args The command line arguments following {@link #COMMAND}
+     * @return     The exit status
+     */
+    public static int run(String... args) {
+        return new BatchRoundTrip(System.out).execute(args);
+    }
+
+    /**
+     * Prints a summary of the command line arguments
+     *
+     * @param stream The stream to print to
+     */
+    public static void usage(PrintStream stream) {
+        stream.println("Usage: MegaMekLab " + COMMAND + " [options] <unit file|directory>...");
+        stream.println();
+        stream.println("  --report <file>         Write a CSV report with the timing and differences for each unit");
+        stream.println("  --threads <n>           Number of worker threads (default: number of processors)");
+        stream.println("  -q, --quiet             Only print the summary");
+        stream.println("  -h, --help              Show this message");
+        stream.println();
+        stream.println("Directories are searched recursively for .mtf and .blk files. The original files are");
+        stream.println("not modified.");
+    }
+
+    @Override
+    protected int parseOption(String[] args, int i) {
+        final String arg = args[i];
+        switch (arg) {
+            case "--report":
+                report = new File(argumentValue(args, ++i, arg));
+                break;
+            case "-q":
+            case "--quiet":
+                quiet = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+        return i;
+    }
+
+    @Override
+    protected int process() {
+        final long start = System.nanoTime();
+        final List<File> files = UnitFiles.collect(inputs);
+        final List<Result> results;
+        Path tempDir = null;
+        try {
+            tempDir = Files.createTempDirectory("mml-round-trip");
+            results = check(files, tempDir.toFile(), threads);
+        } catch (IOException ex) {
+            LogManager.getLogger().error("", ex);
+            System.err.println("Could not create temporary directory: " + ex.getMessage());
+            return EXIT_FAILURES;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return EXIT_FAILURES;
+        } finally {
+            if (tempDir != null) {
+                tempDir.toFile().delete();
+            }
+        }
+
+        int failed = 0;
+        int changed = 0;
+        for (Result result : results) {
+            if (result.getError() != null) {
+                failed++;
+                if (!quiet) {
+                    out.println(result.getSource().getPath() + ": " + result.getError());
+                }
+            } else if (!result.getDifferences().isEmpty()) {
+                changed++;
+                if (!quiet) {
+                    out.println(result.getSource().getPath() + " (" + result.getUnitName() + "):");
+                    result.getDifferences().forEach(d -> out.println("  " + d));
+                }
+            }
+        }
+
+        if (report != null) {
+            try {
+                writeReport(results, report);
+            } catch (IOException ex) {
+                LogManager.getLogger().error("", ex);
+                System.err.println("Could not write report: " + ex.getMessage());
+                failed++;
+            }
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("Checked %d units in %.1f s: %d changed, %d could not be loaded or saved%n",
+                results.size(), seconds, changed, failed);
+        printPercentiles("Load", results, Result::getLoadNanos);
+        printPercentiles("Save", results, Result::getSaveNanos);
+        printPercentiles("Reload", results, Result::getReloadNanos);
+        return ((changed > 0) || (failed > 0)) ? EXIT_FAILURES : EXIT_OK;
+    }
+
+    private void printPercentiles(String label, List<Result> results,
+                                  ToLongFunction<Result> timing) {
+        final long[] nanos = results.stream().mapToLong(timing).filter(n -> n >= 0).sorted().toArray();
+        if (nanos.length > 0) {
+            out.printf("  %-6s p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n", label,
+                    percentile(nanos, 0.5) / 1e6, percentile(nanos, 0.9) / 1e6,
+                    percentile(nanos, 0.99) / 1e6, nanos[nanos.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * @param sorted   The values in ascending order
+     * @param fraction The percentile as a fraction between 0 and 1
+     * @return         The smallest value that is at least the given fraction of the values
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        final int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Runs the round trip for unit files in parallel.
+     *
+     * @param files   The unit files
+     * @param tempDir The directory for the files that are written, which are deleted when they have
+     *                been read back
+     * @param threads The number of worker threads
+     * @return        The results, in the same order as the files
+     * @throws InterruptedException If the thread is interrupted while waiting for the results
+     */
+    public static List<Result> check(List<File> files, File tempDir, int threads) throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            final List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                final File file = files.get(i);
+                final int index = i;
+                futures.add(executor.submit(() -> check(file, tempDir, index)));
+            }
+            final List<Result> results = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException ex) {
+                    LogManager.getLogger().error("", ex.getCause());
+                    Result result = new Result(files.get(i));
+                    result.error = String.valueOf(ex.getCause());
+                    results.add(result);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Result check(File file, File tempDir, int index) {
+        final Result result = new Result(file);
+        long start = System.nanoTime();
+        final Entity original;
+        try {
+            original = new MechFileParser(file).getEntity();
+            result.loadNanos = System.nanoTime() - start;
+        } catch (Exception ex) {
+            result.error = "Could not load: " + errorMessage(ex);
+            return result;
+        }
+        if (original == null) {
+            result.error = "No unit found";
+            return result;
+        }
+        result.unitName = original.getShortNameRaw();
+        // Describe the unit before saving, in case writing the file changes it
+        final Map<String, String> before = describe(original);
+
+        final File copy = new File(tempDir, index + UnitFileWriter.getExtension(original));
+        try {
+            start = System.nanoTime();
+            try {
+                UnitFileWriter.write(original, copy);
+                result.saveNanos = System.nanoTime() - start;
+            } catch (Exception ex) {
+                result.error = "Could not save: " + errorMessage(ex);
+                return result;
+            }
+
+            start = System.nanoTime();
+            final Entity reloaded;
+            try {
+                reloaded = new MechFileParser(copy).getEntity();
+                result.reloadNanos = System.nanoTime() - start;
+            } catch (Exception ex) {
+                result.error = "Could not load the saved file: " + errorMessage(ex);
+                return result;
+            }
+            if (reloaded == null) {
+                result.error = "No unit found in the saved file";
+                return result;
+            }
+
+            final Map<String, String> after = describe(reloaded);
+            for (Map.Entry<String, String> entry : before.entrySet()) {
+                final String value = after.get(entry.getKey());
+                if (!entry.getValue().equals(value)) {
+                    result.differences.add(difference(entry.getKey(), entry.getValue(), value));
+                }
+            }
+            for (String key : after.keySet()) {
+                if (!before.containsKey(key)) {
+                    result.differences.add(difference(key, null, after.get(key)));
+                }
+            }
+        } catch (Exception ex) {
+            LogManager.getLogger().error("Could not compare " + file, ex);
+            result.error = "Could not compare: " + errorMessage(ex);
+        } finally {
+            copy.delete();
+        }
+        return result;
+    }
+
+    private static String difference(String key, @Nullable String before, @Nullable String after) {
+        if (((before != null) && (before.length() > 80)) || ((after != null) && (after.length() > 80))) {
+            return key + " changed";
+        }
+        return key + ": " + ((before == null) ? "(none)" : before) + " -> " + ((after == null) ? "(none)" : after);
+    }
+
+    /**
+     * Describes the values of a unit that should be the same after a round trip
+     *
+     * @param entity The unit
+     * @return       Descriptions of the values by name, in a consistent order
+     */
+    static Map<String, String> describe(Entity entity) {
+        final Map<String, String> values = new LinkedHashMap<>();
+        values.put("BV", String.valueOf(entity.calculateBattleValue()));
+        values.put("Weight", String.valueOf(entity.getWeight()));
+        values.put("Cost", String.valueOf(entity.getCost(true)));
+        values.put("Construction data", constructionData(entity));
+        final List<String> equipment = new ArrayList<>();
+        for (Mounted mounted : entity.getEquipment()) {
+            equipment.add(mounted.getType().getInternalName() + "@" + entity.getLocationAbbr(mounted.getLocation())
+                    + (mounted.isRearMounted() ? "(R)" : ""));
+        }
+        Collections.sort(equipment);
+        values.put("Equipment", String.join(", ", equipment));
+        for (int loc = 0; loc < entity.locations(); loc++) {
+            if (entity.getNumberOfCriticals(loc) == 0) {
+                continue;
+            }
+            final StringBuilder sb = new StringBuilder();
+            for (int slot = 0; slot < entity.getNumberOfCriticals(loc); slot++) {
+                if (slot > 0) {
+                    sb.append(", ");
+                }
+                sb.append(describeSlot(entity.getCritical(loc, slot)));
+            }
+            values.put("Critical slots " + entity.getLocationAbbr(loc), sb.toString());
+        }
+        return values;
+    }
+
+    /**
+     * Describes the construction data of a unit: engine, armor and structure, each piece of mounted
+     * equipment, transport space, crew and quirks.
+     *
+     * @param entity The unit
+     * @return A String that is equal for units with the same construction data
+     */
+    private static String constructionData(Entity entity) {
+        StringBuilder sb = new StringBuilder(entity.getClass().getName()).append('|')
+                .append(entity.getChassis()).append('|').append(entity.getModel()).append('|')
+                .append(entity.getWeight()).append('|').append(entity.getYear()).append('|')
+                .append(entity.getTechLevel()).append('|').append(entity.isMixedTech()).append('|')
+                .append(entity.getManualBV()).append('|').append(entity.getMovementMode()).append('|')
+                .append(entity.getOriginalWalkMP()).append('|').append(entity.getOriginalJumpMP()).append('|')
+                .append(entity.getStructureType()).append('|')
+                .append(entity.getNCrew()).append('|').append(entity.getNPassenger()).append('|');
+        if (entity.hasEngine()) {
+            sb.append(entity.getEngine().getEngineType()).append(':')
+                    .append(entity.getEngine().getRating()).append(':')
+                    .append(entity.getEngine().hasFlag(Engine.CLAN_ENGINE)).append('|');
+        }
+        for (int loc = 0; loc < entity.locations(); loc++) {
+            sb.append(entity.getArmorType(loc)).append(':').append(entity.getArmorTechLevel(loc)).append(':')
+                    .append(entity.getOArmor(loc)).append(':').append(entity.getOInternal(loc));
+            if (entity.hasRearArmor(loc)) {
+                sb.append(':').append(entity.getOArmor(loc, true));
+            }
+            sb.append('|');
+        }
+        for (Mounted mounted : entity.getEquipment()) {
+            sb.append(mounted.getType().getInternalName()).append(':')
+                    .append(mounted.getLocation()).append(':').append(mounted.getSecondLocation()).append(':')
+                    .append(mounted.isRearMounted()).append(':').append(mounted.getBaseShotsLeft()).append(':')
+                    .append(mounted.getSize()).append(':').append(mounted.isOmniPodMounted()).append(':')
+                    .append(mounted.isArmored()).append(':').append(mounted.isMechTurretMounted()).append(':')
+                    .append(mounted.isSponsonTurretMounted()).append(':').append(mounted.isPintleTurretMounted())
+                    .append(':').append(mounted.isDWPMounted()).append(':').append(mounted.isAPMMounted())
+                    .append(':').append(mounted.isSquadSupportWeapon()).append('|');
+        }
+        for (Transporter transporter : entity.getTransports()) {
+            sb.append(transporter.getClass().getSimpleName()).append(':').append(transporter).append('|');
+        }
+        if (entity instanceof Mech) {
+            sb.append(((Mech) entity).getCockpitType()).append(':').append(((Mech) entity).getGyroType()).append('|');
+        } else if (entity instanceof Aero) {
+            sb.append(((Aero) entity).get0SI()).append(':').append(((Aero) entity).getHeatSinks()).append(':')
+                    .append(((Aero) entity).getHeatType()).append(':').append(((Aero) entity).getFuel()).append('|');
+        } else if (entity instanceof BattleArmor) {
+            sb.append(((BattleArmor) entity).getChassisType()).append('|');
+        } else if (entity instanceof Infantry) {
+            final Infantry infantry = (Infantry) entity;
+            sb.append(infantry.getSquadSize()).append(':').append(infantry.getSquadN()).append(':')
+                    .append(infantry.getSecondaryN()).append(':').append(infantry.getArmorDamageDivisor()).append(':')
+                    .append(infantry.getSpecializations()).append('|');
+        }
+        if (entity.isSupportVehicle()) {
+            sb.append(entity.getBARRating(entity.firstArmorIndex())).append(':')
+                    .append(entity.getStructuralTechRating()).append('|');
+        }
+        sb.append(entity.getCrew().getGunnery()).append(':').append(entity.getCrew().getPiloting()).append('|');
+        appendOptions(sb, entity.getCrew().getOptions().getOptions());
+        appendOptions(sb, entity.getQuirks().getOptions());
+        return sb.toString();
+    }
+
+    private static void appendOptions(StringBuilder sb, Enumeration<IOption> options) {
+        while (options.hasMoreElements()) {
+            IOption option = options.nextElement();
+            if (option.booleanValue()) {
+                sb.append(option.getName()).append('=').append(option.getValue()).append('|');
+            }
+        }
+    }
+
+    private static String describeSlot(@Nullable CriticalSlot slot) {
+        if (slot == null) {
+            return "-";
+        } else if (slot.getType() == CriticalSlot.TYPE_SYSTEM) {
+            return "system " + slot.getIndex();
+        } else if (slot.getMount() == null) {
+            return "?";
+        } else if (slot.getMount2() != null) {
+            return slot.getMount().getType().getInternalName() + "/" + slot.getMount2().getType().getInternalName();
+        } else {
+            return slot.getMount().getType().getInternalName();
+        }
+    }
+
+    private static String errorMessage(Exception ex) {
+        return (ex.getMessage() != null) ? ex.getMessage() : ex.getClass().getSimpleName();
+    }
+
+    /**
+     * Writes a CSV report with the timing and any differences for each unit
+     *
+     * @param results The results
+     * @param file    The report file
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeReport(List<Result> results, File file) throws IOException {
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file.toPath()))) {
+            pw.println("Source,Unit,Load Milliseconds,Save Milliseconds,Reload Milliseconds,Error,Differences");
+            for (Result result : results) {
+                pw.println(String.join(",", StringUtils.csv(result.getSource().getPath()),
+                        StringUtils.csv(result.getUnitName()), millis(result.getLoadNanos()),
+                        millis(result.getSaveNanos()), millis(result.getReloadNanos()),
+                        StringUtils.csv(result.getError()),
+                        StringUtils.csv(String.join("\n", result.getDifferences()))));
+            }
+        }
+    }
+
+    private static String millis(long nanos) {
+        return (nanos < 0) ? "" : String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.common.Entity;
+import megamek.common.MechFileParser;
+import megamek.common.MechSummary;
+import megamek.common.MechSummaryCache;
+import megamek.common.annotations.Nullable;
+import megameklab.printing.BatchExporter;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Exports unit summaries in the technical readout or unit readout layout from the command line
+ * without a display. Units can come from unit files, directories (which are searched recursively for
+ * unit files), MUL files and name searches of the unit cache. Summaries are built on a pool of worker
+ * threads and written either to one HTML or text file per unit or to a single HTML file with an index.
+ * Only a limited number of summaries are held in memory at once, and the combined file is assembled
+ * from a temporary file so the index can come first. See {@link #usage(PrintStream)}.
+ */
+public class BatchSummaryExporter extends BatchCommand {
+    /** The command line argument that selects batch summary export mode */
+    public static final String COMMAND = "--summaries";
+
+    private static final Pattern BODY = Pattern.compile("<body[^>]*>(.*)</body>",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final List<String> queries = new ArrayList<>();
+    private File output;
+    private boolean html = true;
+    private boolean troFormat = CConfig.getBooleanParam(CConfig.MISC_SUMMARY_FORMAT_TRO);
+    private boolean combined = false;
+    private File report;
+
+    private final List<String> failures = new ArrayList<>();
+
+    /**
+     * A source of units: a file, or a unit found in the unit cache
+     */
+    private static class Source {
+        private final String description;
+        private final Callable<List<Entity>> loader;
+
+        private Source(String description, Callable<List<Entity>> loader) {
+            this.description = description;
+            this.loader = loader;
+        }
+    }
+
+    /**
+     * The summary of one unit, or the reason it could not be built
+     */
+    private static class Summary {
+        private final String source;
+        private final String unitName;
+        private final String text;
+        private final long millis;
+        private final String error;
+
+        private Summary(String source, String unitName, @Nullable String text, long millis,
+                        @Nullable String error) {
+            this.source = source;
+            this.unitName = unitName;
+            this.text = text;
+            this.millis = millis;
+            this.error = error;
+        }
+    }
+
+    private BatchSummaryExporter(PrintStream out) {
+        super(out, BatchSummaryExporter::usage);
+    }
+
+    /**
+     * Parses the arguments and runs the export.
+     *
+     * @param args The command line arguments following {@link #COMMAND}
+     * @return     The exit status
+     */
+    public static int run(String... args) {
+        return new BatchSummaryExporter(System.out).execute(args);
+    }
+
+    /**
+     * Prints a summary of the command line arguments
+     *
+     * @param stream The stream to print to
+     */
+    public static void usage(PrintStream stream) {
+        stream.println("Usage: MegaMekLab " + COMMAND + " [options] <unit file|directory|MUL file>...");
+        stream.println();
+        stream.println("  -o, --output <path>     Output directory, or output file with --combined");
+        stream.println("                          (default: current directory or summaries.html)");
+        stream.println("  --query <text>          Include every unit in the unit cache with a name that");
+        stream.println("                          contains the text. Can be given more than once.");
+        stream.println("  --combined              Write all summaries to a single HTML file with an index");
+        stream.println("  --format <html|txt>     The format of each summary (default: html)");
+        stream.println("  --layout <tro|readout>  Technical readout or unit readout layout");
+        stream.println("                          (default: from the MegaMekLab configuration)");
+        stream.println("  --report <file>         Write a CSV report with the result and time for each unit");
+        stream.println("  --threads <n>           Number of worker threads (default: number of processors)");
+        stream.println("  -h, --help              Show this message");
+        stream.println();
+        stream.println("Directories are searched recursively for .mtf and .blk files.");
+    }
+
+    @Override
+    protected int parseOption(String[] args, int i) {
+        final String arg = args[i];
+        switch (arg) {
+            case "-o":
+            case "--output":
+                output = new File(argumentValue(args, ++i, arg));
+                break;
+            case "--query":
+                queries.add(argumentValue(args, ++i, arg).toLowerCase(Locale.ROOT));
+                break;
+            case "--combined":
+                combined = true;
+                break;
+            case "--format":
+                final String format = argumentValue(args, ++i, arg).toLowerCase(Locale.ROOT);
+                if (!format.equals("html") && !format.equals("txt")) {
+                    throw new IllegalArgumentException("Unknown format: " + format);
+                }
+                html = format.equals("html");
+                break;
+            case "--layout":
+                final String layout = argumentValue(args, ++i, arg).toLowerCase(Locale.ROOT);
+                if (!layout.equals("tro") && !layout.equals("readout")) {
+                    throw new IllegalArgumentException("Unknown layout: " + layout);
+                }
+                troFormat = layout.equals("tro");
+                break;
+            case "--report":
+                report = new File(argumentValue(args, ++i, arg));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+        return i;
+    }
+
+    @Override
+    protected void checkArguments() {
+        if (inputs.isEmpty() && queries.isEmpty()) {
+            throw new IllegalArgumentException("No unit files or queries given");
+        }
+        if (combined && !html) {
+            throw new IllegalArgumentException("--combined requires HTML format");
+        }
+        if (output == null) {
+            output = new File(combined ? "summaries.html" : ".");
+        } else if (!combined && output.exists() && !output.isDirectory()) {
+            throw new IllegalArgumentException(output + " is not a directory");
+        }
+    }
+
+    @Override
+    protected int process() {
+        final long start = System.nanoTime();
+        final List<File> files = UnitFiles.collect(inputs);
+        if (!queries.isEmpty() || files.stream().anyMatch(BatchExporter::isMUL)) {
+            UnitUtil.waitForUnitCache();
+        }
+        final List<Source> sources = new ArrayList<>();
+        for (File file : files) {
+            sources.add(new Source(file.getPath(), () -> BatchExporter.loadUnits(file)));
+        }
+        sources.addAll(findUnits(queries));
+
+        int units = 0;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (SummaryWriter writer = combined ? new CombinedWriter(output) : new SplitWriter(output, html);
+             PrintWriter reportWriter = (report == null) ? null
+                     : new PrintWriter(Files.newBufferedWriter(report.toPath()))) {
+            if (reportWriter != null) {
+                reportWriter.println("Source,Unit,File,Milliseconds,Error");
+            }
+            // Only a limited number of sources are loaded and summarized ahead of the one being written
+            final Deque<Future<List<Summary>>> pending = new ArrayDeque<>();
+            int submitted = 0;
+            for (Source source : sources) {
+                while ((submitted < sources.size()) && (pending.size() < threads * 2)) {
+                    final Source next = sources.get(submitted++);
+                    pending.add(executor.submit(() -> summarize(next)));
+                }
+                List<Summary> summaries;
+                try {
+                    summaries = pending.remove().get();
+                } catch (ExecutionException ex) {
+                    LogManager.getLogger().error("", ex.getCause());
+                    summaries = List.of(new Summary(source.description, "", null, 0,
+                            String.valueOf(ex.getCause())));
+                }
+                for (Summary summary : summaries) {
+                    String fileName = null;
+                    if (summary.error != null) {
+                        failures.add(summary.source + (summary.unitName.isEmpty() ? "" : " (" + summary.unitName + ")")
+                                + ": " + summary.error);
+                    } else {
+                        fileName = writer.write(summary.unitName, summary.text);
+                        units++;
+                    }
+                    if (reportWriter != null) {
+                        reportWriter.println(String.join(",", StringUtils.csv(summary.source),
+                                StringUtils.csv(summary.unitName), StringUtils.csv(fileName),
+                                String.valueOf(summary.millis), StringUtils.csv(summary.error)));
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            LogManager.getLogger().error("", ex);
+            failures.add("Could not write summaries: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return EXIT_FAILURES;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("Exported %d unit summaries to %s in %.1f s%n", units, output, seconds);
+        if (seconds > 0) {
+            out.printf("  %.2f units/s using %d threads%n", units / seconds, threads);
+        }
+        if (!failures.isEmpty()) {
+            out.printf("%d failure%s:%n", failures.size(), (failures.size() == 1) ? "" : "s");
+            failures.forEach(f -> out.println("  " + f));
+            return EXIT_FAILURES;
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * @return A source for each unit in the unit cache with a name that contains any of the queries,
+     *         in order by name
+     */
+    private static List<Source> findUnits(List<String> queries) {
+        final List<Source> sources = new ArrayList<>();
+        if (queries.isEmpty()) {
+            return sources;
+        }
+        final List<MechSummary> matches = new ArrayList<>();
+        for (MechSummary summary : MechSummaryCache.getInstance().getAllMechs()) {
+            final String name = summary.getName().toLowerCase(Locale.ROOT);
+            if (queries.stream().anyMatch(name::contains)) {
+                matches.add(summary);
+            }
+        }
+        matches.sort(Comparator.comparing(MechSummary::getName));
+        for (MechSummary summary : matches) {
+            sources.add(new Source(summary.getName(), () -> Collections.singletonList(
+                    (summary.getEntryName() == null) ? new MechFileParser(summary.getSourceFile()).getEntity()
+                            : new MechFileParser(summary.getSourceFile(), summary.getEntryName()).getEntity())));
+        }
+        return sources;
+    }
+
+    private List<Summary> summarize(Source source) {
+        final long start = System.nanoTime();
+        final List<Entity> entities;
+        try {
+            entities = source.loader.call();
+        } catch (Exception ex) {
+            return List.of(new Summary(source.description, "", null, (System.nanoTime() - start) / 1_000_000,
+                    (ex.getMessage() != null) ? ex.getMessage() : ex.getClass().getSimpleName()));
+        }
+        final List<Summary> summaries = new ArrayList<>();
+        for (Entity entity : entities) {
+            final long unitStart = System.nanoTime();
+            final String name = entity.getShortNameRaw();
+            try {
+                final String text = UnitUtil.getSummaryText(entity, html, troFormat);
+                summaries.add(new Summary(source.description, name, text,
+                        (System.nanoTime() - unitStart) / 1_000_000, null));
+            } catch (Exception ex) {
+                LogManager.getLogger().error("Could not build summary for " + name, ex);
+                summaries.add(new Summary(source.description, name, null,
+                        (System.nanoTime() - unitStart) / 1_000_000, String.valueOf(ex)));
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Writes the summaries to their destination in the order they are given
+     */
+    private interface SummaryWriter extends Closeable {
+        /**
+         * @param unitName The name of the unit
+         * @param text     The summary
+         * @return         The name of the file or the anchor the summary was written to
+         * @throws IOException If the summary could not be written
+         */
+        String write(String unitName, String text) throws IOException;
+    }
+
+    /**
+     * Writes each summary to its own file in a directory
+     */
+    private static class SplitWriter implements SummaryWriter {
+        private final File dir;
+        private final String extension;
+        private final Set<String> used = new HashSet<>();
+
+        SplitWriter(File dir, boolean html) throws IOException {
+            this.dir = dir;
+            this.extension = html ? ".html" : ".txt";
+            Files.createDirectories(dir.toPath());
+        }
+
+        @Override
+        public String write(String unitName, String text) throws IOException {
+            final String base = unitName.replaceAll("[/\\\\<>:\"|?*]", "_");
+            String fileName = base + extension;
+            for (int i = 2; !used.add(fileName.toLowerCase(Locale.ROOT)); i++) {
+                fileName = base + " (" + i + ")" + extension;
+            }
+            Files.write(new File(dir, fileName).toPath(), text.getBytes(StandardCharsets.UTF_8));
+            return fileName;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Writes all summaries to one HTML file with an index. The summaries are written to a temporary
+     * file as they arrive and only the index entries are kept in memory; the index and the summaries
+     * are combined when the writer is closed.
+     */
+    private static class CombinedWriter implements SummaryWriter {
+        private final File output;
+        private final File body;
+        private final Writer bodyWriter;
+        private final List<String> names = new ArrayList<>();
+
+        CombinedWriter(File output) throws IOException {
+            this.output = output;
+            final File dir = output.getAbsoluteFile().getParentFile();
+            Files.createDirectories(dir.toPath());
+            body = File.createTempFile("summaries", ".tmp", dir);
+            bodyWriter = Files.newBufferedWriter(body.toPath(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String write(String unitName, String text) throws IOException {
+            final String anchor = "unit" + names.size();
+            names.add(unitName);
+            final Matcher matcher = BODY.matcher(text);
+            bodyWriter.write("<div class=\"unit\" id=\"" + anchor + "\">\n");
+            bodyWriter.write(matcher.find() ? matcher.group(1) : text);
+            bodyWriter.write("\n<p><a href=\"#index\">Index</a></p>\n</div>\n<hr>\n");
+            return output.getName() + "#" + anchor;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                bodyWriter.close();
+                try (Writer writer = Files.newBufferedWriter(output.toPath(), StandardCharsets.UTF_8);
+                     Reader reader = Files.newBufferedReader(body.toPath(), StandardCharsets.UTF_8)) {
+                    writer.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n"
+                            + "<title>Unit Summaries</title>\n</head>\n<body>\n");
+                    writer.write("<h1 id=\"index\">Unit Summaries</h1>\n<ul>\n");
+                    for (int i = 0; i < names.size(); i++) {
+                        writer.write("<li><a href=\"#unit" + i + "\">" + escape(names.get(i)) + "</a></li>\n");
+                    }
+                    writer.write("</ul>\n<hr>\n");
+                    reader.transferTo(writer);
+                    writer.write("</body>\n</html>\n");
+                }
+            } finally {
+                Files.deleteIfExists(body.toPath());
+            }
+        }
+
+        private static String escape(String text) {
+            return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+        }
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.MMConstants;
+import megamek.common.Entity;
+import megamek.common.MechFileParser;
+import megamek.common.annotations.Nullable;
+import megamek.common.verifier.TestEntity;
+import megameklab.MMLConstants;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Validates unit files from the command line without a display. Input can be any combination of
+ * unit files and directories, which are searched recursively for unit files. Units are parsed and
+ * checked against the construction rules on a pool of worker threads, and the result for each unit
+ * is written to a CSV or JSON report.
+ *
+ * In incremental mode the results are kept in a cache file, and units whose files have not changed
+ * since the last run are not parsed again. See {@link #usage(PrintStream)}.
+ */
+public class BatchValidator extends BatchCommand {
+    /** The command line argument that selects batch validation mode */
+    public static final String COMMAND = "--validate";
+
+    private static final String VERIFIER_OPTIONS = EntityVerifierOptions.OPTIONS_FILE;
+    private static final String DEFAULT_CACHE = CConfig.CONFIG_DIR + "/validation-cache.json";
+
+    private File report;
+    private boolean incremental = false;
+    private File cache = new File(DEFAULT_CACHE);
+    private boolean quiet = false;
+
+    /**
+     * The outcome of validating one unit file
+     */
+    public static class Result {
+        private final File source;
+        private final long modified;
+        private final long size;
+        private String unitName = "";
+        private String unitType = "";
+        private double tonnage;
+        private int battleValue;
+        private boolean loaded;
+        private boolean valid;
+        private String errors = "";
+        private long parseMillis;
+        private long validateMillis;
+        private boolean reused;
+
+        Result(File source) {
+            this.source = source;
+            this.modified = source.lastModified();
+            this.size = source.length();
+        }
+
+        public File getSource() {
+            return source;
+        }
+
+        public String getUnitName() {
+            return unitName;
+        }
+
+        public String getUnitType() {
+            return unitType;
+        }
+
+        public double getTonnage() {
+            return tonnage;
+        }
+
+        public int getBattleValue() {
+            return battleValue;
+        }
+
+        /** @return Whether the file could be parsed */
+        public boolean isLoaded() {
+            return loaded;
+        }
+
+        /** @return Whether the unit was loaded and passed validation */
+        public boolean isValid() {
+            return valid;
+        }
+
+        /** @return The validation errors, or the reason the file could not be loaded */
+        public String getErrors() {
+            return errors;
+        }
+
+        public long getParseMillis() {
+            return parseMillis;
+        }
+
+        public long getValidateMillis() {
+            return validateMillis;
+        }
+
+        /** @return Whether the result was taken from the cache instead of validating the file again */
+        public boolean isReused() {
+            return reused;
+        }
+
+        Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("source", source.getPath());
+            json.put("modified", modified);
+            json.put("size", size);
+            json.put("unit", unitName);
+            json.put("type", unitType);
+            json.put("tonnage", tonnage);
+            json.put("bv", battleValue);
+            json.put("loaded", loaded);
+            json.put("valid", valid);
+            json.put("errors", errors);
+            json.put("parseMillis", parseMillis);
+            json.put("validateMillis", validateMillis);
+            return json;
+        }
+
+        /**
+         * Restores a cached result if the file has not changed since it was validated
+         *
+         * @return The result, or null if the file has changed
+         */
+        static @Nullable Result fromJson(File source, Map<?, ?> json) {
+            final Result result = new Result(source);
+            if ((result.modified != longValue(json.get("modified")))
+                    || (result.size != longValue(json.get("size")))) {
+                return null;
+            }
+            result.unitName = String.valueOf(json.get("unit"));
+            result.unitType = String.valueOf(json.get("type"));
+            result.tonnage = (json.get("tonnage") instanceof Number) ? ((Number) json.get("tonnage")).doubleValue() : 0;
+            result.battleValue = (int) longValue(json.get("bv"));
+            result.loaded = Boolean.TRUE.equals(json.get("loaded"));
+            result.valid = Boolean.TRUE.equals(json.get("valid"));
+            result.errors = String.valueOf(json.get("errors"));
+            result.parseMillis = longValue(json.get("parseMillis"));
+            result.validateMillis = longValue(json.get("validateMillis"));
+            result.reused = true;
+            return result;
+        }
+
+        private static long longValue(Object value) {
+            return (value instanceof Number) ? ((Number) value).longValue() : -1;
+        }
+    }
+
+    private BatchValidator(PrintStream out) {
+        super(out, BatchValidator::usage);
+    }
+
+    /**
+     * Parses the arguments and runs the validation.
+     *
+     * @param args The command line arguments following {@link #COMMAND}
+     * @return     The exit status
+     */
+    public static int run(String... args) {
+        return new BatchValidator(System.out).execute(args);
+    }
+
+    /**
+     * Prints a summary of the command line arguments
+     *
+     * @param stream The stream to print to
+     */
+    public static void usage(PrintStream stream) {
+        stream.println("Usage: MegaMekLab " + COMMAND + " [options] <unit file|directory>...");
+        stream.println();
+        stream.println("  --report <file>         Write the result of each unit to a report. The format is JSON");
+        stream.println("                          if the file name ends with .json, and CSV otherwise.");
+        stream.println("  --incremental           Reuse the results for files that have not changed since the");
+        stream.println("                          last incremental run");
+        stream.println("  --cache <file>          The results file used by --incremental");
+        stream.println("                          (default: " + DEFAULT_CACHE + ")");
+        stream.println("  --threads <n>           Number of worker threads (default: number of processors)");
+        stream.println("  -q, --quiet             Only print the summary");
+        stream.println("  -h, --help              Show this message");
+        stream.println();
+        stream.println("Directories are searched recursively for .mtf and .blk files.");
+    }
+
+    @Override
+    protected int parseOption(String[] args, int i) {
+        final String arg = args[i];
+        switch (arg) {
+            case "--report":
+                report = new File(argumentValue(args, ++i, arg));
+                break;
+            case "--incremental":
+                incremental = true;
+                break;
+            case "--cache":
+                cache = new File(argumentValue(args, ++i, arg));
+                break;
+            case "-q":
+            case "--quiet":
+                quiet = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+        return i;
+    }
+
+    @Override
+    protected int process() {
+        final long start = System.nanoTime();
+        final List<File> files = UnitFiles.collect(inputs);
+        final Map<String, Map<?, ?>> previous = incremental ? readCache(cache) : Collections.emptyMap();
+
+        final List<Result> results;
+        try {
+            results = validate(files, previous, threads);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return EXIT_FAILURES;
+        }
+
+        int invalid = 0;
+        int failed = 0;
+        int reused = 0;
+        for (Result result : results) {
+            if (result.isReused()) {
+                reused++;
+            }
+            if (!result.isLoaded()) {
+                failed++;
+                if (!quiet) {
+                    out.println(result.getSource().getPath() + ": could not be loaded: " + result.getErrors());
+                }
+            } else if (!result.isValid()) {
+                invalid++;
+                if (!quiet) {
+                    out.println(result.getSource().getPath() + " (" + result.getUnitName() + "):");
+                    for (String line : result.getErrors().split("\\R")) {
+                        if (!line.isBlank()) {
+                            out.println("  " + line.trim());
+                        }
+                    }
+                }
+            }
+        }
+
+        try {
+            if (report != null) {
+                writeReport(results, report);
+            }
+            if (incremental) {
+                writeJson(results, cache);
+            }
+        } catch (IOException ex) {
+            LogManager.getLogger().error("", ex);
+            System.err.println("Could not write report: " + ex.getMessage());
+            return EXIT_FAILURES;
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("Validated %d units in %.1f s: %d invalid, %d could not be loaded%n",
+                results.size(), seconds, invalid, failed);
+        if (reused > 0) {
+            out.printf("  %d unchanged units were not validated again%n", reused);
+        }
+        if (seconds > 0) {
+            out.printf("  %.2f units/s using %d threads%n", (results.size() - reused) / seconds, threads);
+        }
+        return ((invalid > 0) || (failed > 0)) ? EXIT_FAILURES : EXIT_OK;
+    }
+
+    /**
+     * Parses and validates unit files in parallel.
+     *
+     * @param files    The unit files
+     * @param previous Cached results by file path; files that have not changed since their cached
+     *                 result was recorded are not validated again
+     * @param threads  The number of worker threads
+     * @return         The results, in the same order as the files
+     * @throws InterruptedException If the thread is interrupted while waiting for the results
+     */
+    public static List<Result> validate(List<File> files, Map<String, ? extends Map<?, ?>> previous,
+                                        int threads) throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            final List<Future<Result>> futures = new ArrayList<>();
+            for (File file : files) {
+                futures.add(executor.submit(() -> validate(file, previous.get(file.getPath()))));
+            }
+            final List<Result> results = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException ex) {
+                    // validate(File) handles its own errors, so this is unexpected
+                    LogManager.getLogger().error("", ex.getCause());
+                    Result result = new Result(files.get(i));
+                    result.errors = String.valueOf(ex.getCause());
+                    results.add(result);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Result validate(File file, @Nullable Map<?, ?> cached) {
+        if (cached != null) {
+            final Result result = Result.fromJson(file, cached);
+            if (result != null) {
+                return result;
+            }
+        }
+        final Result result = new Result(file);
+        long start = System.nanoTime();
+        final Entity entity;
+        try {
+            entity = new MechFileParser(file).getEntity();
+        } catch (Exception ex) {
+            result.errors = (ex.getMessage() != null) ? ex.getMessage() : ex.getClass().getSimpleName();
+            return result;
+        } finally {
+            result.parseMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+        if (entity == null) {
+            result.errors = "No unit found";
+            return result;
+        }
+        result.loaded = true;
+        result.unitName = entity.getShortNameRaw();
+        result.unitType = Entity.getEntityTypeName(entity.getEntityType());
+        result.tonnage = entity.getWeight();
+
+        start = System.nanoTime();
+        try {
+            final TestEntity testEntity = UnitUtil.getEntityVerifier(entity);
+            final StringBuffer sb = new StringBuffer();
+            result.valid = (testEntity == null) || testEntity.correctEntity(sb, entity.getTechLevel());
+            result.errors = sb.toString().trim();
+            result.battleValue = entity.calculateBattleValue();
+        } catch (Exception ex) {
+            LogManager.getLogger().error("Could not validate " + file, ex);
+            result.valid = false;
+            result.errors = "Validation failed: " + ex;
+        } finally {
+            result.validateMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+        return result;
+    }
+
+    /**
+     * Writes a report, in JSON format if the file name ends with .json and CSV otherwise
+     *
+     * @param results The results
+     * @param file    The report file
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeReport(List<Result> results, File file) throws IOException {
+        if (file.getName().toLowerCase(Locale.ROOT).endsWith(".json")) {
+            writeJson(results, file);
+        } else {
+            writeCSV(results, file);
+        }
+    }
+
+    private static void writeCSV(List<Result> results, File file) throws IOException {
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file.toPath()))) {
+            pw.println("Source,Unit,Type,Tonnage,BV,Loaded,Valid,Parse Milliseconds,Validate Milliseconds,Errors");
+            for (Result result : results) {
+                pw.println(String.join(",", StringUtils.csv(result.getSource().getPath()),
+                        StringUtils.csv(result.getUnitName()), StringUtils.csv(result.getUnitType()),
+                        String.valueOf(result.getTonnage()), String.valueOf(result.getBattleValue()),
+                        String.valueOf(result.isLoaded()),
+                        String.valueOf(result.isValid()), String.valueOf(result.getParseMillis()),
+                        String.valueOf(result.getValidateMillis()), StringUtils.csv(result.getErrors())));
+            }
+        }
+    }
+
+    private static void writeJson(List<Result> results, File file) throws IOException {
+        final List<Map<String, Object>> units = new ArrayList<>();
+        for (Result result : results) {
+            units.add(result.toJson());
+        }
+        final Map<String, Object> json = new LinkedHashMap<>(cacheHeader());
+        json.put("units", units);
+        if (file.getAbsoluteFile().getParentFile() != null) {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        }
+        Files.write(file.toPath(), SimpleJson.write(json).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The values that must be unchanged for cached results to be reused: the modification time
+     *         of the validation options, and the versions and builds of MegaMek and MegaMekLab, which
+     *         define the construction rules and equipment
+     */
+    private static Map<String, Object> cacheHeader() {
+        final Map<String, Object> header = new LinkedHashMap<>();
+        header.put("verifierOptionsModified", String.valueOf(new File(VERIFIER_OPTIONS).lastModified()));
+        header.put("megamekVersion", MMConstants.VERSION.toString());
+        header.put("megameklabVersion", MMLConstants.VERSION.toString());
+        header.put("megamekBuild", BuildStamp.of(TestEntity.class));
+        header.put("megameklabBuild", BuildStamp.of(BatchValidator.class));
+        return header;
+    }
+
+    /**
+     * Reads the results of the last incremental run. Nothing is reused if the validation options
+     * or the versions of MegaMek or MegaMekLab have changed since then.
+     *
+     * @return The cached results by file path
+     */
+    private static Map<String, Map<?, ?>> readCache(File file) {
+        final Map<String, Map<?, ?>> cached = new HashMap<>();
+        if (!file.isFile()) {
+            return cached;
+        }
+        try {
+            final Map<String, Object> json = SimpleJson.parseObject(
+                    new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            for (Map.Entry<String, Object> entry : cacheHeader().entrySet()) {
+                if (!entry.getValue().equals(json.get(entry.getKey()))) {
+                    return cached;
+                }
+            }
+            if (json.get("units") instanceof List) {
+                for (Object unit : (List<?>) json.get("units")) {
+                    if ((unit instanceof Map) && (((Map<?, ?>) unit).get("source") != null)) {
+                        cached.put(String.valueOf(((Map<?, ?>) unit).get("source")), (Map<?, ?>) unit);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            LogManager.getLogger().warn("Could not read validation cache " + file, ex);
+        }
+        return cached;
+    }
+}
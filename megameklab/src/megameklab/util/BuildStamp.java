@@ -0,0 +1,43 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+
+/**
+ * Identifies the build of the code a class was loaded from, for data written to disk that must not be
+ * reused by a different build of the same version.
+ */
+public final class BuildStamp {
+    private BuildStamp() {
+    }
+
+    /**
+     * @param type A class from the jar or directory to identify
+     * @return     The modification time of the jar or directory the class was loaded from, or an empty
+     *             string if unknown
+     */
+    public static String of(Class<?> type) {
+        try {
+            final CodeSource source = type.getProtectionDomain().getCodeSource();
+            if ((source != null) && (source.getLocation() != null)) {
+                return String.valueOf(new File(source.getLocation().toURI()).lastModified());
+            }
+        } catch (URISyntaxException | IllegalArgumentException | SecurityException ignored) {
+        }
+        return "";
+    }
+}
@@ -18,8 +18,17 @@ package megameklab.util;
 import org.apache.logging.log4j.LogManager;
 
 import java.awt.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeListenerProxy;
+import java.beans.PropertyChangeSupport;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.*;
 
 /**
  * Class for Client's configuration.
@@ -101,14 +110,39 @@ public class CConfig {
     public static final String RS_REFERENCE = "rs_reference";
     public static final String RS_SCALE_FACTOR = "rs_scale_factor";
     public static final String RS_SCALE_UNITS = "rs_scale_units";
+    public static final String RS_IMAGE_DPI = "rs_image_dpi";
+    public static final String RS_IMAGE_TARGET_DPI = "rs_image_target_dpi";
 
     public static final String NAG_EQUIPMENT_CTRLCLICK = "nag_equipment_ctrlclick";
 
+    public static final String ENTITY_CACHE_ENTRIES = "entity_cache_entries";
+    public static final String ENTITY_CACHE_MB = "entity_cache_mb";
+
+    /** The number of seconds between autosaves of the unit being edited, or zero to disable autosave */
+    public static final String AUTOSAVE_INTERVAL = "autosave_interval";
+
     /**
      * Player configuration values.
      */
     private static Properties config = getDefaults();
 
+    /** Parsed values of integer parameters, empty if the value is not a valid integer */
+    private static final Map<String, Optional<Integer>> intValues = new ConcurrentHashMap<>();
+    private static final Map<String, Boolean> booleanValues = new ConcurrentHashMap<>();
+
+    private static final PropertyChangeSupport changeSupport = new PropertyChangeSupport(CConfig.class);
+
+    /** The time to wait after a change before writing the config file, so that bursts of changes are written once */
+    private static final long SAVE_DELAY_MILLIS = 500;
+
+    private static final ScheduledExecutorService saveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Config file writing");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static ScheduledFuture<?> pendingSave = null;
+
     // METHODS
     /**
      * Private method that loads hardcoded defaults. These are loaded before the
@@ -136,7 +170,12 @@ public class CConfig {
         defaults.setProperty(RS_SHOW_PILOT_DATA, Boolean.toString(true));
         defaults.setProperty(RS_SCALE_FACTOR, "1");
         defaults.setProperty(RS_SCALE_UNITS, RSScale.HEXES.toString());
+        defaults.setProperty(RS_IMAGE_DPI, "300");
+        defaults.setProperty(RS_IMAGE_TARGET_DPI, "300");
         defaults.setProperty(NAG_EQUIPMENT_CTRLCLICK, Boolean.toString(true));
+        defaults.setProperty(ENTITY_CACHE_ENTRIES, "200");
+        defaults.setProperty(ENTITY_CACHE_MB, "32");
+        defaults.setProperty(AUTOSAVE_INTERVAL, "60");
 
         return defaults;
     }
@@ -187,6 +226,18 @@ public class CConfig {
         } catch (Exception ex) {
             LogManager.getLogger().error("", ex);
         }
+        intValues.clear();
+        booleanValues.clear();
+        // A null property name tells listeners that any value may have changed. PropertyChangeSupport
+        // only passes events with a property name to listeners for a single value, so they are called here.
+        final PropertyChangeEvent reload = new PropertyChangeEvent(CConfig.class, null, null, null);
+        for (PropertyChangeListener listener : changeSupport.getPropertyChangeListeners()) {
+            if (listener instanceof PropertyChangeListenerProxy) {
+                ((PropertyChangeListenerProxy) listener).getListener().propertyChange(reload);
+            } else {
+                listener.propertyChange(reload);
+            }
+        }
     }
     
     /**
@@ -217,10 +268,7 @@ public class CConfig {
      * @return           The value associated with the key
      */
     public static String getParam(String param, String defaultVal) {
-        if (param.endsWith(":")) {
-            param = param.substring(0, param.lastIndexOf(":"));
-        }
-        String tparam = config.getProperty(param);
+        String tparam = config.getProperty(key(param));
         if (tparam == null) {
             tparam = defaultVal;
         }
@@ -243,7 +291,66 @@ public class CConfig {
      * @param value the value to set the parameter to
      */
     public static void setParam(String param, String value) {
-        config.setProperty(param, value);
+        final String key = key(param);
+        final Object oldValue = config.setProperty(key, value);
+        // Cached values are removed after the new value is set, so a value being parsed on
+        // another thread at the same time cannot leave the old value in the cache
+        intValues.remove(key);
+        booleanValues.remove(key);
+        if (!value.equals(oldValue)) {
+            changeSupport.firePropertyChange(key, oldValue, value);
+        }
+    }
+
+    /**
+     * Adds a listener that is notified when a config value changes. The property name of the event
+     * is the key of the value, or null when the config file has been reloaded and any value may have
+     * changed. Listeners are notified on the thread that changed the value.
+     *
+     * @param listener The listener
+     */
+    public static void addChangeListener(PropertyChangeListener listener) {
+        changeSupport.addPropertyChangeListener(listener);
+    }
+
+    /**
+     * Adds a listener that is notified when a single config value changes, or when the config file
+     * has been reloaded.
+     *
+     * @param param    The key
+     * @param listener The listener
+     */
+    public static void addChangeListener(String param, PropertyChangeListener listener) {
+        changeSupport.addPropertyChangeListener(key(param), listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addChangeListener(PropertyChangeListener)}.
+     *
+     * @param listener The listener
+     */
+    public static void removeChangeListener(PropertyChangeListener listener) {
+        changeSupport.removePropertyChangeListener(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addChangeListener(String, PropertyChangeListener)}.
+     *
+     * @param param    The key the listener was added for
+     * @param listener The listener
+     */
+    public static void removeChangeListener(String param, PropertyChangeListener listener) {
+        changeSupport.removePropertyChangeListener(key(param), listener);
+    }
+
+    /**
+     * Removes the trailing colon that some callers include in the key
+     */
+    private static String key(String param) {
+        if (param.endsWith(":")) {
+            return param.substring(0, param.lastIndexOf(":"));
+        }
+        return param;
     }
 
     /**
@@ -256,13 +363,14 @@ public class CConfig {
      * @return The integer value of the property
      */
     public static int getIntParam(String param, int defaultVal) {
-        int toReturn;
-        try {
-            toReturn = Integer.parseInt(CConfig.getParam(param));
-        } catch (Exception ex) {
-            return defaultVal;
-        }
-        return toReturn;
+        final String key = key(param);
+        return intValues.computeIfAbsent(key, k -> {
+            try {
+                return Optional.of(Integer.parseInt(getParam(k)));
+            } catch (NumberFormatException ex) {
+                return Optional.empty();
+            }
+        }).orElse(defaultVal);
     }
 
     /**
@@ -282,46 +390,75 @@ public class CConfig {
      * property does not exist.
      */
     public static boolean getBooleanParam(String param) {
-        boolean toReturn;
-        try {
-            toReturn = Boolean.parseBoolean(CConfig.getParam(param));
-        } catch (Exception ex) {
-            return false;
-        }
-        return toReturn;
+        return booleanValues.computeIfAbsent(key(param), k -> Boolean.parseBoolean(getParam(k)));
     }
 
     /**
-     * Write the config file out to ./data/mwconfig.txt.
+     * Schedules the config file to be written in the background. Changes made within a short
+     * time of each other are written together.
      */
-    public static void saveConfig() {
+    public static synchronized void saveConfig() {
+        if ((pendingSave == null) || pendingSave.isDone()) {
+            pendingSave = saveExecutor.schedule(CConfig::writeConfig, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
 
+    /**
+     * Writes the config file immediately, and waits for any write in progress to finish.
+     * This is called when the application exits.
+     */
+    public static void flushConfig() {
+        synchronized (CConfig.class) {
+            if (pendingSave != null) {
+                pendingSave.cancel(false);
+                pendingSave = null;
+            }
+        }
         try {
-
-            FileOutputStream fos = new FileOutputStream(CONFIG_BACKUP_FILE);
-            PrintStream ps = new PrintStream(fos);
-            config.store(ps, "Client Config Backup");
-            fos.close();
-            ps.close();
-        } catch (FileNotFoundException ignored) {
-
-        } catch (Exception ex) {
+            saveExecutor.submit(CConfig::writeConfig).get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException ex) {
             LogManager.getLogger().error("", ex);
-            return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         }
-        try {
-            FileOutputStream fos = new FileOutputStream(CONFIG_FILE);
-            PrintStream ps = new PrintStream(fos);
-            config.store(ps, "Client Config");
-            fos.close();
-            ps.close();
-        } catch (FileNotFoundException ignored) {
+    }
 
+    /**
+     * Writes the backup and then the config file. Each file is written to a temporary file that
+     * replaces it when complete, so a crash while saving cannot leave a truncated config.
+     */
+    private static void writeConfig() {
+        // Properties is synchronized, so the copy is consistent even if values change meanwhile
+        final Properties snapshot = (Properties) config.clone();
+        try {
+            Files.createDirectories(Paths.get(CONFIG_DIR));
+            writeAtomically(snapshot, Paths.get(CONFIG_BACKUP_FILE), "Client Config Backup");
+            writeAtomically(snapshot, Paths.get(CONFIG_FILE), "Client Config");
         } catch (Exception ex) {
             LogManager.getLogger().error("", ex);
         }
     }
 
+    private static void writeAtomically(Properties properties, Path target, String comments) throws IOException {
+        final Path temp = Files.createTempFile(target.toAbsolutePath().getParent(),
+                target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(temp)) {
+                properties.store(os, comments);
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
     public static Color getForegroundColor(String fieldName) {
         Color masterColor = Color.black;
         try {
@@ -0,0 +1,54 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.common.verifier.EntityVerifier;
+
+import java.io.File;
+
+/**
+ * Holds the unit verifier options shared by all views and validation, so the options file is read once
+ * rather than every time a unit is tested. The file is read again if it has been modified, which is checked
+ * at most once every {@link #RECHECK_MILLIS}.
+ */
+public final class EntityVerifierOptions {
+    /** The file with the options for the unit verifier */
+    public static final String OPTIONS_FILE = "data/mechfiles/UnitVerifierOptions.xml";
+
+    /** The minimum time between checks for changes to the options file */
+    static final long RECHECK_MILLIS = 2000;
+
+    private static EntityVerifier verifier = null;
+    private static long modified = 0;
+    private static long checked = 0;
+
+    private EntityVerifierOptions() {
+    }
+
+    /**
+     * @return The entity verifier with the current options
+     */
+    public static synchronized EntityVerifier get() {
+        final long now = System.currentTimeMillis();
+        if ((verifier == null) || (now - checked > RECHECK_MILLIS)) {
+            checked = now;
+            final long lastModified = new File(OPTIONS_FILE).lastModified();
+            if ((verifier == null) || (lastModified != modified)) {
+                verifier = EntityVerifier.getInstance(new File(OPTIONS_FILE));
+                modified = lastModified;
+            }
+        }
+        return verifier;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.common.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers whether fluff image files exist from an in-memory listing of each directory, so that
+ * looking up the image for a unit does not probe the file system once for every candidate name.
+ * A directory is listed the first time a file in it is looked up, and listed again if its
+ * modification time has changed, which is checked at most once every {@link #RECHECK_MILLIS}.
+ *
+ * Names are matched exactly, or ignoring case if the directory is on a file system that ignores case,
+ * so the result is the same as {@link File#exists()}. If it cannot be told whether the file system
+ * ignores case, names that are not in the listing are looked up with {@link File#exists()}.
+ */
+final class FluffImageIndex {
+    /** The minimum time between checks for changes to a directory that has been listed */
+    static final long RECHECK_MILLIS = 2000;
+
+    private static final Map<String, Directory> directories = new ConcurrentHashMap<>();
+
+    private FluffImageIndex() {
+    }
+
+    /**
+     * @param file The file
+     * @return     Whether the file or a directory with that name exists
+     */
+    static boolean exists(File file) {
+        final File absolute = file.getAbsoluteFile();
+        final File parent = absolute.getParentFile();
+        if (parent == null) {
+            return file.exists();
+        }
+        return directory(parent).contains(absolute.getName());
+    }
+
+    /**
+     * Removes all directory listings, so that they are listed again on the next lookup
+     */
+    static void clear() {
+        directories.clear();
+    }
+
+    private static Directory directory(File dir) {
+        final String key = dir.getPath();
+        Directory directory = directories.get(key);
+        final long now = System.currentTimeMillis();
+        if (directory == null) {
+            directory = Directory.list(dir, now);
+            directories.put(key, directory);
+        } else if (now - directory.checked > RECHECK_MILLIS) {
+            if (dir.lastModified() != directory.modified) {
+                directory = Directory.list(dir, now);
+                directories.put(key, directory);
+            } else {
+                directory.checked = now;
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * The names of the files in a directory when it was last listed
+     */
+    private static class Directory {
+        private final File dir;
+        private final long modified;
+        private final Set<String> names;
+        private final Set<String> lowerCaseNames;
+        private final Boolean ignoresCase;
+        private volatile long checked;
+
+        private Directory(File dir, long modified, Set<String> names, @Nullable Boolean ignoresCase,
+                          long checked) {
+            this.dir = dir;
+            this.modified = modified;
+            this.names = names;
+            this.ignoresCase = ignoresCase;
+            this.checked = checked;
+            if (Boolean.TRUE.equals(ignoresCase)) {
+                lowerCaseNames = new HashSet<>();
+                names.forEach(n -> lowerCaseNames.add(n.toLowerCase(Locale.ROOT)));
+            } else {
+                lowerCaseNames = Collections.emptySet();
+            }
+        }
+
+        static Directory list(File dir, long now) {
+            final long modified = dir.lastModified();
+            final String[] contents = dir.list();
+            if (contents == null) {
+                return new Directory(dir, modified, Collections.emptySet(), null, now);
+            }
+            final Set<String> names = new HashSet<>();
+            Collections.addAll(names, contents);
+            return new Directory(dir, modified, names, ignoresCase(dir, names), now);
+        }
+
+        /**
+         * Tests whether the file system ignores case by looking up an existing name in a different case,
+         * which is a file in the directory or, if none of them has a name that can be changed, the
+         * directory itself.
+         *
+         * @return Whether case is ignored, or null if there is no name to test
+         */
+        private static @Nullable Boolean ignoresCase(File dir, Set<String> names) {
+            for (String name : names) {
+                final String otherCase = otherCase(name, names);
+                if (otherCase != null) {
+                    return new File(dir, otherCase).exists();
+                }
+            }
+            final File parent = dir.getAbsoluteFile().getParentFile();
+            final String otherCase = otherCase(dir.getName(), Collections.emptySet());
+            if ((parent == null) || (otherCase == null)) {
+                return null;
+            }
+            try {
+                return Files.isSameFile(dir.toPath(), new File(parent, otherCase).toPath());
+            } catch (IOException | SecurityException ex) {
+                // Usually because there is no file with that name, so case matters
+                return false;
+            }
+        }
+
+        /**
+         * @return The name in upper or lower case if that is different and not another name in the
+         *         directory, or null if there is no such name
+         */
+        private static @Nullable String otherCase(String name, Set<String> names) {
+            for (String candidate : new String[] { name.toUpperCase(Locale.ROOT), name.toLowerCase(Locale.ROOT) }) {
+                if (!candidate.equals(name) && !names.contains(candidate)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        boolean contains(String name) {
+            if (names.contains(name)) {
+                return true;
+            } else if (ignoresCase == null) {
+                return new File(dir, name).exists();
+            }
+            return ignoresCase && lowerCaseNames.contains(name.toLowerCase(Locale.ROOT));
+        }
+    }
+}
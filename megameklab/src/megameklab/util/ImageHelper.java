@@ -43,7 +43,8 @@ public class ImageHelper {
     /**
      * Checks for a fluff image for the unit starting with any file explicitly associated with the
      * unit then in the default directory for the unit type for a file consisting of the name of the
-     * unit with an image format extension.
+     * unit with an image format extension. Files are looked up in the {@link FluffImageIndex}
+     * rather than on disk.
      * 
      * @param unit The unit to find a fluff image for
      * @param dir  The directory to check for a default image based on unit name
@@ -55,11 +56,11 @@ public class ImageHelper {
         
         if (unit.getFluff().getMMLImagePath().length() > 0) {
             f = new File(unit.getFluff().getMMLImagePath());
-            if (f.exists()) {
+            if (FluffImageIndex.exists(f)) {
                 return f;
             }
             f = new File(path, unit.getFluff().getMMLImagePath());
-            if (f.exists()) {
+            if (FluffImageIndex.exists(f)) {
                 return f;
             }
         }
@@ -68,18 +69,18 @@ public class ImageHelper {
         final String [] EXTENSIONS = { ".png", ".PNG", ".jpg", ".JPG", ".jpeg", ".JPEG", ".gif", ".GIF" };
         for (String ext : EXTENSIONS) {
             f = new File(path, unit.getShortNameRaw() + ext);
-            if (f.exists()) {
+            if (FluffImageIndex.exists(f)) {
                 return f;
             }
         }
         for (String ext : EXTENSIONS) {
             f = new File(path, unit.getChassis() + ext);
-            if (f.exists()) {
+            if (FluffImageIndex.exists(f)) {
                 return f;
             }
         }
         f = new File(path, "hud.png");
-        if (f.exists()) {
+        if (FluffImageIndex.exists(f)) {
             return f;
         }
         return null;
@@ -96,10 +97,10 @@ public class ImageHelper {
         String path = new File(fluffPath).getAbsolutePath()
                 + File.separatorChar + image;
 
-        if (!(new File(path).exists())) {
+        if (!FluffImageIndex.exists(new File(path))) {
 
             path = new File(image).getAbsolutePath();
-            if (!(new File(path).exists())) {
+            if (!FluffImageIndex.exists(new File(path))) {
                 return null;
             }
         }
@@ -138,20 +139,20 @@ public class ImageHelper {
 
         String fluffFile = path + unit.getChassis() + " " + unit.getModel()
                 + ".png";
-        if (new File(fluffFile.toLowerCase()).exists()) {
+        if (FluffImageIndex.exists(new File(fluffFile.toLowerCase()))) {
             fluff = new ImageIcon(fluffFile).getImage();
         }
 
         if (fluff == null) {
             fluffFile = path + unit.getModel() + ".png";
-            if (new File(fluffFile.toLowerCase()).exists()) {
+            if (FluffImageIndex.exists(new File(fluffFile.toLowerCase()))) {
                 fluff = new ImageIcon(fluffFile).getImage();
             }
         }
 
         if (fluff == null) {
             fluffFile = path + unit.getChassis() + ".png";
-            if (new File(fluffFile.toLowerCase()).exists()) {
+            if (FluffImageIndex.exists(new File(fluffFile.toLowerCase()))) {
                 fluff = new ImageIcon(fluffFile).getImage();
             }
         }
@@ -164,20 +165,20 @@ public class ImageHelper {
 
         String fluffFile = path + unit.getChassis() + " " + unit.getModel()
                 + ".jpg";
-        if (new File(fluffFile.toLowerCase()).exists()) {
+        if (FluffImageIndex.exists(new File(fluffFile.toLowerCase()))) {
             fluff = new ImageIcon(fluffFile).getImage();
         }
 
         if (fluff == null) {
             fluffFile = path + unit.getModel() + ".jpg";
-            if (new File(fluffFile.toLowerCase()).exists()) {
+            if (FluffImageIndex.exists(new File(fluffFile.toLowerCase()))) {
                 fluff = new ImageIcon(fluffFile).getImage();
             }
         }
 
         if (fluff == null) {
             fluffFile = path + unit.getChassis() + ".jpg";
-            if (new File(fluffFile.toLowerCase()).exists()) {
+            if (FluffImageIndex.exists(new File(fluffFile.toLowerCase()))) {
                 fluff = new ImageIcon(fluffFile).getImage();
             }
         }
@@ -190,20 +191,20 @@ public class ImageHelper {
 
         String fluffFile = path + unit.getChassis() + " " + unit.getModel()
                 + ".gif";
-        if (new File(fluffFile.toLowerCase()).exists()) {
+        if (FluffImageIndex.exists(new File(fluffFile.toLowerCase()))) {
             fluff = new ImageIcon(fluffFile).getImage();
         }
 
         if (fluff == null) {
             fluffFile = path + unit.getModel() + ".gif";
-            if (new File(fluffFile.toLowerCase()).exists()) {
+            if (FluffImageIndex.exists(new File(fluffFile.toLowerCase()))) {
                 fluff = new ImageIcon(fluffFile).getImage();
             }
         }
 
         if (fluff == null) {
             fluffFile = path + unit.getChassis() + ".gif";
-            if (new File(fluffFile.toLowerCase()).exists()) {
+            if (FluffImageIndex.exists(new File(fluffFile.toLowerCase()))) {
                 fluff = new ImageIcon(fluffFile).getImage();
             }
         }
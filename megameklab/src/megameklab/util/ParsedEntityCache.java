@@ -0,0 +1,232 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.common.Entity;
+import megamek.common.MechFileParser;
+import megamek.common.annotations.Nullable;
+import megamek.common.loaders.EntityLoadingException;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Caches units parsed from files for the session, so that opening the same file again in the
+ * unit selector, the render service or the "from file" reports does not parse it again. The command
+ * line tools read each file once and parse it directly.
+ *
+ * Entries are keyed by the canonical path, modification time and size of the file, so a file that
+ * is changed on disk is parsed again. The cache holds each unit in serialized form and every request
+ * returns a new copy, so changes made to a unit that was handed out never affect the cache. The number
+ * of entries and the total size of the serialized units are limited by {@link CConfig#ENTITY_CACHE_ENTRIES}
+ * and {@link CConfig#ENTITY_CACHE_MB}; the least recently used entries are removed first.
+ */
+public final class ParsedEntityCache {
+    private static final int DEFAULT_MAX_ENTRIES = 200;
+    private static final int DEFAULT_MAX_MB = 32;
+
+    private static final Map<Key, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedBytes = 0;
+    private static long hits = 0;
+    private static long misses = 0;
+    private static long evictions = 0;
+
+    private ParsedEntityCache() {
+    }
+
+    /**
+     * Loads a unit from a file, using a cached copy if the file has not changed since it was parsed.
+     *
+     * @param file The unit file
+     * @return     The unit
+     * @throws EntityLoadingException If the file cannot be parsed
+     */
+    public static Entity load(File file) throws EntityLoadingException {
+        return load(file, null);
+    }
+
+    /**
+     * Loads a unit from a file or an entry in a zip file, using a cached copy if the file has not
+     * changed since it was parsed.
+     *
+     * @param file      The unit file or zip file
+     * @param entryName The name of the entry in the zip file, or null if the file is a unit file
+     * @return          The unit
+     * @throws EntityLoadingException If the file cannot be parsed
+     */
+    public static Entity load(File file, @Nullable String entryName) throws EntityLoadingException {
+        final Key key = Key.of(file, entryName);
+        byte[] bytes = null;
+        if (key != null) {
+            synchronized (ParsedEntityCache.class) {
+                bytes = cache.get(key);
+            }
+        }
+        if (bytes != null) {
+            final Entity entity = deserialize(bytes);
+            if (entity != null) {
+                synchronized (ParsedEntityCache.class) {
+                    hits++;
+                }
+                return entity;
+            }
+            // The entry is unusable, so drop it and count the request as a miss
+            remove(key, bytes);
+        }
+        if (key != null) {
+            synchronized (ParsedEntityCache.class) {
+                misses++;
+            }
+        }
+        // Parse outside the lock so that files can be loaded concurrently
+        final Entity entity = (entryName == null) ? new MechFileParser(file).getEntity()
+                : new MechFileParser(file, entryName).getEntity();
+        if ((key != null) && (entity != null)) {
+            bytes = serialize(entity);
+            if (bytes != null) {
+                put(key, bytes);
+            }
+        }
+        return entity;
+    }
+
+    /**
+     * Removes all cached units.
+     */
+    public static synchronized void clear() {
+        cache.clear();
+        cachedBytes = 0;
+    }
+
+    /**
+     * @return The fraction of requests that were served from the cache, or 0 if there have not been any
+     */
+    public static synchronized double getHitRate() {
+        return (hits + misses == 0) ? 0.0 : (double) hits / (hits + misses);
+    }
+
+    /**
+     * @return A summary of the cache size and usage
+     */
+    public static synchronized String getStatistics() {
+        return String.format("%d units (%.1f MB); %d hits, %d misses (%.0f%% hit rate), %d evicted",
+                cache.size(), cachedBytes / (1024.0 * 1024.0), hits, misses, getHitRate() * 100.0, evictions);
+    }
+
+    private static synchronized void put(Key key, byte[] bytes) {
+        final int maxEntries = Math.max(0, CConfig.getIntParam(CConfig.ENTITY_CACHE_ENTRIES, DEFAULT_MAX_ENTRIES));
+        final long maxBytes = Math.max(0, CConfig.getIntParam(CConfig.ENTITY_CACHE_MB, DEFAULT_MAX_MB)) * 1024L * 1024L;
+        if ((maxEntries == 0) || (bytes.length > maxBytes)) {
+            return;
+        }
+        final byte[] previous = cache.put(key, bytes);
+        if (previous != null) {
+            cachedBytes -= previous.length;
+        }
+        cachedBytes += bytes.length;
+        final Iterator<Map.Entry<Key, byte[]>> iter = cache.entrySet().iterator();
+        while (((cache.size() > maxEntries) || (cachedBytes > maxBytes)) && iter.hasNext()) {
+            cachedBytes -= iter.next().getValue().length;
+            iter.remove();
+            evictions++;
+        }
+    }
+
+    private static synchronized void remove(Key key, byte[] bytes) {
+        // Another thread may already have replaced the entry
+        if (cache.remove(key, bytes)) {
+            cachedBytes -= bytes.length;
+            evictions++;
+        }
+    }
+
+    private static @Nullable byte[] serialize(Entity entity) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(entity);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            // Not fatal; the unit just is not cached
+            LogManager.getLogger().warn("Could not cache " + entity.getShortNameRaw(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * @return The unit with its transient state rebuilt, or null if the entry cannot be used
+     */
+    private static @Nullable Entity deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            final Entity entity = (Entity) in.readObject();
+            entity.restore();
+            return entity;
+        } catch (Exception ex) {
+            LogManager.getLogger().warn("Could not read cached unit", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Identifies a version of a unit file
+     */
+    private static class Key {
+        private final String path;
+        private final String entryName;
+        private final long modified;
+        private final long size;
+
+        private Key(String path, String entryName, long modified, long size) {
+            this.path = path;
+            this.entryName = entryName;
+            this.modified = modified;
+            this.size = size;
+        }
+
+        /**
+         * @return The key for the file in its current state, or null if the file cannot be read
+         */
+        static @Nullable Key of(File file, @Nullable String entryName) {
+            try {
+                final long modified = file.lastModified();
+                if (modified == 0L) {
+                    return null;
+                }
+                return new Key(file.getCanonicalPath(), entryName, modified, file.length());
+            } catch (IOException | SecurityException ex) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return modified == key.modified &&
+                    size == key.size &&
+                    path.equals(key.path) &&
+                    Objects.equals(entryName, key.entryName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, entryName, modified, size);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megameklab.MMLConstants;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records how long application startup, building the editor windows and loading units take. Each timing
+ * is written to the log, kept for the session to show in the Help menu, and appended to
+ * {@link #HISTORY_FILE} so that changes between releases can be compared.
+ *
+ * Timings recorded while the history is being written are appended together. The history keeps the
+ * last {@link #MAX_SESSIONS} sessions, and older ones are removed the first time a session writes to it.
+ */
+public final class PerformanceLog {
+    public static final String HISTORY_FILE = CConfig.CONFIG_DIR + "/performance-history.csv";
+
+    public static final String STARTUP = "Startup";
+    public static final String MAIN_UI = "Main UI";
+    public static final String UNIT_LOAD = "Unit load";
+
+    /** The number of sessions kept in the history, including the current one */
+    static final int MAX_SESSIONS = 50;
+
+    private static final String HISTORY_HEADER = "time,version,category,name,ms";
+
+    private static final List<Timing> timings = new ArrayList<>();
+    /** Timings that have not been written to the history yet */
+    private static final List<Timing> unwritten = new ArrayList<>();
+    /** Whether older sessions have been removed from the history, which is only accessed by the executor */
+    private static boolean trimmed = false;
+    private static final String session = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Performance history writing");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private PerformanceLog() {
+    }
+
+    /**
+     * Records the time taken by a step.
+     *
+     * @param category   The kind of step, such as {@link #STARTUP}
+     * @param name       The name of the step
+     * @param startNanos The value of {@link System#nanoTime()} when the step started
+     */
+    public static void record(String category, String name, long startNanos) {
+        final Timing timing = new Timing(category, name,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        synchronized (timings) {
+            timings.add(timing);
+        }
+        LogManager.getLogger().info(String.format("%s: %s took %d ms", category, name, timing.millis));
+        synchronized (unwritten) {
+            unwritten.add(timing);
+            if (unwritten.size() == 1) {
+                executor.execute(PerformanceLog::appendToHistory);
+            }
+        }
+    }
+
+    /**
+     * @return The timings recorded in this session, in the order they were recorded
+     */
+    public static List<Timing> getTimings() {
+        synchronized (timings) {
+            return new ArrayList<>(timings);
+        }
+    }
+
+    /**
+     * @return The timings recorded in this session as text, grouped by category
+     */
+    public static String getReport() {
+        final List<Timing> list = getTimings();
+        final StringBuilder sb = new StringBuilder();
+        for (String category : new String[] { STARTUP, MAIN_UI, UNIT_LOAD }) {
+            sb.append(category).append("\n");
+            for (Timing timing : list) {
+                if (timing.category.equals(category)) {
+                    sb.append(String.format("  %-40s %8d ms%n", timing.name, timing.millis));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the timings that have been recorded since the last write in one go
+     */
+    private static void appendToHistory() {
+        final List<Timing> rows;
+        synchronized (unwritten) {
+            rows = new ArrayList<>(unwritten);
+            unwritten.clear();
+        }
+        final Path path = Paths.get(HISTORY_FILE);
+        try {
+            Files.createDirectories(path.getParent());
+            if (!trimmed) {
+                trimmed = true;
+                trimHistory(path);
+            }
+            final boolean isNew = !Files.exists(path);
+            try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                if (isNew) {
+                    pw.println(HISTORY_HEADER);
+                }
+                for (Timing timing : rows) {
+                    pw.println(String.join(",", session, StringUtils.csv(MMLConstants.VERSION.toString()),
+                            StringUtils.csv(timing.category), StringUtils.csv(timing.name),
+                            Long.toString(timing.millis)));
+                }
+            }
+        } catch (IOException ex) {
+            LogManager.getLogger().error("", ex);
+        }
+    }
+
+    /**
+     * Removes all but the last {@link #MAX_SESSIONS} - 1 sessions from the history, leaving room for
+     * the current one. Each row starts with the time its session started.
+     */
+    private static void trimHistory(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        final Set<String> sessions = new LinkedHashSet<>();
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            sessions.add(line.split(",", 2)[0]);
+        }
+        if (sessions.size() < MAX_SESSIONS) {
+            return;
+        }
+        final Set<String> keep = sessions.stream().skip(sessions.size() - (MAX_SESSIONS - 1))
+                .collect(Collectors.toSet());
+        final List<String> kept = new ArrayList<>();
+        kept.add(HISTORY_HEADER);
+        for (String line : lines.subList(1, lines.size())) {
+            if (keep.contains(line.split(",", 2)[0])) {
+                kept.add(line);
+            }
+        }
+        final Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, kept, StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The time taken by one step
+     */
+    public static class Timing {
+        private final String category;
+        private final String name;
+        private final long millis;
+
+        private Timing(String category, String name, long millis) {
+            this.category = category;
+            this.name = name;
+            this.millis = millis;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.MMConstants;
+import megamek.common.Entity;
+import megamek.common.annotations.Nullable;
+import megamek.common.loaders.EntityLoadingException;
+import megameklab.MMLConstants;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.*;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps a compressed binary snapshot of each unit opened from a file in the recent file list, taken after
+ * {@link UnitUtil#updateLoadedUnit(Entity)} has been applied, so that reopening a large unit does not need
+ * to parse the file and apply the fix-ups again. The snapshot also keeps the result of validating the unit
+ * as it was parsed, before the fix-ups could correct any problems.
+ *
+ * Each snapshot records a hash of the file it was loaded from, the versions of MegaMekLab and MegaMek
+ * that wrote it, the build of MegaMek, which defines the unit classes and equipment, and the modification
+ * time of the unit verifier options. If any of them does not match, or the
+ * snapshot cannot be read, the file is parsed as usual and a new snapshot is written. Snapshots of files
+ * that have dropped off the recent file list are removed.
+ */
+public final class RecentUnitSnapshots {
+    public static final String SNAPSHOT_DIR = CConfig.CONFIG_DIR + "/snapshots";
+    private static final String EXTENSION = ".snapshot";
+    private static final int MAGIC = 0x4D4D4C53;
+    private static final int FORMAT_VERSION = 3;
+
+    private static final String[] RECENT_FILES = { CConfig.CONFIG_SAVE_FILE_1, CConfig.CONFIG_SAVE_FILE_2,
+            CConfig.CONFIG_SAVE_FILE_3, CConfig.CONFIG_SAVE_FILE_4 };
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Unit snapshot writing");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Units returned by {@link #load(File)} that have already had the fix-ups for loaded units applied.
+     * Entries are removed when the fix-ups are skipped. The units are held weakly, so a unit that is never
+     * passed to {@link UnitUtil#updateLoadedUnit(Entity)} can still be collected, and compared by identity.
+     */
+    private static final List<WeakReference<Entity>> loadedUnits = new ArrayList<>();
+
+    /**
+     * A unit loaded from a file, with the result of validating it before the fix-ups were applied
+     */
+    public static class LoadedUnit {
+        private final Entity entity;
+        private final String validation;
+
+        private LoadedUnit(Entity entity, String validation) {
+            this.entity = entity;
+            this.validation = validation;
+        }
+
+        public Entity getEntity() {
+            return entity;
+        }
+
+        /**
+         * @return The problems found by {@link UnitUtil#validateUnit(Entity)} in the unit as it was parsed,
+         *         or an empty string if there were none
+         */
+        public String getValidation() {
+            return validation;
+        }
+    }
+
+    static {
+        CConfig.addChangeListener(CConfig.CONFIG_SAVE_FILE_1, evt -> executor.execute(RecentUnitSnapshots::prune));
+    }
+
+    private RecentUnitSnapshots() {
+    }
+
+    /**
+     * Loads a unit from a file, restoring it from a snapshot if the file has not changed since the snapshot
+     * was taken. The fix-ups for loaded units have already been applied to the returned unit, and
+     * {@link UnitUtil#updateLoadedUnit(Entity)} does nothing the first time it is called on it.
+     *
+     * @param file The unit file
+     * @return     The unit, or null if the file does not contain one
+     * @throws EntityLoadingException If the file cannot be parsed
+     */
+    public static @Nullable LoadedUnit load(File file) throws EntityLoadingException {
+        final byte[] hash = hash(file);
+        LoadedUnit loaded = (hash == null) ? null : restore(file, hash);
+        if (loaded == null) {
+            final Entity entity = ParsedEntityCache.load(file);
+            if (entity == null) {
+                return null;
+            }
+            loaded = new LoadedUnit(entity, UnitUtil.validateUnit(entity).trim());
+            UnitUtil.updateLoadedUnit(entity);
+            if (hash != null) {
+                store(file, hash, loaded);
+            }
+        }
+        synchronized (loadedUnits) {
+            loadedUnits.removeIf(reference -> reference.get() == null);
+            loadedUnits.add(new WeakReference<>(loaded.getEntity()));
+        }
+        return loaded;
+    }
+
+    /**
+     * Checks whether a unit was returned by {@link #load(File)} and has not been checked before.
+     *
+     * @param entity The unit
+     * @return       Whether the fix-ups for loaded units have already been applied
+     */
+    static boolean isLoaded(Entity entity) {
+        synchronized (loadedUnits) {
+            for (Iterator<WeakReference<Entity>> iter = loadedUnits.iterator(); iter.hasNext(); ) {
+                final Entity loaded = iter.next().get();
+                if ((loaded == null) || (loaded == entity)) {
+                    iter.remove();
+                    if (loaded != null) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Removes all snapshots.
+     */
+    public static void clear() {
+        executor.execute(() -> deleteSnapshots(Collections.emptySet()));
+    }
+
+    private static @Nullable LoadedUnit restore(File file, byte[] hash) {
+        final Path path = snapshotPath(file);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(
+                new BufferedInputStream(Files.newInputStream(path))))) {
+            if ((in.readInt() != MAGIC) || (in.readInt() != FORMAT_VERSION)
+                    || !in.readUTF().equals(MMLConstants.VERSION.toString())
+                    || !in.readUTF().equals(MMConstants.VERSION.toString())
+                    || !in.readUTF().equals(BuildStamp.of(Entity.class))
+                    || (in.readLong() != verifierOptionsModified())
+                    || !Arrays.equals((byte[]) in.readObject(), hash)) {
+                return null;
+            }
+            final String validation = (String) in.readObject();
+            final Entity entity = (Entity) in.readObject();
+            entity.restore();
+            return new LoadedUnit(entity, validation);
+        } catch (Exception ex) {
+            // Usually the unit classes have changed since the snapshot was written
+            LogManager.getLogger().info("Discarding unit snapshot " + path + ": " + ex);
+            return null;
+        }
+    }
+
+    /**
+     * Serializes the unit on the calling thread, so later changes to it are not included, and writes
+     * the snapshot in the background.
+     */
+    private static void store(File file, byte[] hash, LoadedUnit loaded) {
+        final byte[] bytes;
+        try (ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
+            try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(buffer))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(MMLConstants.VERSION.toString());
+                out.writeUTF(MMConstants.VERSION.toString());
+                out.writeUTF(BuildStamp.of(Entity.class));
+                out.writeLong(verifierOptionsModified());
+                out.writeObject(hash);
+                out.writeObject(loaded.getValidation());
+                out.writeObject(loaded.getEntity());
+            }
+            bytes = buffer.toByteArray();
+        } catch (IOException ex) {
+            LogManager.getLogger().warn("Could not create snapshot of " + loaded.getEntity().getShortNameRaw(), ex);
+            return;
+        }
+        executor.execute(() -> {
+            final Path target = snapshotPath(file);
+            Path temp = null;
+            try {
+                Files.createDirectories(target.getParent());
+                temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+                Files.write(temp, bytes);
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException ex) {
+                LogManager.getLogger().error("", ex);
+            } finally {
+                if (temp != null) {
+                    try {
+                        Files.deleteIfExists(temp);
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return The modification time of the unit verifier options, which the stored validation depends on
+     */
+    private static long verifierOptionsModified() {
+        return new File(EntityVerifierOptions.OPTIONS_FILE).lastModified();
+    }
+
+    /**
+     * Removes the snapshots of files that are no longer in the recent file list
+     */
+    private static void prune() {
+        final Set<String> keep = new HashSet<>();
+        for (String param : RECENT_FILES) {
+            final String fileName = CConfig.getParam(param);
+            if (!fileName.isBlank()) {
+                keep.add(snapshotPath(new File(fileName)).getFileName().toString());
+            }
+        }
+        deleteSnapshots(keep);
+    }
+
+    private static void deleteSnapshots(Set<String> keep) {
+        final File[] files = new File(SNAPSHOT_DIR).listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files != null) {
+            for (File snapshot : files) {
+                if (!keep.contains(snapshot.getName()) && !snapshot.delete()) {
+                    LogManager.getLogger().warn("Could not delete unit snapshot " + snapshot);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The path of the snapshot for a unit file, named after a hash of the file's absolute path
+     */
+    private static Path snapshotPath(File file) {
+        final byte[] pathHash = sha256().digest(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            name.append(String.format("%02x", pathHash[i]));
+        }
+        return Paths.get(SNAPSHOT_DIR, name + EXTENSION);
+    }
+
+    /**
+     * @return The hash of the contents of a file, or null if it cannot be read
+     */
+    private static @Nullable byte[] hash(File file) {
+        try {
+            return sha256().digest(Files.readAllBytes(file.toPath()));
+        } catch (IOException | SecurityException ex) {
+            return null;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+}
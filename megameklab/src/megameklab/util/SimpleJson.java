@@ -0,0 +1,327 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import java.util.*;
+
+/**
+ * A minimal JSON reader and writer for the simple messages and reports exchanged with other
+ * programs. Objects are read as {@link Map}s with keys in document order, arrays as {@link List}s,
+ * numbers as {@link Double}s (or {@link Long}s when they are integral), and {@code null},
+ * {@code true} and {@code false} as the corresponding Java values.
+ */
+public final class SimpleJson {
+
+    private SimpleJson() {
+    }
+
+    /**
+     * Parses a JSON document.
+     *
+     * @param text The JSON text
+     * @return     The parsed value
+     * @throws IllegalArgumentException if the text is not valid JSON
+     */
+    public static Object parse(String text) {
+        Parser parser = new Parser(text);
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.pos < text.length()) {
+            throw parser.error("Unexpected content");
+        }
+        return value;
+    }
+
+    /**
+     * Parses a JSON document that is expected to be an object.
+     *
+     * @param text The JSON text
+     * @return     The parsed object
+     * @throws IllegalArgumentException if the text is not a valid JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text) {
+        Object value = parse(text);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Writes a value as compact JSON on a single line. Supported values are {@link Map}s (keys are
+     * converted with {@link String#valueOf(Object)}), {@link Iterable}s, arrays of Objects,
+     * {@link Number}s, {@link Boolean}s, {@code null} and Strings. Any other value is written as
+     * its String representation.
+     *
+     * @param value The value to write
+     * @return      The JSON text
+     */
+    public static String write(Object value) {
+        StringBuilder sb = new StringBuilder();
+        write(value, sb);
+        return sb.toString();
+    }
+
+    private static void write(Object value, StringBuilder sb) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                quote(String.valueOf(entry.getKey()), sb);
+                sb.append(':');
+                write(entry.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (value instanceof Iterable) {
+            sb.append('[');
+            boolean first = true;
+            for (Object item : (Iterable<?>) value) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                write(item, sb);
+            }
+            sb.append(']');
+        } else if (value instanceof Object[]) {
+            write(Arrays.asList((Object[]) value), sb);
+        } else if ((value instanceof Double) || (value instanceof Float)) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                sb.append("null");
+            } else if ((d == Math.rint(d)) && (Math.abs(d) < 1e15)) {
+                sb.append((long) d);
+            } else {
+                sb.append(d);
+            }
+        } else if ((value instanceof Number) || (value instanceof Boolean)) {
+            sb.append(value);
+        } else {
+            quote(value.toString(), sb);
+        }
+    }
+
+    private static void quote(String text, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static class Parser {
+        private final String text;
+        private int pos = 0;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos);
+        }
+
+        void skipWhitespace() {
+            while ((pos < text.length()) && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        char peek() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            return text.charAt(pos);
+        }
+
+        void expect(char c) {
+            if (peek() != c) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        Object readValue() {
+            final char c = peek();
+            switch (c) {
+                case '{':
+                    return readObject();
+                case '[':
+                    return readArray();
+                case '"':
+                    return readString();
+                case 't':
+                    return readLiteral("true", Boolean.TRUE);
+                case 'f':
+                    return readLiteral("false", Boolean.FALSE);
+                case 'n':
+                    return readLiteral("null", null);
+                default:
+                    if ((c == '-') || Character.isDigit(c)) {
+                        return readNumber();
+                    }
+                    throw error("Unexpected character '" + c + "'");
+            }
+        }
+
+        Map<String, Object> readObject() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                if (peek() != '"') {
+                    throw error("Expected a property name");
+                }
+                final String key = readString();
+                expect(':');
+                map.put(key, readValue());
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        List<Object> readArray() {
+            List<Object> list = new ArrayList<>();
+            expect('[');
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(readValue());
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < text.length()) {
+                final char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                } else if (c != '\\') {
+                    sb.append(c);
+                } else if (pos < text.length()) {
+                    final char escaped = text.charAt(pos++);
+                    switch (escaped) {
+                        case 'b':
+                            sb.append('\b');
+                            break;
+                        case 'f':
+                            sb.append('\f');
+                            break;
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'u':
+                            if (pos + 4 > text.length()) {
+                                throw error("Invalid unicode escape");
+                            }
+                            try {
+                                sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                            } catch (NumberFormatException ex) {
+                                throw error("Invalid unicode escape");
+                            }
+                            pos += 4;
+                            break;
+                        default:
+                            sb.append(escaped);
+                    }
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        Object readLiteral(String literal, Object value) {
+            if (!text.startsWith(literal, pos)) {
+                throw error("Unexpected character '" + text.charAt(pos) + "'");
+            }
+            pos += literal.length();
+            return value;
+        }
+
+        Number readNumber() {
+            final int start = pos;
+            boolean integral = true;
+            while (pos < text.length()) {
+                final char c = text.charAt(pos);
+                if ((c == '.') || (c == 'e') || (c == 'E')) {
+                    integral = false;
+                } else if (!Character.isDigit(c) && (c != '-') && (c != '+')) {
+                    break;
+                }
+                pos++;
+            }
+            final String number = text.substring(start, pos);
+            try {
+                if (integral) {
+                    return Long.parseLong(number);
+                }
+                return Double.parseDouble(number);
+            } catch (NumberFormatException ex) {
+                throw error("Invalid number " + number);
+            }
+        }
+    }
+}
@@ -52,10 +52,27 @@ import megamek.common.weapons.srms.SRTWeapon;
 import megamek.common.weapons.srms.StreakSRMWeapon;
 import megamek.common.weapons.tag.TAGWeapon;
 
+import megamek.common.annotations.Nullable;
+
 import java.util.Comparator;
 
 public class StringUtils {
 
+    /**
+     * Formats a value as a CSV field, quoting it if it contains a comma, quote or line break.
+     *
+     * @param value The value, which may be null
+     * @return      The field, or an empty string for null
+     */
+    public static String csv(@Nullable String value) {
+        if (value == null) {
+            return "";
+        } else if ((value.indexOf(',') >= 0) || (value.indexOf('"') >= 0) || (value.indexOf('\n') >= 0)) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
     public static Comparator<? super EquipmentType> equipmentTypeComparator() {
         return (Comparator<EquipmentType>) (eq1, eq2) -> {
             String s1 = eq1.getName().toLowerCase();
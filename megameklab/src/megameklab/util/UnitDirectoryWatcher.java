@@ -0,0 +1,202 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.common.MechSummaryCache;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the unit directory and its subdirectories for unit files that are created, changed or
+ * deleted, and refreshes the {@link MechSummaryCache} in the background when they are, so the unit
+ * selector shows the current units without restarting. Other directories are not watched, as the
+ * cache does not include units saved outside the unit directory.
+ *
+ * Changes are collected until the directories have been quiet for {@link #QUIET_MILLIS}, so saving
+ * or copying many files results in a single refresh. The refresh reuses the cached summaries of files
+ * that have not been modified, so only the changed files are parsed again.
+ */
+public final class UnitDirectoryWatcher {
+    /** The directory that contains the unit files */
+    public static final String UNITS_DIR = "data/mechfiles";
+
+    /** The time without further changes to wait before refreshing the unit cache */
+    static final long QUIET_MILLIS = 1000;
+
+    private static final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private static WatchService watchService = null;
+
+    private UnitDirectoryWatcher() {
+    }
+
+    /**
+     * Starts watching the unit directory and its subdirectories. Does nothing if the watcher is
+     * already running.
+     */
+    public static synchronized void start() {
+        if (watchService != null) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException ex) {
+            LogManager.getLogger().warn("Could not watch unit directories for changes", ex);
+            return;
+        }
+        final Thread thread = new Thread(() -> watch(watchService), "Unit directory watcher");
+        thread.setDaemon(true);
+        thread.start();
+
+        watchTree(Paths.get(UNITS_DIR));
+    }
+
+    /**
+     * Stops watching for changes.
+     */
+    public static synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                LogManager.getLogger().error("", ex);
+            }
+            watchService = null;
+            directories.clear();
+        }
+    }
+
+    /**
+     * Watches a directory and all of its subdirectories.
+     */
+    private static void watchTree(Path root) {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    register(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException ex) {
+            LogManager.getLogger().error("", ex);
+        }
+    }
+
+    private static synchronized void register(Path dir) {
+        if (watchService == null) {
+            return;
+        }
+        final Path absolute = dir.toAbsolutePath().normalize();
+        if (directories.containsValue(absolute)) {
+            return;
+        }
+        try {
+            directories.put(absolute.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), absolute);
+        } catch (IOException | ClosedWatchServiceException ex) {
+            LogManager.getLogger().warn("Could not watch " + absolute, ex);
+        }
+    }
+
+    /**
+     * Processes change events until the watch service is closed.
+     */
+    private static void watch(WatchService service) {
+        boolean changed = false;
+        long lastChange = 0;
+        try {
+            while (true) {
+                final WatchKey key;
+                if (changed) {
+                    key = service.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                } else {
+                    key = service.take();
+                }
+                if (key != null) {
+                    if (processEvents(key)) {
+                        changed = true;
+                        lastChange = System.currentTimeMillis();
+                    }
+                } else if ((System.currentTimeMillis() - lastChange >= QUIET_MILLIS) && refreshCache()) {
+                    changed = false;
+                }
+            }
+        } catch (ClosedWatchServiceException ignored) {
+            // The watcher has been stopped
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return Whether any unit files were changed
+     */
+    private static boolean processEvents(WatchKey key) {
+        final Path dir = directories.get(key);
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // Events were lost, so assume that units have changed
+                changed = true;
+            } else if (dir != null) {
+                final Path path = dir.resolve((Path) event.context());
+                if ((event.kind() == ENTRY_CREATE) && Files.isDirectory(path)) {
+                    watchTree(path);
+                    changed = true;
+                } else if (isUnitFile(path)) {
+                    changed = true;
+                }
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return changed;
+    }
+
+    private static boolean isUnitFile(Path path) {
+        final String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".mtf") || name.endsWith(".blk");
+    }
+
+    /**
+     * Refreshes the unit cache, unless it is still loading.
+     *
+     * @return Whether the refresh was started
+     */
+    private static boolean refreshCache() {
+        if (!MechSummaryCache.getInstance().isInitialized()) {
+            return false;
+        }
+        LogManager.getLogger().info("Unit files changed, refreshing the unit cache");
+        MechSummaryCache.refreshCache();
+        return true;
+    }
+}
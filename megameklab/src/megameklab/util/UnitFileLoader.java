@@ -0,0 +1,194 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.common.Entity;
+import megamek.common.annotations.Nullable;
+import megamek.common.util.EncodeControl;
+import org.apache.logging.log4j.LogManager;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Loads unit files in parallel on a shared pool of worker threads. Files that cannot be loaded are
+ * collected with the reason so they can be reported together, and the units that were loaded are
+ * returned in the same order as the files.
+ */
+public final class UnitFileLoader {
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "Unit file loading");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private UnitFileLoader() {
+    }
+
+    /**
+     * The units that were loaded and the files that could not be loaded
+     */
+    public static class Result {
+        private final List<Entity> entities = new ArrayList<>();
+        private final Map<File, String> errors = new LinkedHashMap<>();
+
+        /** @return The units that were loaded, in the order of the files */
+        public List<Entity> getEntities() {
+            return entities;
+        }
+
+        /** @return The files that could not be loaded with a description of each error */
+        public Map<File, String> getErrors() {
+            return errors;
+        }
+
+        public boolean hasErrors() {
+            return !errors.isEmpty();
+        }
+    }
+
+    /**
+     * Loads unit files, blocking until they are all loaded.
+     *
+     * @param files    The unit files
+     * @param progress If not null, called on the calling thread with the number of files processed so far
+     * @return         The loaded units and any errors
+     * @throws InterruptedException If the thread is interrupted while waiting for the files to load.
+     *                              Any files that have not started loading are skipped.
+     */
+    public static Result load(List<File> files, @Nullable IntConsumer progress) throws InterruptedException {
+        final List<Future<Entity>> futures = new ArrayList<>();
+        for (File file : files) {
+            futures.add(executor.submit(() -> ParsedEntityCache.load(file)));
+        }
+        final Result result = new Result();
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    final Entity entity = futures.get(i).get();
+                    if (entity != null) {
+                        result.entities.add(entity);
+                    } else {
+                        result.errors.put(files.get(i), "No unit found");
+                    }
+                } catch (ExecutionException ex) {
+                    LogManager.getLogger().error("Could not load " + files.get(i), ex.getCause());
+                    result.errors.put(files.get(i), describe(ex.getCause()));
+                }
+                if (progress != null) {
+                    progress.accept(i + 1);
+                }
+            }
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+        return result;
+    }
+
+    /**
+     * Loads unit files in the background while showing a progress monitor, which allows cancelling
+     * the operation. When the files are loaded, any errors are shown in a dialog, then the units that
+     * could be loaded are passed to the callback. The callback is not called if loading is cancelled
+     * or no units were loaded.
+     *
+     * @param parent   The parent component for the progress monitor and error summary
+     * @param files    The unit files
+     * @param onLoaded Called on the event dispatch thread with the loaded units
+     */
+    public static void loadInBackground(Component parent, List<File> files, Consumer<List<Entity>> onLoaded) {
+        final ResourceBundle resources = ResourceBundle.getBundle("megameklab.resources.Dialogs",
+                new EncodeControl());
+        final ProgressMonitor monitor = new ProgressMonitor(parent,
+                resources.getString("UnitFileLoader.progress.text"), null, 0, files.size());
+        monitor.setMillisToDecideToPopup(250);
+
+        SwingWorker<Result, Integer> worker = new SwingWorker<>() {
+            @Override
+            protected Result doInBackground() throws Exception {
+                return load(files, this::publishProgress);
+            }
+
+            private void publishProgress(int done) {
+                publish(done);
+            }
+
+            @Override
+            protected void process(List<Integer> chunks) {
+                if (monitor.isCanceled()) {
+                    cancel(true);
+                } else {
+                    monitor.setProgress(chunks.get(chunks.size() - 1));
+                }
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                if (isCancelled()) {
+                    return;
+                }
+                final Result result;
+                try {
+                    result = get();
+                } catch (ExecutionException ex) {
+                    LogManager.getLogger().error("", ex);
+                    return;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (result.hasErrors()) {
+                    showErrors(parent, result, resources);
+                }
+                if (!result.getEntities().isEmpty()) {
+                    onLoaded.accept(result.getEntities());
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private static void showErrors(Component parent, Result result, ResourceBundle resources) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<File, String> entry : result.getErrors().entrySet()) {
+            sb.append(entry.getKey().getName()).append(": ").append(entry.getValue()).append('\n');
+        }
+        JTextArea text = new JTextArea(sb.toString());
+        text.setEditable(false);
+        text.setRows(Math.min(15, result.getErrors().size()));
+        text.setColumns(60);
+        JPanel panel = new JPanel(new BorderLayout(0, 10));
+        panel.add(new JLabel(MessageFormat.format(resources.getString("UnitFileLoader.errors.text"),
+                result.getErrors().size(), result.getEntities().size())), BorderLayout.NORTH);
+        panel.add(new JScrollPane(text), BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(parent, panel, resources.getString("UnitFileLoader.errors.title"),
+                JOptionPane.WARNING_MESSAGE);
+    }
+
+    private static String describe(Throwable ex) {
+        return (ex.getMessage() != null) ? ex.getMessage() : ex.getClass().getSimpleName();
+    }
+}
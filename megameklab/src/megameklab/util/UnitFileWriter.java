@@ -0,0 +1,347 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.common.Entity;
+import megamek.common.Mech;
+import megamek.common.annotations.Nullable;
+import megamek.common.loaders.BLKFile;
+import megamek.common.loaders.EntityLoadingException;
+import megamek.common.util.BuildingBlock;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes unit files on a single background thread, so that saving a large unit does not block the
+ * user interface and writes happen in the order they were requested.
+ *
+ * The unit is converted to its file format on the calling thread, which should be the event dispatch
+ * thread, so later edits cannot change what is written. The file is written to a temporary file in the
+ * same directory, flushed to disk and then moved over the target, so a crash while saving leaves either
+ * the old or the new version of the unit but never a partly written file. The permissions of the file
+ * being replaced are copied to the new file.
+ *
+ * The editor also keeps an autosave journal of the unit being edited in {@link #JOURNAL_DIR}, which is
+ * removed on a normal exit, so a unit with unsaved changes can be recovered after a crash.
+ */
+public final class UnitFileWriter {
+    public static final String JOURNAL_DIR = CConfig.CONFIG_DIR + "/autosave";
+    private static final String JOURNAL_NAME = "autosave";
+    /** The name a journal that could not be read is renamed to, so it is not offered again but not lost */
+    private static final String FAILED_JOURNAL_NAME = "autosave.failed";
+    private static final String[] EXTENSIONS = { ".mtf", ".blk" };
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Unit file writing");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The newest journal snapshot that has not been written yet */
+    private static final AtomicReference<Snapshot> pendingJournal = new AtomicReference<>();
+
+    /** The contents of the last file saved, only accessed on the writer thread */
+    private static byte[] lastSaved = null;
+
+    private UnitFileWriter() {
+    }
+
+    /**
+     * Saves a unit in the background. This should be called on the event dispatch thread.
+     *
+     * @param entity The unit
+     * @param file   The file to write
+     * @return       A future that completes when the file has been written, or completes
+     *               exceptionally with the {@link IOException} if it could not be written
+     * @throws EntityLoadingException If the unit cannot be converted to its file format
+     */
+    public static CompletableFuture<Void> save(Entity entity, File file) throws EntityLoadingException {
+        final Snapshot snapshot = Snapshot.of(entity);
+        return CompletableFuture.runAsync(() -> {
+            try {
+                final byte[] bytes = writeAtomically(snapshot, file.toPath());
+                lastSaved = bytes;
+                // The unit is safely on disk, so there is nothing to recover
+                deleteJournal();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, executor);
+    }
+
+    /**
+     * Writes a unit on the calling thread, in the same format and with the same atomic replacement
+     * as {@link #save(Entity, File)}. This does not affect the autosave journal.
+     *
+     * @param entity The unit
+     * @param file   The file to write
+     * @throws EntityLoadingException If the unit cannot be converted to its file format
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(Entity entity, File file) throws EntityLoadingException, IOException {
+        writeAtomically(Snapshot.of(entity), file.toPath());
+    }
+
+    /**
+     * @param entity The unit
+     * @return       The file extension used for the unit, including the leading period
+     */
+    public static String getExtension(Entity entity) {
+        return (entity instanceof Mech) ? ".mtf" : ".blk";
+    }
+
+    /**
+     * Records the current state of a unit in the autosave journal. This should be called on the
+     * event dispatch thread. If an earlier journal entry is still waiting to be written it is replaced,
+     * so rapid calls result in a single write. Nothing is written if the unit is unchanged since it was
+     * last saved or journaled.
+     *
+     * @param entity The unit
+     */
+    public static void journal(Entity entity) {
+        final Snapshot snapshot;
+        try {
+            snapshot = Snapshot.of(entity);
+        } catch (EntityLoadingException ex) {
+            LogManager.getLogger().warn("Could not create autosave for " + entity.getShortNameRaw(), ex);
+            return;
+        }
+        if (pendingJournal.getAndSet(snapshot) == null) {
+            executor.execute(UnitFileWriter::writeJournal);
+        }
+    }
+
+    /**
+     * @return The autosave journal left by a previous session that did not exit normally, or null
+     *         if there is none
+     */
+    public static @Nullable File getJournal() {
+        for (String extension : EXTENSIONS) {
+            final File file = new File(JOURNAL_DIR, JOURNAL_NAME + extension);
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the autosave journal after any writes that are waiting have finished.
+     */
+    public static void discardJournal() {
+        pendingJournal.set(null);
+        executor.execute(UnitFileWriter::deleteJournal);
+    }
+
+    /**
+     * Renames an autosave journal that could not be read so it is not offered again, keeping it for the
+     * user to recover by hand. This happens after any writes that are waiting have finished.
+     *
+     * @param journal The journal returned by {@link #getJournal()}
+     */
+    public static void setAsideJournal(File journal) {
+        pendingJournal.set(null);
+        executor.execute(() -> {
+            final String name = journal.getName();
+            final Path target = journal.toPath().resolveSibling(FAILED_JOURNAL_NAME
+                    + name.substring(name.lastIndexOf('.')));
+            try {
+                Files.move(journal.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+                LogManager.getLogger().info("Moved unreadable autosave to " + target);
+            } catch (IOException ex) {
+                LogManager.getLogger().error("", ex);
+            }
+        });
+    }
+
+    /**
+     * Waits for any saves in progress to finish and removes the autosave journal. This is called
+     * when the application exits normally.
+     */
+    public static void close() {
+        pendingJournal.set(null);
+        try {
+            executor.submit(UnitFileWriter::deleteJournal).get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException ex) {
+            LogManager.getLogger().error("", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void writeJournal() {
+        final Snapshot snapshot = pendingJournal.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        Path temp = null;
+        try {
+            final Path dir = Paths.get(JOURNAL_DIR);
+            Files.createDirectories(dir);
+            temp = Files.createTempFile(dir, JOURNAL_NAME, ".tmp");
+            snapshot.writeTo(temp);
+            final byte[] bytes = Files.readAllBytes(temp);
+            if (Arrays.equals(bytes, lastSaved)) {
+                deleteJournal();
+                return;
+            }
+            final Path target = dir.resolve(JOURNAL_NAME + snapshot.extension);
+            if (Files.isRegularFile(target) && Arrays.equals(bytes, Files.readAllBytes(target))) {
+                return;
+            }
+            force(temp);
+            move(temp, target);
+            for (String extension : EXTENSIONS) {
+                if (!extension.equals(snapshot.extension)) {
+                    Files.deleteIfExists(dir.resolve(JOURNAL_NAME + extension));
+                }
+            }
+        } catch (IOException ex) {
+            LogManager.getLogger().error("", ex);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    private static void deleteJournal() {
+        for (String extension : EXTENSIONS) {
+            deleteQuietly(Paths.get(JOURNAL_DIR, JOURNAL_NAME + extension));
+        }
+    }
+
+    /**
+     * Writes a file through a temporary file in the same directory.
+     *
+     * @return The contents of the file
+     */
+    private static byte[] writeAtomically(Snapshot snapshot, Path target) throws IOException {
+        final Path dir = target.toAbsolutePath().getParent();
+        final Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            snapshot.writeTo(temp);
+            force(temp);
+            final byte[] bytes = Files.readAllBytes(temp);
+            if (Files.exists(target)) {
+                copyAttributes(target, temp);
+            }
+            move(temp, target);
+            return bytes;
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Copies the permissions and group, or the access control list, of a file to its replacement.
+     * Temporary files are only accessible by the owner. Failures are logged, as the unit can still
+     * be saved.
+     */
+    private static void copyAttributes(Path from, Path to) {
+        try {
+            final PosixFileAttributeView posix = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+            final AclFileAttributeView acl = Files.getFileAttributeView(to, AclFileAttributeView.class);
+            if (posix != null) {
+                final PosixFileAttributes attributes = Files.readAttributes(from, PosixFileAttributes.class);
+                posix.setPermissions(attributes.permissions());
+                try {
+                    posix.setGroup(attributes.group());
+                } catch (IOException ex) {
+                    // The user may not be a member of the group
+                    LogManager.getLogger().warn("Could not keep the group of " + from + ": " + ex.getMessage());
+                }
+            } else if (acl != null) {
+                acl.setAcl(Files.getFileAttributeView(from, AclFileAttributeView.class).getAcl());
+            }
+        } catch (IOException | UnsupportedOperationException | SecurityException ex) {
+            LogManager.getLogger().warn("Could not keep the permissions of " + from, ex);
+        }
+    }
+
+    private static void force(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(@Nullable Path path) {
+        if (path != null) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                LogManager.getLogger().warn("Could not delete " + path, ex);
+            }
+        }
+    }
+
+    /**
+     * The contents of a unit file, captured when the save was requested
+     */
+    private static class Snapshot {
+        private final String extension;
+        private final String mtf;
+        private final BuildingBlock blk;
+
+        private Snapshot(String extension, @Nullable String mtf, @Nullable BuildingBlock blk) {
+            this.extension = extension;
+            this.mtf = mtf;
+            this.blk = blk;
+        }
+
+        static Snapshot of(Entity entity) throws EntityLoadingException {
+            if (entity instanceof Mech) {
+                return new Snapshot(getExtension(entity), ((Mech) entity).getMtf(), null);
+            } else {
+                return new Snapshot(getExtension(entity), null, BLKFile.getBlock(entity));
+            }
+        }
+
+        void writeTo(Path path) throws IOException {
+            if (mtf != null) {
+                try (PrintStream p = new PrintStream(Files.newOutputStream(path))) {
+                    p.println(mtf);
+                    if (p.checkError()) {
+                        throw new IOException("Could not write " + path);
+                    }
+                }
+            } else if (!blk.writeBlockFile(path.toString())) {
+                throw new IOException("Could not write " + path);
+            }
+        }
+    }
+}
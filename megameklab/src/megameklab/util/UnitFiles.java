@@ -0,0 +1,66 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Finds the unit files in the files and directories chosen by the user or given on the command line.
+ */
+public final class UnitFiles {
+    private UnitFiles() {
+    }
+
+    /**
+     * Expands any directories in a list of files into the unit files (.mtf and .blk) they contain,
+     * searching subdirectories. Other files are included as given.
+     *
+     * @param inputs The files and directories
+     * @return       The files to load, with the contents of each directory sorted by name
+     */
+    public static List<File> collect(Collection<File> inputs) {
+        List<File> files = new ArrayList<>();
+        for (File input : inputs) {
+            if (input.isDirectory()) {
+                addUnitFiles(input, files);
+            } else {
+                files.add(input);
+            }
+        }
+        return files;
+    }
+
+    private static void addUnitFiles(File dir, List<File> files) {
+        File[] contents = dir.listFiles();
+        if (contents == null) {
+            return;
+        }
+        Arrays.sort(contents);
+        for (File file : contents) {
+            if (file.isDirectory()) {
+                addUnitFiles(file, files);
+            } else {
+                final String name = file.getName().toLowerCase(Locale.ROOT);
+                if (name.endsWith(".mtf") || name.endsWith(".blk")) {
+                    files.add(file);
+                }
+            }
+        }
+    }
+}
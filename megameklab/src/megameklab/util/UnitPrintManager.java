@@ -17,9 +17,11 @@ package megameklab.util;
 
 import megamek.client.ui.swing.UnitLoadingDialog;
 import megamek.common.*;
+import megamek.common.annotations.Nullable;
 import megamek.common.util.EncodeControl;
 import megameklab.printing.*;
 import megameklab.ui.MegaMekLabMainUI;
+import megameklab.ui.dialog.ExportResultsDialog;
 import megameklab.ui.dialog.MegaMekLabUnitSelectorDialog;
 import megameklab.ui.dialog.PrintQueueDialog;
 import org.apache.commons.io.FilenameUtils;
@@ -37,6 +39,7 @@ import java.awt.print.PrinterJob;
 import java.io.File;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 public class UnitPrintManager {
@@ -71,16 +74,26 @@ public class UnitPrintManager {
             // I want a file, y'know!
             return;
         }
-        Vector<Entity> loadedUnits;
-        try {
-            loadedUnits = new MULParser(f.getSelectedFile(), null).getEntities();
-            loadedUnits.trimToSize();
-        } catch (Exception ex) {
-            LogManager.getLogger().error("", ex);
-            return;
-        }
+        // The print dialog needs the page count, so the whole file is parsed before printing starts,
+        // but the parsing is done off the event thread.
+        final File mulFile = f.getSelectedFile();
+        new SwingWorker<Vector<Entity>, Void>() {
+            @Override
+            protected Vector<Entity> doInBackground() throws Exception {
+                return new MULParser(mulFile, null).getEntities();
+            }
 
-        printAllUnits(loadedUnits, singlePrint);
+            @Override
+            protected void done() {
+                try {
+                    printAllUnits(get(), singlePrint);
+                } catch (ExecutionException ex) {
+                    LogManager.getLogger().error("", ex.getCause());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
     }
 
     public static void exportMUL(Frame parent, boolean singlePrint) {
@@ -100,18 +113,11 @@ public class UnitPrintManager {
             return;
         }
         File mulFile = f.getSelectedFile();
-        final Vector<Entity> loadedUnits;
-        try {
-            loadedUnits = new MULParser(mulFile, null).getEntities();
-            loadedUnits.trimToSize();
-        } catch (Exception ex) {
-            LogManager.getLogger().error("", ex);
-            return;
-        }
-
         File exportFile = getExportFile(parent, FilenameUtils.removeExtension(mulFile.getPath()) + ".pdf");
         if (exportFile != null) {
-            exportUnits(loadedUnits, exportFile, singlePrint);
+            RecordSheetTask task = RecordSheetTask.createMULExportTask(mulFile, singlePrint,
+                    new RecordSheetOptions(), exportFile.getAbsolutePath());
+            task.execute(CConfig.getBooleanParam(CConfig.RS_PROGRESS_BAR));
         }
     }
 
@@ -140,94 +146,77 @@ public class UnitPrintManager {
         return f.getSelectedFile();
     }
 
-    private static List<PrintRecordSheet> createSheets(List<Entity> entities, boolean singlePrint,
-                                                       RecordSheetOptions options) {
-        List<PrintRecordSheet> sheets = new ArrayList<>();
-        List<Infantry> infList = new ArrayList<>();
-        List<BattleArmor> baList = new ArrayList<>();
-        List<Protomech> protoList = new ArrayList<>();
-        List<Entity> unprintable = new ArrayList<>();
-        Tank tank1 = null;
+    /**
+     * Shows a file chooser for exporting record sheets as images.
+     *
+     * @param parent            The parent frame for the dialog
+     * @param suggestedFileName The initial file name
+     * @return                  The selected file and format, or {@code null} if the user canceled
+     */
+    private static @Nullable Map.Entry<File, RasterFormat> getImageExportFile(Frame parent,
+                                                                             String suggestedFileName) {
+        JFileChooser f = new JFileChooser(System.getProperty("user.dir"));
+        f.setLocation(parent.getLocation().x + 150, parent.getLocation().y + 100);
+        f.setDialogTitle("Choose export file name");
+        f.setMultiSelectionEnabled(false);
+        f.setAcceptAllFileFilterUsed(false);
+        Map<FileNameExtensionFilter, RasterFormat> filters = new LinkedHashMap<>();
+        for (RasterFormat format : RasterFormat.values()) {
+            FileNameExtensionFilter filter = format == RasterFormat.TIFF ?
+                    new FileNameExtensionFilter(format.description, format.extension, "tiff")
+                    : new FileNameExtensionFilter(format.description, format.extension);
+            filters.put(filter, format);
+            f.addChoosableFileFilter(filter);
+        }
+        f.setFileFilter(filters.keySet().iterator().next());
+        if (!suggestedFileName.isEmpty()) {
+            f.setSelectedFile(new File(suggestedFileName));
+        }
 
-        int pageCount = 0;
-        for (Entity unit : entities) {
-            if (unit instanceof Mech) {
-                UnitUtil.removeOneShotAmmo(unit);
-                UnitUtil.expandUnitMounts((Mech) unit);
-                sheets.add(new PrintMech((Mech) unit, pageCount++, options));
-            } else if ((unit instanceof Tank) && unit.getMovementMode().isMarine()) {
-                sheets.add(new PrintTank((Tank) unit, pageCount++, options));
-            } else if (unit instanceof Tank) {
-                if (singlePrint || options.showReferenceCharts()) {
-                    sheets.add(new PrintCompositeTankSheet((Tank) unit, null, pageCount++, options));
-                } else if (null != tank1) {
-                    sheets.add(new PrintCompositeTankSheet(tank1, (Tank) unit, pageCount++, options));
-                    tank1 = null;
-                } else {
-                    tank1 = (Tank) unit;
-                }
-            } else if (unit.hasETypeFlag(Entity.ETYPE_AERO)) {
-                if (unit instanceof Jumpship) {
-                    PrintCapitalShip pcs = new PrintCapitalShip((Jumpship) unit, pageCount, options);
-                    pageCount += pcs.getPageCount();
-                    sheets.add(pcs);
-                } else if (unit instanceof Dropship) {
-                    PrintDropship pds = new PrintDropship((Aero) unit, pageCount, options);
-                    pageCount += pds.getPageCount();
-                    sheets.add(pds);
-                } else {
-                    sheets.add(new PrintAero((Aero) unit, pageCount++, options));
-                }
-            } else if (unit instanceof BattleArmor) {
-                baList.add((BattleArmor) unit);
-                if (singlePrint || baList.size() > 4) {
-                    PrintRecordSheet prs = new PrintSmallUnitSheet(baList, pageCount, options);
-                    pageCount += prs.getPageCount();
-                    sheets.add(prs);
-                    baList = new ArrayList<>();
-                }
-            } else if (unit instanceof Infantry) {
-                infList.add((Infantry) unit);
-                if (singlePrint || infList.size() > (options.showReferenceCharts() ? 2 : 3)) {
-                    PrintRecordSheet prs = new PrintSmallUnitSheet(infList, pageCount, options);
-                    pageCount += prs.getPageCount();
-                    sheets.add(prs);
-                    infList = new ArrayList<>();
-                }
-            } else if (unit instanceof Protomech) {
-                protoList.add((Protomech) unit);
-                if (singlePrint || protoList.size() > 4) {
-                    PrintRecordSheet prs = new PrintSmallUnitSheet(protoList, pageCount, options);
-                    pageCount += prs.getPageCount();
-                    sheets.add(prs);
-                    protoList = new ArrayList<>();
-                }
-            } else {
-                unprintable.add(unit);
-            }
+        int returnVal = f.showSaveDialog(parent);
+        if ((returnVal != JFileChooser.APPROVE_OPTION) || (f.getSelectedFile() == null)) {
+            return null;
         }
+        RasterFormat format = filters.getOrDefault(f.getFileFilter(), RasterFormat.PNG);
+        File file = f.getSelectedFile();
+        if (!f.getFileFilter().accept(file)) {
+            file = new File(file.getPath() + "." + format.extension);
+        }
+        return new AbstractMap.SimpleEntry<>(file, format);
+    }
 
+    private static List<PrintRecordSheet> createSheets(List<Entity> entities, boolean singlePrint,
+                                                       RecordSheetOptions options) {
+        List<Entity> unprintable = new ArrayList<>();
+        List<PrintRecordSheet> sheets = createSheets(entities, singlePrint, options, unprintable);
         if (!unprintable.isEmpty()) {
             JOptionPane.showMessageDialog(null, "Exporting is not currently supported for the following units:\n"
                     + unprintable.stream().map(en -> en.getChassis() + " " + en.getModel())
                     .collect(Collectors.joining("\n")));
         }
+        return sheets;
+    }
 
-        if (null != tank1) {
-            sheets.add(new PrintCompositeTankSheet(tank1, null, pageCount++));
-        }
-
-        if (!baList.isEmpty()) {
-            sheets.add(new PrintSmallUnitSheet(baList, pageCount++));
-        }
-
-        if (!infList.isEmpty()) {
-            sheets.add(new PrintSmallUnitSheet(infList, pageCount++));
-        }
-
-        if (!protoList.isEmpty()) {
-            sheets.add(new PrintSmallUnitSheet(protoList, pageCount));
+    /**
+     * Creates the record sheets for a list of units without any user interaction. Units that can
+     * share a sheet (vehicles, battle armor, protomechs and conventional infantry) are grouped
+     * unless {@code singlePrint} is set.
+     *
+     * @param entities    The units to create sheets for
+     * @param singlePrint Whether to limit each record sheet to a single unit
+     * @param options     The options to use for the record sheets
+     * @param unprintable A list to which any units that cannot be printed are added
+     * @return            The record sheets, with page numbers assigned in order
+     */
+    public static List<PrintRecordSheet> createSheets(List<Entity> entities, boolean singlePrint,
+                                                      RecordSheetOptions options, List<Entity> unprintable) {
+        RecordSheetAssembler assembler = new RecordSheetAssembler(singlePrint, options);
+        List<PrintRecordSheet> sheets = new ArrayList<>();
+        for (Entity unit : entities) {
+            sheets.addAll(assembler.add(unit));
         }
+        sheets.addAll(assembler.finish());
+        unprintable.addAll(assembler.getUnprintable());
         return sheets;
     }
 
@@ -240,6 +229,29 @@ public class UnitPrintManager {
         task.execute(CConfig.getBooleanParam(CConfig.RS_PROGRESS_BAR));
     }
 
+    /**
+     * Exports record sheets as raster images using the default record sheet options and the
+     * configured image resolution.
+     *
+     * @param units       The units to export
+     * @param exportFile  The output file. For formats that hold one page per file, the page number is
+     *                    added to the file name when there is more than one page.
+     * @param format      The image format
+     * @param singlePrint Whether to limit each record sheet to a single unit
+     */
+    public static void exportUnitsAsImages(List<Entity> units, File exportFile, RasterFormat format,
+                                           boolean singlePrint) {
+        final int dpi = CConfig.getIntParam(CConfig.RS_IMAGE_DPI, 300);
+        RecordSheetOptions options = new RecordSheetOptions();
+        options.setImageDpi(dpi);
+        List<PrintRecordSheet> sheets = createSheets(units, singlePrint, options);
+        PageFormat pageFormat = new PageFormat();
+        pageFormat.setPaper(options.getPaperSize().createPaper());
+        RecordSheetTask task = RecordSheetTask.createRasterExportTask(sheets, pageFormat,
+                exportFile.getAbsolutePath(), format, dpi);
+        task.execute(CConfig.getBooleanParam(CConfig.RS_PROGRESS_BAR));
+    }
+
     /**
      * Creates and runs a print job using the default record sheet options
      *
@@ -370,9 +382,113 @@ public class UnitPrintManager {
         item.addActionListener(e -> UnitPrintManager.exportMUL(parent, true));
         exportMenu.add(item);
 
+        exportMenu.addSeparator();
+        item = new JMenuItem(menuResources.getString("menu.file.export.splitToFolder"));
+        item.addActionListener(e -> exportUnitFilesSeparately(parent, false));
+        exportMenu.add(item);
+
+        item = new JMenuItem(menuResources.getString("menu.file.export.splitToZip"));
+        item.addActionListener(e -> exportUnitFilesSeparately(parent, true));
+        exportMenu.add(item);
+
+        return exportMenu;
+    }
+
+    public static JMenu exportImageMenu(final MegaMekLabMainUI parent) {
+        JMenu exportMenu = new JMenu(menuResources.getString("menu.file.exportImage"));
+
+        JMenuItem item = new JMenuItem(menuResources.getString("menu.file.print.currentUnit"));
+        item.addActionListener(e -> exportEntityAsImage(parent.getEntity(), parent));
+        exportMenu.add(item);
+
+        exportMenu.addSeparator();
+        item = new JMenuItem(menuResources.getString("menu.file.print.fromFile"));
+        item.addActionListener(e -> exportUnitFileAsImages(parent, false));
+        exportMenu.add(item);
+
+        item = new JMenuItem(menuResources.getString("menu.file.print.fromFileSingle"));
+        item.addActionListener(e -> exportUnitFileAsImages(parent, true));
+        exportMenu.add(item);
+
         return exportMenu;
     }
 
+    /**
+     * Exports a separate PDF for each unit in the selected unit files, MUL files and directories,
+     * either into a directory or a ZIP file. The units are rendered in the background and the results
+     * are shown in a dialog when the export is complete.
+     *
+     * @param parent The parent frame for the dialogs
+     * @param zip    Whether to write a ZIP file instead of individual files in a directory
+     */
+    public static void exportUnitFilesSeparately(JFrame parent, boolean zip) {
+        JFileChooser f = new JFileChooser(System.getProperty("user.dir") + "/data/mechfiles/");
+        f.setLocation(parent.getLocation().x + 150, parent.getLocation().y + 100);
+        f.setDialogTitle("Export Unit Files");
+        f.setMultiSelectionEnabled(true);
+        f.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+        f.setFileFilter(new FileNameExtensionFilter("Unit Files", "blk", "mtf", "mul"));
+
+        int returnVal = f.showOpenDialog(parent);
+        if ((returnVal != JFileChooser.APPROVE_OPTION) || (f.getSelectedFile() == null)) {
+            return;
+        }
+        List<File> unitFiles = UnitFiles.collect(Arrays.asList(f.getSelectedFiles()));
+        if (unitFiles.isEmpty()) {
+            return;
+        }
+
+        JFileChooser out = new JFileChooser(f.getCurrentDirectory());
+        out.setLocation(parent.getLocation().x + 150, parent.getLocation().y + 100);
+        if (zip) {
+            out.setDialogTitle(menuResources.getString("menu.file.export.splitToZip"));
+            out.setFileFilter(new FileNameExtensionFilter("ZIP Files", "zip"));
+            out.setSelectedFile(new File("record-sheets.zip"));
+        } else {
+            out.setDialogTitle(menuResources.getString("menu.file.export.splitToFolder"));
+            out.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        }
+        if ((out.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) || (out.getSelectedFile() == null)) {
+            return;
+        }
+        File output = out.getSelectedFile();
+        if (zip && !output.getName().toLowerCase().endsWith(".zip")) {
+            output = new File(output.getParentFile(), output.getName() + ".zip");
+        }
+
+        final File destination = output;
+        RecordSheetTask.createSplitExportTask(unitFiles, new RecordSheetOptions(), destination, zip,
+                results -> new ExportResultsDialog(parent, results, destination).setVisible(true))
+                .execute(true);
+    }
+
+    public static void exportEntityAsImage(Entity entity, JFrame parent) {
+        Map.Entry<File, RasterFormat> export = getImageExportFile(parent, entity.getShortNameRaw() + ".png");
+        if (export != null) {
+            exportUnitsAsImages(Collections.singletonList(entity), export.getKey(), export.getValue(), false);
+        }
+    }
+
+    public static void exportUnitFileAsImages(JFrame parent, boolean singleUnit) {
+        JFileChooser f = new JFileChooser(System.getProperty("user.dir") + "/data/mechfiles/");
+        f.setLocation(parent.getLocation().x + 150, parent.getLocation().y + 100);
+        f.setDialogTitle("Export Unit File");
+        f.setMultiSelectionEnabled(true);
+        f.setFileFilter(new FileNameExtensionFilter("Unit Files", "blk", "mtf"));
+
+        int returnVal = f.showOpenDialog(parent);
+        if ((returnVal != JFileChooser.APPROVE_OPTION) || (f.getSelectedFile() == null)) {
+            return;
+        }
+
+        UnitFileLoader.loadInBackground(parent, Arrays.asList(f.getSelectedFiles()), unitList -> {
+            Map.Entry<File, RasterFormat> export = getImageExportFile(parent, "");
+            if (export != null) {
+                exportUnitsAsImages(unitList, export.getKey(), export.getValue(), singleUnit);
+            }
+        });
+    }
+
     public static void printSelectedUnit(JFrame parent, boolean pdf) {
         UnitLoadingDialog unitLoadingDialog = new UnitLoadingDialog(parent);
         unitLoadingDialog.setVisible(true);
@@ -410,13 +526,7 @@ public class UnitPrintManager {
             return;
         }
 
-        try {
-            List<Entity> unitList = new ArrayList<>();
-
-            for (File entityFile : f.getSelectedFiles()) {
-                Entity tempEntity = new MechFileParser(entityFile).getEntity();
-                unitList.add(tempEntity);
-            }
+        UnitFileLoader.loadInBackground(parent, Arrays.asList(f.getSelectedFiles()), unitList -> {
             if (pdf) {
                 File exportFile = getExportFile(parent);
                 if (exportFile != null) {
@@ -425,8 +535,6 @@ public class UnitPrintManager {
             } else {
                 printAllUnits(unitList, singleUnit);
             }
-        } catch (Exception ex) {
-            LogManager.getLogger().error("", ex);
-        }
+        });
     }
 }
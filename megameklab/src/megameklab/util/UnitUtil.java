@@ -20,6 +20,7 @@ import megamek.client.ui.dialogs.BVDisplayDialog;
 import megamek.common.*;
 import megamek.common.annotations.Nullable;
 import megamek.common.loaders.EntityLoadingException;
+import megamek.common.templates.TROView;
 import megamek.common.verifier.*;
 import megamek.common.weapons.*;
 import megamek.common.weapons.autocannons.ACWeapon;
@@ -61,13 +62,13 @@ import javax.swing.*;
 import javax.swing.text.DefaultCaret;
 import javax.swing.text.html.HTMLEditorKit;
 import java.awt.*;
-import java.io.File;
 import java.math.BigInteger;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
 
 public class UnitUtil {
@@ -2045,6 +2046,23 @@ public class UnitUtil {
         rsBoldFont = font.deriveFont(Font.BOLD, 8);
     }
 
+    /**
+     * Blocks until the unit cache has finished loading
+     */
+    public static void waitForUnitCache() {
+        final CountDownLatch loaded = new CountDownLatch(1);
+        final MechSummaryCache cache = MechSummaryCache.getInstance();
+        // Added before checking, so the notification cannot be missed if loading finishes in between
+        cache.addListener(loaded::countDown);
+        if (!cache.isInitialized()) {
+            try {
+                loaded.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     public static Font deriveFont(float pointSize) {
         return UnitUtil.deriveFont(false, pointSize);
     }
@@ -2465,6 +2483,10 @@ public class UnitUtil {
     }
 
     public static void updateLoadedUnit(Entity unit) {
+        if (RecentUnitSnapshots.isLoaded(unit)) {
+            // Already applied when the unit was loaded
+            return;
+        }
 
         // Check for illegal armor tech levels and set to the tech level of the unit.
         for (int loc = 0; loc < unit.locations(); loc++) {
@@ -3470,8 +3492,7 @@ public class UnitUtil {
      * @return a TestEntity instance for the supplied Entity.
      */
     public static TestEntity getEntityVerifier(Entity unit) {
-        EntityVerifier entityVerifier = EntityVerifier.getInstance(new File(
-                "data/mechfiles/UnitVerifierOptions.xml")); // TODO : Remove inline file path
+        EntityVerifier entityVerifier = EntityVerifierOptions.get();
         TestEntity testEntity = null;
 
         if (unit.hasETypeFlag(Entity.ETYPE_MECH)) {
@@ -3506,6 +3527,52 @@ public class UnitUtil {
     }
 
 
+    /**
+     * Builds the text summary of a unit, as used for the summary export and clipboard.
+     *
+     * @param entity    The unit
+     * @param html      Whether to produce HTML rather than plain text
+     * @param troFormat Whether to use the technical readout layout rather than the unit readout
+     * @return          The summary
+     */
+    public static String getSummaryText(Entity entity, boolean html, boolean troFormat) {
+        if (troFormat) {
+            TROView view = TROView.createView(entity, html);
+            return view.processTemplate();
+        } else {
+            MechView view = new MechView(entity, !html, false, html);
+            return view.getMechReadout();
+        }
+    }
+
+    /**
+     * @param year The introduction year of a unit
+     * @return     The name of the era that includes the year
+     */
+    public static String getEraName(int year) {
+        if (year < 2571) {
+            return "Age of War";
+        } else if (year < 2781) {
+            return "Star League";
+        } else if (year < 2901) {
+            return "Early Succession War";
+        } else if (year < 3050) {
+            return "Late Succession War";
+        } else if (year < 3062) {
+            return "Clan Invasion";
+        } else if (year < 3068) {
+            return "Civil War";
+        } else if (year < 3086) {
+            return "Jihad";
+        } else if (year < 3101) {
+            return "Early Republic";
+        } else if (year < 3131) {
+            return "Late Republic";
+        } else {
+            return "Dark Ages";
+        }
+    }
+
     /**
      * check that the unit is vaild
      *
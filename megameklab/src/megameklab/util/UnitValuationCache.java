@@ -0,0 +1,190 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.util;
+
+import megamek.common.BattleArmor;
+import megamek.common.Entity;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caches battle value and cost calculations, which are among the most expensive calculations
+ * done for a unit. Results are kept per unit instance, so the editor status bars, summaries and
+ * record sheet preview share the results within a refresh. The editor calls {@link #invalidate(Entity)}
+ * once for each change to the unit, so cached values never outlive the state they were calculated for,
+ * and a value that was being calculated when the unit changed is not stored. Units are only weakly referenced, so the cache does not keep closed units in memory.
+ */
+public final class UnitValuationCache {
+    /** The number of units to retain values for */
+    private static final int MAX_ENTRIES = 64;
+
+    /** The cached values, most recently used first */
+    private static final LinkedList<CacheEntry> cache = new LinkedList<>();
+
+    private UnitValuationCache() {
+    }
+
+    /**
+     * @param entity The unit
+     * @return The unit's BV, including adjustments for C3 and pilot skill
+     * @see Entity#calculateBattleValue()
+     */
+    public static int getBattleValue(Entity entity) {
+        return getBattleValue(entity, false, false);
+    }
+
+    /**
+     * @param entity      The unit
+     * @param ignoreC3    Whether to ignore the C3 adjustment
+     * @param ignoreSkill Whether to ignore the pilot skill adjustment
+     * @return The unit's BV
+     * @see Entity#calculateBattleValue(boolean, boolean)
+     */
+    public static int getBattleValue(Entity entity, boolean ignoreC3, boolean ignoreSkill) {
+        return lookup(entity, "bv:" + ignoreC3 + ":" + ignoreSkill,
+                () -> entity.calculateBattleValue(ignoreC3, ignoreSkill)).intValue();
+    }
+
+    /**
+     * @param ba            The battle armor unit
+     * @param ignoreC3      Whether to ignore the C3 adjustment
+     * @param ignoreSkill   Whether to ignore the pilot skill adjustment
+     * @param singleTrooper Whether to calculate the BV of a single trooper rather than the full squad
+     * @return The unit's BV
+     * @see BattleArmor#calculateBattleValue(boolean, boolean, boolean)
+     */
+    public static int getBattleValue(BattleArmor ba, boolean ignoreC3, boolean ignoreSkill,
+                                     boolean singleTrooper) {
+        return lookup(ba, "bv:" + ignoreC3 + ":" + ignoreSkill + ":" + singleTrooper,
+                () -> ba.calculateBattleValue(ignoreC3, ignoreSkill, singleTrooper)).intValue();
+    }
+
+    /**
+     * @param entity The unit
+     * @return The cost of the unit without ammunition
+     */
+    public static double getDryCost(Entity entity) {
+        return lookup(entity, "cost:dry", () -> entity.getCost(true)).doubleValue();
+    }
+
+    /**
+     * @param entity The unit
+     * @return The cost of the unit including ammunition
+     */
+    public static double getFullCost(Entity entity) {
+        return lookup(entity, "cost:full", () -> entity.getCost(false)).doubleValue();
+    }
+
+    /**
+     * Removes any cached values for the unit, forcing them to be recalculated on the next request.
+     * This is called whenever the unit may have changed.
+     *
+     * @param entity The unit
+     */
+    public static void invalidate(Entity entity) {
+        synchronized (cache) {
+            final Iterator<CacheEntry> iter = cache.iterator();
+            while (iter.hasNext()) {
+                final CacheEntry entry = iter.next();
+                final Entity cached = entry.entity.get();
+                if (cached == null) {
+                    iter.remove();
+                } else if (cached == entity) {
+                    // The entry is kept so that values being calculated on other threads can tell
+                    // that they are out of date
+                    entry.generation++;
+                    entry.values.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static Number lookup(Entity entity, String calculation, Supplier<Number> calculator) {
+        final CacheEntry entry;
+        final int generation;
+        synchronized (cache) {
+            entry = entry(entity);
+            final Number value = entry.values.get(calculation);
+            if (value != null) {
+                return value;
+            }
+            generation = entry.generation;
+        }
+        // Calculate outside the lock so that threads rendering record sheets do not block the UI.
+        final Number value = calculator.get();
+        synchronized (cache) {
+            // The unit may have changed while the value was being calculated
+            if (entry.generation == generation) {
+                entry.values.put(calculation, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Finds the entry for a unit, adding one if there is none, and moves it to the front of the cache.
+     * Must be called while holding the lock on the cache.
+     *
+     * @param entity The unit
+     * @return       The entry
+     */
+    private static CacheEntry entry(Entity entity) {
+        final Iterator<CacheEntry> iter = cache.iterator();
+        while (iter.hasNext()) {
+            final CacheEntry entry = iter.next();
+            final Entity cached = entry.entity.get();
+            if (cached == entity) {
+                iter.remove();
+                cache.addFirst(entry);
+                return entry;
+            } else if (cached == null) {
+                iter.remove();
+            }
+        }
+        final CacheEntry entry = new CacheEntry(entity);
+        cache.addFirst(entry);
+        while (cache.size() > MAX_ENTRIES) {
+            cache.removeLast();
+        }
+        return entry;
+    }
+
+    /**
+     * The values calculated for one unit
+     */
+    private static class CacheEntry {
+        private final WeakReference<Entity> entity;
+        private final Map<String, Number> values = new HashMap<>();
+        /** Incremented each time the unit is invalidated */
+        private int generation = 0;
+
+        CacheEntry(Entity entity) {
+            this.entity = new WeakReference<>(entity);
+        }
+    }
+}
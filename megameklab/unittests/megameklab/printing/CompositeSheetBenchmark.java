@@ -0,0 +1,120 @@
+/*
+ * MegaMekLab - Copyright (C) 2022 - The MegaMek Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ */
+package megameklab.printing;
+
+import megamek.common.BattleArmor;
+import megamek.common.Entity;
+import megamek.common.EquipmentType;
+import megamek.common.Infantry;
+import megamek.common.MechFileParser;
+import megameklab.util.CConfig;
+import megameklab.util.UnitFiles;
+import megameklab.util.UnitUtil;
+
+import java.awt.print.PageFormat;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Measures the time to build the document for a full battle armor sheet (five squads) and a
+ * conventional infantry sheet (three platoons). Each page is filled with different units taken
+ * from the unit files, so the blocks on a page do not share their text and images.
+ *
+ * Usage: {@code CompositeSheetBenchmark [unit directory] [iterations]}, where the unit directory
+ * defaults to {@code data/mechfiles}.
+ */
+public final class CompositeSheetBenchmark {
+
+    private CompositeSheetBenchmark() {
+    }
+
+    public static void main(String... args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        final File unitDir = new File((args.length > 0) ? args[0] : "data/mechfiles");
+        final int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+        EquipmentType.initializeTypes();
+        CConfig.load();
+        UnitUtil.loadFonts();
+
+        final List<File> files = UnitFiles.collect(Collections.singletonList(unitDir));
+        final List<Entity> battleArmor = findUnits(files, 5, e -> e instanceof BattleArmor);
+        final List<Entity> infantry = findUnits(files, 3,
+                e -> (e instanceof Infantry) && !(e instanceof BattleArmor));
+        if ((battleArmor.size() < 5) || (infantry.size() < 3)) {
+            System.err.println("Expected at least five battle armor units and three conventional infantry units in "
+                    + unitDir);
+            System.exit(2);
+        }
+
+        final RecordSheetOptions options = new RecordSheetOptions();
+        final PageFormat pageFormat = new PageFormat();
+        pageFormat.setPaper(options.getPaperSize().createPaper());
+
+        run("5 battle armor squads", battleArmor, options, pageFormat, iterations);
+        run("3 infantry platoons", infantry, options, pageFormat, iterations);
+    }
+
+    /**
+     * Parses unit files in order until enough matching units with different names are found.
+     */
+    private static List<Entity> findUnits(List<File> files, int count, Predicate<Entity> filter) {
+        final List<Entity> units = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        for (File file : files) {
+            if (units.size() == count) {
+                break;
+            }
+            if (!file.getName().toLowerCase(Locale.ROOT).endsWith(".blk")) {
+                continue;
+            }
+            try {
+                final Entity entity = new MechFileParser(file).getEntity();
+                if (filter.test(entity) && !names.contains(entity.getShortNameRaw())) {
+                    units.add(entity);
+                    names.add(entity.getShortNameRaw());
+                }
+            } catch (Exception ignored) {
+                // Not every file in the directory has to load; skip the ones that don't
+            }
+        }
+        return units;
+    }
+
+    private static void run(String label, List<Entity> entities, RecordSheetOptions options,
+                            PageFormat pageFormat, int iterations) {
+        time(entities, options, pageFormat, Math.max(1, iterations / 4));
+        System.out.printf("%s: %.1f ms%n", label, time(entities, options, pageFormat, iterations));
+    }
+
+    /**
+     * @return The mean time in milliseconds to create the sheet's document
+     */
+    private static double time(List<Entity> entities, RecordSheetOptions options, PageFormat pageFormat,
+                               int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            final PrintSmallUnitSheet sheet = new PrintSmallUnitSheet(entities, 0, options);
+            final long start = System.nanoTime();
+            if (!sheet.createDocument(0, pageFormat, true)) {
+                throw new IllegalStateException("Could not create record sheet");
+            }
+            total += System.nanoTime() - start;
+        }
+        return total / (iterations * 1_000_000.0);
+    }
+}